@@ -0,0 +1,27 @@
+#!/bin/sh
+# Builds Minesweeper.jar with pre-scaled icons, and an AppCDS archive for it.
+#
+#   ./build.sh             build the jar and the archive
+#   ./build.sh startup     then compare the time to the first frame with and without it
+#
+# Play with the archive (it only matches the JDK that created it):
+#   java -XX:SharedArchiveFile=Minesweeper.jsa -jar Minesweeper.jar
+set -e
+cd "$(dirname "$0")"
+
+rm -rf build
+mkdir -p build/classes
+javac -encoding UTF-8 -d build/classes src/*.java
+java -cp build/classes IconScaler img build/classes/icons
+jar --create --file Minesweeper.jar --manifest manifest.txt -C build/classes .
+
+# Start the game once, up to its first painted board, and archive every class it loaded
+java -XX:ArchiveClassesAtExit=Minesweeper.jsa -Dminesweeper.startup=exit -jar Minesweeper.jar --difficulty EASY
+
+if [ "$1" = "startup" ]; then
+    for run in 1 2 3 4 5; do
+        echo "default CDS: $(java -Dminesweeper.startup=exit -jar Minesweeper.jar --difficulty EASY | tr '\n' ' ')"
+        echo "AppCDS:      $(java -XX:SharedArchiveFile=Minesweeper.jsa -Dminesweeper.startup=exit \
+            -jar Minesweeper.jar --difficulty EASY | tr '\n' ' ')"
+    done
+fi
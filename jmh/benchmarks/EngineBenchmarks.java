@@ -0,0 +1,120 @@
+package benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The EngineBenchmark cases under JMH, on every Difficulty and on custom
+ * boards with the expert mine density.
+ *
+ * The game lives in the default package, which a named package cannot refer
+ * to, and JMH rejects benchmarks in the default package. So the cases are
+ * looked up once per trial through {@code EngineBenchmark.prepare}, which
+ * returns them as JDK types. Each fork runs one case, so the calls through
+ * {@link Callable} stay monomorphic and are inlined like a direct call.
+ *
+ * Cases that change the game get a fresh setup before every call
+ * ({@code Level.Invocation}); the rest share one per trial. The gc profiler
+ * counts allocations during invocation-level setup too, so for the changing
+ * cases {@code gc.alloc.rate.norm} includes building the game; the plain
+ * EngineBenchmark harness excludes it. The two kinds take their case names
+ * from different parameters, so picking cases of one kind does not run them
+ * under the other's setup.
+ *
+ * <pre>
+ *   mvn -P jmh package
+ *   java -jar target/benchmarks.jar -prof gc
+ *   java -jar target/benchmarks.jar changing -p changingCase=controller.firstClick -p size=HARD,1024x1024 -prof gc
+ *   java -jar target/benchmarks.jar repeatable -p repeatableCase=board.metrics -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmarks {
+
+    /**
+     * Cases that change the game they run on, set up before every call.
+     */
+    @State(Scope.Thread)
+    public static class Changing {
+        @Param({"board.placeMines", "controller.firstClick", "controller.revealSingle",
+                "controller.revealCascade", "controller.fullGame", "history.undoFirstClick",
+                "history.redoFirstClick", "solver.autoPlay", "render.diff"})
+        public String changingCase;
+
+        @Param({"EASY", "MEDIUM", "HARD", "256x256", "1024x1024"})
+        public String size;
+
+        private Supplier<Callable<Object>> cases;
+        Callable<Object> operation;
+
+        @Setup(Level.Trial)
+        public void prepare() {
+            cases = EngineBenchmarks.prepare(changingCase, size);
+        }
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            operation = cases.get();
+        }
+    }
+
+    /**
+     * Cases that leave their state as they found it, set up once per trial.
+     */
+    @State(Scope.Thread)
+    public static class Repeatable {
+        @Param({"board.new", "board.countNeighbors", "board.metrics", "controller.stats",
+                "probability.compute", "snapshot.save", "snapshot.load", "snapshot.map",
+                "serialization.save", "serialization.load"})
+        public String repeatableCase;
+
+        @Param({"EASY", "MEDIUM", "HARD", "256x256", "1024x1024"})
+        public String size;
+
+        Callable<Object> operation;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            operation = EngineBenchmarks.prepare(repeatableCase, size).get();
+        }
+    }
+
+    @Benchmark
+    public Object changing(Changing state) throws Exception {
+        return state.operation.call();
+    }
+
+    @Benchmark
+    public Object repeatable(Repeatable state) throws Exception {
+        return state.operation.call();
+    }
+
+    @SuppressWarnings("unchecked")
+    static Supplier<Callable<Object>> prepare(String name, String size) {
+        try {
+            Method prepare = Class.forName("EngineBenchmark").getMethod("prepare", String.class, String.class);
+            return (Supplier<Callable<Object>>) prepare.invoke(null, name, size);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot prepare " + name + " on " + size, e);
+        }
+    }
+}
@@ -1,4 +1,6 @@
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
 
 /**
  * Represents the Minesweeper game board.
@@ -8,26 +10,42 @@ import java.util.Random;
 public class Board {
     private final int rows;
     private final int cols;
-    private final Cell[][] grid;
+    private final CellGrid grid;
     private boolean minesPlaced = false;
 
     /**
      * Constructor initializes the board grid with empty cells.
+     * Uses the compact {@link PackedCellGrid} storage.
      * 
      * @param rows Number of rows in the board.
      * @param cols Number of columns in the board.
      */
     public Board(int rows, int cols) {
-        this.rows = rows;
-        this.cols = cols;
-        grid = new Cell[rows][cols];
+        this(new PackedCellGrid(rows, cols));
+    }
 
-        // Initialize each cell in the grid
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                grid[r][c] = new Cell();
-            }
-        }
+    /**
+     * Creates a board on top of the given cell storage.
+     * Use {@link ObjectCellGrid} for the reference one-object-per-cell layout.
+     *
+     * @param grid Empty cell storage for the board.
+     */
+    public Board(CellGrid grid) {
+        this(grid, false);
+    }
+
+    /**
+     * Creates a board on top of cell storage that may already hold a game,
+     * e.g. one restored from a {@link GameSnapshot}.
+     *
+     * @param grid Cell storage for the board, with counts set if mines are placed.
+     * @param minesPlaced Whether the storage already holds the mines.
+     */
+    public Board(CellGrid grid, boolean minesPlaced) {
+        this.rows = grid.getRows();
+        this.cols = grid.getCols();
+        this.grid = grid;
+        this.minesPlaced = minesPlaced;
     }
 
     /**
@@ -39,33 +57,201 @@ public class Board {
      * @param totalMines Total number of mines to place.
      */
     public void placeMines(int safeRow, int safeCol, int totalMines) {
+        placeMines(safeRow, safeCol, totalMines, SafeZone.CELL, new SplittableRandom());
+    }
+
+    /**
+     * Places mines randomly on the board, keeping the given zone around the
+     * first click free of mines. Every layout is equally likely, and the same
+     * seeded generator always produces the same board.
+     * Mines are placed only once.
+     *
+     * @param safeRow The row of the safe cell (first click).
+     * @param safeCol The column of the safe cell (first click).
+     * @param totalMines Total number of mines to place.
+     * @param safeZone The area around the first click to keep free.
+     * @param random Source of randomness, e.g. a seeded SplittableRandom.
+     * @throws IllegalArgumentException If the mines do not fit outside the safe zone.
+     */
+    public void placeMines(int safeRow, int safeCol, int totalMines,
+                           SafeZone safeZone, RandomGenerator random) {
         if (minesPlaced) return;
 
-        Random random = new Random();
-        int placedMines = 0;
+        long start = EngineMetrics.start();
+        int[] safeCells = safeZone.cells(rows, cols, safeRow, safeCol);
+        MinePlacer.place(grid, 0, grid.size(), safeCells, totalMines, random);
 
-        while (placedMines < totalMines) {
-            int r = random.nextInt(rows);
-            int c = random.nextInt(cols);
+        calculateNeighborMines();
+        minesPlaced = true;
+        if (EngineMetrics.ENABLED) EngineMetrics.placed(start, grid.size(), totalMines);
+    }
 
-            // Skip if mine already present or if this is the safe cell
-            if (!grid[r][c].isMine() && !(r == safeRow && c == safeCol)) {
-                grid[r][c].setMine();
-                placedMines++;
-            }
-        }
+    /**
+     * Places mines like {@link #placeMines(int, int, int, SafeZone, RandomGenerator)},
+     * but with mine placement and neighbor counting split into stripes of rows
+     * on a fork/join pool, for boards of millions of cells. The board is the
+     * same for a given seed whatever the pool's parallelism, but differs from
+     * the one the single-threaded overload places. See {@link StripedSetup}.
+     * Mines are placed only once.
+     *
+     * @param safeRow The row of the safe cell (first click).
+     * @param safeCol The column of the safe cell (first click).
+     * @param totalMines Total number of mines to place.
+     * @param safeZone The area around the first click to keep free.
+     * @param random Source of randomness, e.g. a seeded SplittableRandom.
+     * @param pool Pool to run the stripes on.
+     * @throws IllegalArgumentException If the mines do not fit outside the safe zone.
+     */
+    public void placeMines(int safeRow, int safeCol, int totalMines,
+                           SafeZone safeZone, RandomGenerator random, ForkJoinPool pool) {
+        if (minesPlaced) return;
+
+        long start = EngineMetrics.start();
+        int[] safeCells = safeZone.cells(rows, cols, safeRow, safeCol);
+        StripedSetup.placeMines(grid, safeCells, totalMines, random, pool);
+
+        long countStart = EngineMetrics.start();
+        StripedSetup.countNeighbors(grid, pool);
+        EngineMetrics.stop(EngineMetrics.Metric.COUNT_NEIGHBORS, countStart);
+        minesPlaced = true;
+        if (EngineMetrics.ENABLED) EngineMetrics.placed(start, grid.size(), totalMines);
+    }
+
+    /**
+     * Places mines uniformly at random with no safe cell yet, e.g. to prepare a
+     * board ahead of time. Call {@link #clearSafeZone} once the first click is known.
+     * Mines are placed only once.
+     *
+     * @param totalMines Total number of mines to place.
+     * @param random Source of randomness, e.g. a seeded SplittableRandom.
+     * @throws IllegalArgumentException If the mines do not fit on the board.
+     */
+    public void placeMines(int totalMines, RandomGenerator random) {
+        if (minesPlaced) return;
+
+        long start = EngineMetrics.start();
+        MinePlacer.place(grid, 0, grid.size(), new int[0], totalMines, random);
 
         calculateNeighborMines();
         minesPlaced = true;
+        if (EngineMetrics.ENABLED) EngineMetrics.placed(start, grid.size(), totalMines);
+    }
+
+    /**
+     * Moves every mine inside the safe zone of the first click to a random
+     * mine-free cell outside it. On a uniformly random board this gives the
+     * same distribution as placing the mines around the click directly.
+     *
+     * @param safeRow The row of the first click.
+     * @param safeCol The column of the first click.
+     * @param safeZone The area around the first click to keep free.
+     * @param random Source of randomness for the new mine positions.
+     * @throws IllegalArgumentException If the mines do not fit outside the safe zone.
+     */
+    public void clearSafeZone(int safeRow, int safeCol, SafeZone safeZone, RandomGenerator random) {
+        int[] safeCells = safeZone.cells(rows, cols, safeRow, safeCol);
+        int mines = 0;
+        for (int cell : safeCells) {
+            if (grid.isMine(cell)) mines++;
+        }
+        if (mines == 0) return;
+
+        int total = 0;
+        for (int i = 0; i < grid.size(); i++) {
+            if (grid.isMine(i)) total++;
+        }
+        if (total > grid.size() - safeCells.length) {
+            throw new IllegalArgumentException("Cannot fit " + total + " mines outside the safe zone");
+        }
+
+        // The safe zone and the mines outside it, in index order, are the cells the mines cannot move to
+        int[] occupied = new int[total - mines + safeCells.length];
+        int count = 0;
+        int next = 0;
+        for (int i = 0; i < grid.size(); i++) {
+            if (next < safeCells.length && safeCells[next] == i) {
+                occupied[count++] = i;
+                next++;
+            } else if (grid.isMine(i)) {
+                occupied[count++] = i;
+            }
+        }
+
+        int[] targets = MinePlacer.choose(0, grid.size(), occupied, mines, random);
+        int moved = 0;
+        for (int cell : safeCells) {
+            if (!grid.isMine(cell)) continue;
+            NeighborCounter.removeMine(grid, cell);
+            NeighborCounter.addMine(grid, targets[moved++]);
+        }
+    }
+
+    /**
+     * Checks if mines have been placed since the board was created or reset.
+     */
+    public boolean areMinesPlaced() {
+        return minesPlaced;
+    }
+
+    /**
+     * Clears the board back to empty hidden cells so it can be reused for a new game.
+     */
+    public void reset() {
+        grid.clear();
+        minesPlaced = false;
+    }
+
+    /**
+     * Clears the board like {@link #reset()}, one stripe of rows per task on
+     * the given pool.
+     *
+     * @param pool Pool to run the stripes on.
+     */
+    public void reset(ForkJoinPool pool) {
+        StripedSetup.clear(grid, pool);
+        minesPlaced = false;
     }
 
     /**
      * Calculates and sets the number of mines surrounding each non-mine cell.
      */
     private void calculateNeighborMines() {
+        long start = EngineMetrics.start();
+        NeighborCounter.countAll(grid);
+        EngineMetrics.stop(EngineMetrics.Metric.COUNT_NEIGHBORS, start);
+    }
+
+    /**
+     * Moves a mine to another cell, updating only the counts around the two cells.
+     *
+     * @param fromRow Row of the cell holding the mine.
+     * @param fromCol Column of the cell holding the mine.
+     * @param toRow Row of the mine-free cell receiving it.
+     * @param toCol Column of the mine-free cell receiving it.
+     * @throws IllegalArgumentException If the source has no mine or the target already has one.
+     */
+    public void moveMine(int fromRow, int fromCol, int toRow, int toCol) {
+        int from = indexOf(fromRow, fromCol);
+        int to = indexOf(toRow, toCol);
+        if (!grid.isMine(from) || grid.isMine(to)) {
+            throw new IllegalArgumentException("Cannot move mine from (" + fromRow + ", " + fromCol
+                    + ") to (" + toRow + ", " + toCol + ")");
+        }
+
+        NeighborCounter.removeMine(grid, from);
+        NeighborCounter.addMine(grid, to);
+    }
+
+    /**
+     * Cross-checks every stored neighbor count against a direct count of the
+     * eight surrounding cells, the way counts were originally computed.
+     *
+     * @return True if all non-mine cells hold the correct count.
+     */
+    public boolean verifyNeighborCounts() {
         for (int r = 0; r < rows; r++) {
             for (int c = 0; c < cols; c++) {
-                if (grid[r][c].isMine()) continue;
+                if (grid.isMine(indexOf(r, c))) continue;
 
                 int mineCount = 0;
 
@@ -77,15 +263,43 @@ public class Board {
                         int nr = r + dr;
                         int nc = c + dc;
 
-                        if (isInBounds(nr, nc) && grid[nr][nc].isMine()) {
+                        if (isInBounds(nr, nc) && grid.isMine(indexOf(nr, nc))) {
                             mineCount++;
                         }
                     }
                 }
 
-                grid[r][c].setNeighborMines(mineCount);
+                if (grid.getNeighborMines(indexOf(r, c)) != mineCount) {
+                    return false;
+                }
             }
         }
+        return true;
+    }
+
+    /**
+     * Computes the difficulty metrics of the board (3BV, openings, isolated
+     * numbers, islands, ZiNi) in linear time. Only the layout is read, so the
+     * result does not depend on which cells are revealed or flagged.
+     *
+     * @return The metrics.
+     * @throws IllegalStateException If no mines have been placed yet.
+     */
+    public BoardMetrics computeMetrics() {
+        return computeMetrics(new BoardMetrics.Calculator());
+    }
+
+    /**
+     * Computes the difficulty metrics with a reusable calculator, which keeps
+     * its scratch arrays between boards, e.g. when measuring millions of them.
+     *
+     * @param calculator Scratch space, used by one thread at a time.
+     * @return The metrics.
+     * @throws IllegalStateException If no mines have been placed yet.
+     */
+    public BoardMetrics computeMetrics(BoardMetrics.Calculator calculator) {
+        if (!minesPlaced) throw new IllegalStateException("Mines have not been placed");
+        return calculator.compute(grid);
     }
 
     /**
@@ -99,8 +313,21 @@ public class Board {
         return row >= 0 && row < rows && col >= 0 && col < cols;
     }
 
+    /**
+     * Converts cell coordinates to the flat index used by the cell storage.
+     *
+     * @param row Row index.
+     * @param col Column index.
+     * @return The flat index {@code row * cols + col}.
+     */
+    public int indexOf(int row, int col) {
+        return row * cols + col;
+    }
+
     /**
      * Returns the cell at the specified coordinates.
+     * With packed storage this is a detached copy; use the board's
+     * own query methods or {@link #getGrid()} on hot paths.
      * 
      * @param row Row index.
      * @param col Column index.
@@ -108,11 +335,48 @@ public class Board {
      */
     public Cell getCell(int row, int col) {
         if (isInBounds(row, col)) {
-            return grid[row][col];
+            return grid.getCell(indexOf(row, col));
         }
         return null;
     }
 
+    /**
+     * Checks if the cell at the given coordinates contains a mine.
+     */
+    public boolean isMine(int row, int col) {
+        return grid.isMine(indexOf(row, col));
+    }
+
+    /**
+     * Checks if the cell at the given coordinates has been revealed.
+     */
+    public boolean isRevealed(int row, int col) {
+        return grid.isRevealed(indexOf(row, col));
+    }
+
+    /**
+     * Checks if the cell at the given coordinates is flagged.
+     */
+    public boolean isFlagged(int row, int col) {
+        return grid.isFlagged(indexOf(row, col));
+    }
+
+    /**
+     * Returns the count of mines around the cell at the given coordinates.
+     */
+    public int getNeighborMines(int row, int col) {
+        return grid.getNeighborMines(indexOf(row, col));
+    }
+
+    /**
+     * Gets the underlying cell storage, addressed by {@link #indexOf(int, int)}.
+     *
+     * @return The cell grid.
+     */
+    public CellGrid getGrid() {
+        return grid;
+    }
+
     /**
      * Gets the number of rows of the board.
      * 
@@ -0,0 +1,342 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Single component that draws the whole board from a {@link BoardView}.
+ * Replaces one JButton per cell: there is one mouse listener for all cells,
+ * only the cells inside the clip region are painted, and the icons and digit
+ * glyphs are rendered into tiles once per zoom level and then just copied.
+ * Icons come pre-scaled from an {@link IconSet}; until one is loaded the
+ * tiles show a plain marker.
+ * Put it in a JScrollPane for large boards; Ctrl + mouse wheel zooms.
+ */
+public class BoardCanvas extends JComponent implements Scrollable {
+    private static final long serialVersionUID = 1L;
+    static final int MIN_CELL_SIZE = 8;
+    static final int MAX_CELL_SIZE = 64;
+    static final int ZOOM_STEP = 4;
+    private static final int MAX_VIEWPORT_WIDTH = 1000;
+    private static final int MAX_VIEWPORT_HEIGHT = 700;
+    // Above this many changed cells, one repaint of the visible area is cheaper
+    private static final int MAX_CELL_REPAINTS = 1024;
+
+    /**
+     * Receives clicks on board cells.
+     */
+    public interface CellListener {
+        /**
+         * Called when the player clicks a cell.
+         *
+         * @param row Row of the clicked cell.
+         * @param col Column of the clicked cell.
+         * @param button {@link MouseEvent#BUTTON1} (reveal), {@link MouseEvent#BUTTON2} (chord)
+         *               or {@link MouseEvent#BUTTON3} (flag).
+         */
+        void cellClicked(int row, int col, int button);
+    }
+
+    private final IconSet icons;
+    private BoardView view;
+    private int cellSize;
+    private int highlighted = -1;
+
+    // Images rendered for the current cell size
+    private BufferedImage hiddenTile;
+    private BufferedImage flagTile;
+    private BufferedImage mineTile;
+    private BufferedImage[] numberTiles;
+
+    /**
+     * Creates the canvas for a game.
+     *
+     * @param view What the player sees of the game.
+     * @param cellSize Initial width and height of a cell in pixels.
+     * @param icons The mine and flag pictures, loaded as needed.
+     * @param listener Receives the player's clicks.
+     */
+    public BoardCanvas(BoardView view, int cellSize, IconSet icons, CellListener listener) {
+        this.view = view;
+        this.icons = icons;
+        setOpaque(true);
+        setCellSize(cellSize);
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = e.getY() / BoardCanvas.this.cellSize;
+                int col = e.getX() / BoardCanvas.this.cellSize;
+                if (!BoardCanvas.this.view.isInBounds(row, col)) return;
+
+                if (SwingUtilities.isLeftMouseButton(e)) {
+                    listener.cellClicked(row, col, MouseEvent.BUTTON1);
+                } else if (SwingUtilities.isMiddleMouseButton(e)) {
+                    listener.cellClicked(row, col, MouseEvent.BUTTON2);
+                } else if (SwingUtilities.isRightMouseButton(e)) {
+                    listener.cellClicked(row, col, MouseEvent.BUTTON3);
+                }
+            }
+        });
+
+        addMouseWheelListener(e -> {
+            if (!e.isControlDown()) {
+                // Let the scroll pane scroll normally
+                getParent().dispatchEvent(SwingUtilities.convertMouseEvent(this, e, getParent()));
+                return;
+            }
+            zoom(e.getWheelRotation() < 0 ? 1 : -1, e.getPoint());
+        });
+    }
+
+    /**
+     * Switches to another game (e.g. after a restart) and redraws everything.
+     *
+     * @param view What the player sees of the new game.
+     */
+    public void setView(BoardView view) {
+        this.view = view;
+        this.highlighted = -1;
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Schedules a repaint of just the given cells.
+     *
+     * @param delta Cells changed by the engine, already applied to the view.
+     */
+    public void repaintCells(GameEngine.Delta delta) {
+        if (delta.size() > MAX_CELL_REPAINTS) {
+            repaint();
+            return;
+        }
+        for (int i = 0; i < delta.size(); i++) {
+            repaintCell(delta.getCell(i));
+        }
+    }
+
+    /**
+     * Outlines one cell, e.g. to show a hint, replacing any previous highlight.
+     *
+     * @param row Row of the cell, or -1 to remove the highlight.
+     * @param col Column of the cell.
+     */
+    public void setHighlight(int row, int col) {
+        repaintCell(highlighted);
+        highlighted = row < 0 ? -1 : view.indexOf(row, col);
+        repaintCell(highlighted);
+    }
+
+    private void repaintCell(int index) {
+        if (index < 0) return;
+        int cols = view.getCols();
+        repaint((index % cols) * cellSize, (index / cols) * cellSize, cellSize, cellSize);
+    }
+
+    /**
+     * Changes the zoom level by one step, keeping the cell under the given point in place.
+     */
+    private void zoom(int direction, Point anchor) {
+        int oldSize = cellSize;
+        int newSize = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, oldSize + direction * ZOOM_STEP));
+        if (newSize == oldSize) return;
+
+        setCellSize(newSize);
+        revalidate();
+
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        if (viewport != null) {
+            Point view = viewport.getViewPosition();
+            int dx = anchor.x * newSize / oldSize - anchor.x;
+            int dy = anchor.y * newSize / oldSize - anchor.y;
+            viewport.setViewPosition(new Point(Math.max(0, view.x + dx), Math.max(0, view.y + dy)));
+        }
+        repaint();
+    }
+
+    /**
+     * Gets the width and height of the icons drawn in a cell of the given size.
+     */
+    static int iconSize(int cellSize) {
+        return cellSize - 2 * iconMargin(cellSize);
+    }
+
+    private static int iconMargin(int cellSize) {
+        return Math.max(1, cellSize / 8);
+    }
+
+    /**
+     * Sets the cell size and renders the tiles for it. If the icons for that
+     * size are not loaded yet, the tiles are rendered again once they are.
+     */
+    private void setCellSize(int size) {
+        cellSize = size;
+        if (!icons.isLoaded(size)) {
+            icons.load(size, () -> {
+                if (cellSize == size) {
+                    setCellSize(size);
+                    repaint();
+                }
+            });
+        }
+
+        hiddenTile = newTile(MinesweeperGUI.BG_TEAL);
+        Graphics2D g = hiddenTile.createGraphics();
+        g.setColor(MinesweeperGUI.BG_MINT);
+        g.drawLine(0, 0, size - 1, 0);
+        g.drawLine(0, 0, 0, size - 1);
+        g.setColor(MinesweeperGUI.BG_DARK);
+        g.drawLine(size - 1, 0, size - 1, size - 1);
+        g.drawLine(0, size - 1, size - 1, size - 1);
+        g.dispose();
+
+        flagTile = newTile(MinesweeperGUI.BG_TEAL);
+        g = flagTile.createGraphics();
+        g.drawImage(hiddenTile, 0, 0, null);
+        drawIcon(g, icons.get(IconSet.FLAG, size), Color.RED);
+        g.dispose();
+
+        mineTile = newTile(MinesweeperGUI.BG_DARK);
+        g = mineTile.createGraphics();
+        drawIcon(g, icons.get(IconSet.MINE, size), Color.BLACK);
+        g.dispose();
+
+        numberTiles = new BufferedImage[9];
+        Font font = new Font("Monospaced", Font.BOLD, Math.max(8, size * 14 / 24));
+        for (int n = 0; n <= 8; n++) {
+            numberTiles[n] = newTile(MinesweeperGUI.BG_DARK);
+            if (n == 0) continue;
+
+            g = numberTiles[n].createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(font);
+            g.setColor(MinesweeperGUI.FG_LIGHT);
+            FontMetrics metrics = g.getFontMetrics();
+            String text = String.valueOf(n);
+            g.drawString(text, (size - metrics.stringWidth(text)) / 2,
+                    (size - metrics.getHeight()) / 2 + metrics.getAscent());
+            g.dispose();
+        }
+    }
+
+    /**
+     * Creates a cell-sized image filled with a color.
+     */
+    private BufferedImage newTile(Color background) {
+        BufferedImage tile = new BufferedImage(cellSize, cellSize, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = tile.createGraphics();
+        g.setColor(background);
+        g.fillRect(0, 0, cellSize, cellSize);
+        g.dispose();
+        return tile;
+    }
+
+    /**
+     * Draws an icon inside the cell with a small margin, or a plain dot if it is missing.
+     */
+    private void drawIcon(Graphics2D g, Image icon, Color fallback) {
+        int margin = iconMargin(cellSize);
+        int size = iconSize(cellSize);
+        if (icon != null) {
+            // Icons are pre-scaled to exactly this size
+            g.drawImage(icon, margin, margin, size, size, null);
+        } else {
+            g.setColor(fallback);
+            g.fillOval(margin, margin, size, size);
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = EngineMetrics.start();
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        g.setColor(MinesweeperGUI.BG_DARK);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        // Only visit the cells that intersect the clip region
+        int rowStart = Math.max(0, clip.y / cellSize);
+        int rowEnd = Math.min(view.getRows() - 1, (clip.y + clip.height - 1) / cellSize);
+        int colStart = Math.max(0, clip.x / cellSize);
+        int colEnd = Math.min(view.getCols() - 1, (clip.x + clip.width - 1) / cellSize);
+
+        for (int r = rowStart; r <= rowEnd; r++) {
+            int index = view.indexOf(r, colStart);
+            for (int c = colStart; c <= colEnd; c++, index++) {
+                g.drawImage(tileFor(view.getTile(index)), c * cellSize, r * cellSize, null);
+            }
+        }
+
+        if (highlighted >= 0) {
+            int cols = view.getCols();
+            g.setColor(Color.YELLOW);
+            g.drawRect((highlighted % cols) * cellSize, (highlighted / cols) * cellSize, cellSize - 1, cellSize - 1);
+            g.drawRect((highlighted % cols) * cellSize + 1, (highlighted / cols) * cellSize + 1, cellSize - 3, cellSize - 3);
+        }
+
+        if (EngineMetrics.ENABLED) {
+            int painted = Math.max(0, rowEnd - rowStart + 1) * Math.max(0, colEnd - colStart + 1);
+            EngineMetrics.repainted(start, painted);
+        }
+    }
+
+    /**
+     * Picks the pre-rendered image for a tile of the view.
+     */
+    private BufferedImage tileFor(byte tile) {
+        switch (tile) {
+            case BoardView.HIDDEN:
+                return hiddenTile;
+            case BoardView.FLAG:
+                return flagTile;
+            case BoardView.MINE:
+                return mineTile;
+            default:
+                return numberTiles[tile];
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(view.getCols() * cellSize, view.getRows() * cellSize);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return viewportSize(view.getRows(), view.getCols(), cellSize);
+    }
+
+    /**
+     * Gets the size the board takes on screen before the player resizes the
+     * window, e.g. to reserve its space while the game is set up.
+     */
+    static Dimension viewportSize(int rows, int cols, int cellSize) {
+        return new Dimension((int) Math.min((long) cols * cellSize, MAX_VIEWPORT_WIDTH),
+                (int) Math.min((long) rows * cellSize, MAX_VIEWPORT_HEIGHT));
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return cellSize;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        int extent = orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+        return Math.max(cellSize, extent - cellSize);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
@@ -0,0 +1,475 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Standard difficulty metrics of a board with its mines placed, for ranking
+ * and filtering generated boards:
+ * <ul>
+ *   <li>openings: groups of touching zero cells, each opened by one click;</li>
+ *   <li>isolated numbers: safe numbered cells that touch no zero cell, so no
+ *       opening reveals them and each needs its own click;</li>
+ *   <li>3BV: the minimum number of left clicks to clear the board without
+ *       flags, openings plus isolated numbers;</li>
+ *   <li>islands: groups of touching isolated numbers;</li>
+ *   <li>ZiNi: an estimate of the clicks needed when flagging and chording are
+ *       allowed as well, never more than 3BV.</li>
+ * </ul>
+ * Computed by a {@link Calculator}, see {@link Board#computeMetrics()}.
+ */
+public final class BoardMetrics {
+    private final int openings;
+    private final int isolatedNumbers;
+    private final int islands;
+    private final int zini;
+
+    BoardMetrics(int openings, int isolatedNumbers, int islands, int zini) {
+        this.openings = openings;
+        this.isolatedNumbers = isolatedNumbers;
+        this.islands = islands;
+        this.zini = zini;
+    }
+
+    public int getOpenings() {
+        return openings;
+    }
+
+    public int getIsolatedNumbers() {
+        return isolatedNumbers;
+    }
+
+    /**
+     * Gets the 3BV (Bechtel's Board Benchmark Value): openings plus isolated numbers.
+     */
+    public int get3BV() {
+        return openings + isolatedNumbers;
+    }
+
+    public int getIslands() {
+        return islands;
+    }
+
+    /**
+     * Gets the ZiNi estimate: clicks, flags and chords of a greedy player that
+     * chords wherever that saves clicks.
+     */
+    public int getZiNi() {
+        return zini;
+    }
+
+    @Override
+    public String toString() {
+        return "3BV=" + get3BV() + " openings=" + openings + " isolated=" + isolatedNumbers
+                + " islands=" + islands + " ZiNi=" + zini;
+    }
+
+    /**
+     * Computes metrics with reusable scratch arrays, so measuring many boards
+     * of the same size allocates nothing but the results. One calculator per
+     * thread.
+     *
+     * The cells are read once into a kind array (mine, zero or number). A
+     * single row-major pass then joins every zero cell to the zero cells before
+     * it (left, and the three above) in a union-find over the flat cell index,
+     * and marks the neighbors of every zero as bordering an opening. A row's
+     * numbers are final once the row below has been seen, so the same pass
+     * joins the isolated numbers of the row above into islands, one row behind.
+     * Openings and islands are counted as cells minus successful unions, with
+     * no search over the components. ZiNi takes a second sweep over the cells.
+     */
+    public static final class Calculator {
+        // Cell kinds, with the opening and flag state of the ZiNi sweep in the high bits
+        private static final byte MINE = 1;
+        private static final byte ZERO = 2;
+        private static final byte NUMBER = 3;
+        private static final byte KIND_MASK = 0x03;
+        private static final byte BORDER = 0x04;
+        private static final byte OPEN = 0x08;
+        private static final byte FLAG = 0x10;
+
+        private byte[] kinds = new byte[0];
+        private int[] parent = new int[0];
+        // Openings already opened by the ZiNi sweep, by union-find root
+        private boolean[] opened = new boolean[0];
+        private final int[] roots = new int[8];
+
+        /**
+         * Computes the metrics of a board whose mines are placed.
+         * The board is only read.
+         *
+         * @param grid The board storage.
+         * @return The metrics.
+         */
+        public BoardMetrics compute(CellGrid grid) {
+            int rows = grid.getRows();
+            int cols = grid.getCols();
+            int size = grid.size();
+            if (kinds.length < size) {
+                kinds = new byte[size];
+                parent = new int[size];
+                opened = new boolean[size];
+            }
+
+            int zeros = 0;
+            int numbers = 0;
+            for (int i = 0; i < size; i++) {
+                byte kind;
+                if (grid.isMine(i)) {
+                    kind = MINE;
+                } else if (grid.getNeighborMines(i) == 0) {
+                    kind = ZERO;
+                    zeros++;
+                } else {
+                    kind = NUMBER;
+                    numbers++;
+                }
+                kinds[i] = kind;
+                parent[i] = i;
+            }
+
+            int openingUnions = 0;
+            int borderNumbers = 0;
+            int islandUnions = 0;
+            for (int r = 0; r < rows; r++) {
+                int base = r * cols;
+                for (int c = 0; c < cols; c++) {
+                    int i = base + c;
+                    if (kinds[i] != ZERO) continue;
+
+                    openingUnions += joinEarlier(i, r, c, cols, ZERO);
+                    borderNumbers += markBorder(r, c, rows, cols);
+                }
+                if (r > 0) islandUnions += joinIsolated(r - 1, cols);
+            }
+            islandUnions += joinIsolated(rows - 1, cols);
+
+            int isolated = numbers - borderNumbers;
+            return new BoardMetrics(zeros - openingUnions, isolated, isolated - islandUnions,
+                    zini(rows, cols));
+        }
+
+        /**
+         * Marks the numbers around a zero cell as bordering an opening.
+         *
+         * @return How many were not marked before.
+         */
+        private int markBorder(int row, int col, int rows, int cols) {
+            int marked = 0;
+            for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+                for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                    int n = r * cols + c;
+                    if (kinds[n] == NUMBER) {
+                        kinds[n] |= BORDER;
+                        marked++;
+                    }
+                }
+            }
+            return marked;
+        }
+
+        /**
+         * Joins the isolated numbers of a finished row to those left of them
+         * and in the row above.
+         *
+         * @return Number of successful unions.
+         */
+        private int joinIsolated(int row, int cols) {
+            int unions = 0;
+            int base = row * cols;
+            for (int c = 0; c < cols; c++) {
+                int i = base + c;
+                if (kinds[i] != NUMBER) continue;
+
+                unions += joinEarlier(i, row, c, cols, NUMBER);
+            }
+            return unions;
+        }
+
+        /**
+         * Joins a cell to the cells of the same kind before it in row-major
+         * order. The one above touches the other three, so it is enough if it
+         * matches, and the left and upper left cells touch each other.
+         *
+         * @return Number of successful unions.
+         */
+        private int joinEarlier(int i, int row, int col, int cols, byte kind) {
+            int up = i - cols;
+            if (row > 0 && kinds[up] == kind) return union(i, up) ? 1 : 0;
+
+            int unions = 0;
+            if (col > 0) {
+                if (kinds[i - 1] == kind) {
+                    if (union(i, i - 1)) unions++;
+                } else if (row > 0 && kinds[up - 1] == kind && union(i, up - 1)) {
+                    unions++;
+                }
+            }
+            if (row > 0 && col + 1 < cols && kinds[up + 1] == kind && union(i, up + 1)) unions++;
+            return unions;
+        }
+
+        /**
+         * Estimates ZiNi with one greedy sweep in cell order. Every safe
+         * number is chorded (after clicking it open if needed and flagging its
+         * unflagged mines) when the chord opens more openings and isolated
+         * numbers than the clicks it costs. Otherwise each unopened opening and
+         * isolated number costs one click.
+         */
+        private int zini(int rows, int cols) {
+            int size = rows * cols;
+            Arrays.fill(opened, 0, size, false);
+            // Parents always have smaller indices, so one forward pass points every zero at its root
+            for (int i = 0; i < size; i++) {
+                parent[i] = parent[parent[i]];
+            }
+            int clicks = 0;
+
+            for (int row = 0; row < rows; row++) {
+                int top = Math.max(row - 1, 0);
+                int bottom = Math.min(row + 1, rows - 1);
+                for (int col = 0; col < cols; col++) {
+                    int i = row * cols + col;
+                    int kind = kinds[i] & KIND_MASK;
+                    if (kind == MINE) continue;
+                    if (kind == ZERO) {
+                        int root = parent[i];
+                        if (!opened[root]) {
+                            opened[root] = true;
+                            clicks++;
+                        }
+                        continue;
+                    }
+
+                    int left = Math.max(col - 1, 0);
+                    int right = Math.min(col + 1, cols - 1);
+                    boolean open = (kinds[i] & OPEN) != 0;
+                    int flags = 0;
+                    int gain = 0;
+                    int distinct = 0;
+                    for (int r = top; r <= bottom; r++) {
+                        for (int n = r * cols + left; n <= r * cols + right; n++) {
+                            int bits = kinds[n];
+                            if ((bits & KIND_MASK) == MINE) {
+                                if ((bits & FLAG) == 0) flags++;
+                            } else if ((bits & KIND_MASK) == ZERO) {
+                                int root = parent[n];
+                                if (opened[root]) {
+                                    // Next to an opened opening, so this number is open too
+                                    open = true;
+                                } else if (!contains(distinct, root)) {
+                                    roots[distinct++] = root;
+                                }
+                            } else if (n != i && (bits & (BORDER | OPEN)) == 0) {
+                                gain++;
+                            }
+                        }
+                    }
+                    gain += distinct;
+
+                    // Clicking an unopened isolated number is paid anyway; a border number's is extra
+                    boolean border = (kinds[i] & BORDER) != 0;
+                    int cost = flags + 1 + (!open && border ? 1 : 0);
+                    if (gain > cost) {
+                        clicks += cost + (!open && !border ? 1 : 0);
+                        for (int r = top; r <= bottom; r++) {
+                            for (int n = r * cols + left; n <= r * cols + right; n++) {
+                                kinds[n] |= (kinds[n] & KIND_MASK) == MINE ? FLAG : OPEN;
+                            }
+                        }
+                        for (int k = 0; k < distinct; k++) {
+                            opened[roots[k]] = true;
+                        }
+                    } else if (!open && !border) {
+                        kinds[i] |= OPEN;
+                        clicks++;
+                    }
+                }
+            }
+            return clicks;
+        }
+
+        private boolean contains(int count, int root) {
+            for (int k = 0; k < count; k++) {
+                if (roots[k] == root) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Finds a cell's root, halving the path on the way.
+         */
+        private int find(int i) {
+            while (parent[i] != i) {
+                parent[i] = parent[parent[i]];
+                i = parent[i];
+            }
+            return i;
+        }
+
+        /**
+         * Joins the sets of two cells.
+         *
+         * @return False if they were already in the same set.
+         */
+        private boolean union(int a, int b) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA == rootB) return false;
+            // Keep the smaller index as root, so roots stay the first cell of their set
+            if (rootA < rootB) {
+                parent[rootB] = rootA;
+            } else {
+                parent[rootA] = rootB;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Counts openings, isolated numbers and islands the slow way, with a
+     * breadth-first search per component, to cross-check the calculator.
+     *
+     * @return {openings, isolated numbers, islands}.
+     */
+    static int[] countBySearch(CellGrid grid) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        boolean[] border = new boolean[grid.size()];
+        for (int i = 0; i < grid.size(); i++) {
+            if (grid.isMine(i) || grid.getNeighborMines(i) != 0) continue;
+            for (int n : neighbors(i, rows, cols)) {
+                if (!grid.isMine(n) && grid.getNeighborMines(n) > 0) border[n] = true;
+            }
+        }
+
+        int[] counts = new int[3];
+        boolean[] seen = new boolean[grid.size()];
+        for (int i = 0; i < grid.size(); i++) {
+            if (seen[i] || grid.isMine(i)) continue;
+            boolean zero = grid.getNeighborMines(i) == 0;
+            if (!zero && border[i]) continue;
+            if (!zero) counts[1]++;
+            counts[zero ? 0 : 2]++;
+
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            queue.add(i);
+            seen[i] = true;
+            while (!queue.isEmpty()) {
+                for (int n : neighbors(queue.poll(), rows, cols)) {
+                    if (seen[n] || grid.isMine(n) || (grid.getNeighborMines(n) == 0) != zero || border[n]) continue;
+                    seen[n] = true;
+                    if (!zero) counts[1]++;
+                    queue.add(n);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static List<Integer> neighbors(int index, int rows, int cols) {
+        List<Integer> result = new ArrayList<>();
+        int row = index / cols;
+        int col = index % cols;
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                if (r != row || c != col) result.add(r * cols + c);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Generates and measures boards on all cores, reporting boards per minute
+     * and the average metrics. Board i is placed from the base seed and i, as
+     * in {@link Simulator}. The first boards are cross-checked against
+     * {@link #countBySearch}.
+     *
+     * Usage: {@code java -cp out BoardMetrics [--boards N] [--difficulty EASY,MEDIUM,HARD]
+     * [--seed S] [--threads T] [--check N]}
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Options options = new Options(args, "--boards", "--difficulty", "--seed", "--threads", "--check");
+        long boards = options.getLong("--boards", 1_000_000);
+        String difficulties = options.get("--difficulty", "EASY,MEDIUM,HARD");
+        long seed = options.getLong("--seed", 1);
+        int threads = options.getInt("--threads", Runtime.getRuntime().availableProcessors());
+        int check = options.getInt("--check", 1000);
+
+        System.out.printf("boards=%d seed=%d threads=%d%n", boards, seed, threads);
+        for (String name : difficulties.split(",")) {
+            BoardSpec spec = BoardSpec.parse(name, SafeZone.CELL);
+            long total = boards;
+            long base = seed;
+            int checked = check;
+            AtomicLong next = new AtomicLong();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<long[]>> futures = new ArrayList<>();
+
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> measure(spec, base, total, checked, next)));
+            }
+            long[] sums = new long[6];
+            try {
+                for (Future<long[]> future : futures) {
+                    long[] part = future.get();
+                    for (int k = 0; k < sums.length; k++) {
+                        sums[k] += part[k];
+                    }
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%-6s boards/min=%.0f avg 3BV=%.1f openings=%.1f isolated=%.1f islands=%.1f"
+                            + " ZiNi=%.1f mismatches=%d%n", name.trim(), boards * 60 / seconds,
+                    (double) (sums[0] + sums[1]) / boards, (double) sums[0] / boards, (double) sums[1] / boards,
+                    (double) sums[2] / boards, (double) sums[3] / boards, sums[4]);
+        }
+    }
+
+    /**
+     * Places and measures boards in batches until all are claimed.
+     *
+     * @return Sums of openings, isolated numbers, islands and ZiNi, then mismatches.
+     */
+    private static long[] measure(BoardSpec spec, long seed, long boards, int check, AtomicLong next) {
+        long[] sums = new long[6];
+        Calculator calculator = new Calculator();
+        Board board = new Board(spec.getRows(), spec.getCols());
+        while (true) {
+            long first = next.getAndAdd(1024);
+            if (first >= boards) break;
+            for (long b = first; b < Math.min(boards, first + 1024); b++) {
+                board.reset();
+                SplittableRandom random = new SplittableRandom(seed + b * 0x9E3779B97F4A7C15L);
+                board.placeMines(random.nextInt(spec.getRows()), random.nextInt(spec.getCols()),
+                        spec.getMines(), spec.getSafeZone(), random);
+
+                BoardMetrics metrics = board.computeMetrics(calculator);
+                sums[0] += metrics.openings;
+                sums[1] += metrics.isolatedNumbers;
+                sums[2] += metrics.islands;
+                sums[3] += metrics.zini;
+                if (b < check) {
+                    int[] expected = countBySearch(board.getGrid());
+                    if (expected[0] != metrics.openings || expected[1] != metrics.isolatedNumbers
+                            || expected[2] != metrics.islands || metrics.zini > metrics.get3BV()) {
+                        sums[4]++;
+                    }
+                }
+            }
+        }
+        return sums;
+    }
+}
@@ -0,0 +1,173 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of boards with their mines already placed, refilled by a
+ * background thread, so starting a new game does not have to wait for
+ * allocation and mine placement.
+ *
+ * Pooled boards are generated before the first click is known. When the
+ * player clicks, {@link Board#clearSafeZone} moves any mines out of the safe
+ * zone, which keeps every layout as likely as with normal placement.
+ * If the pool is empty, {@link #take()} falls back to a normal new game
+ * (a miss) rather than waiting.
+ *
+ * One pool serves one board size; keep one per {@link BoardSpec}.
+ */
+public class BoardPool {
+    private final int rows;
+    private final int cols;
+    private final int totalMines;
+    private final SafeZone safeZone;
+    private final BlockingQueue<Board> boards;
+    private final SplittableRandom random;
+    private final Thread refiller;
+
+    // Metrics, readable from any thread
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong generateNanos = new AtomicLong();
+
+    /**
+     * Creates a pool for one difficulty and starts filling it.
+     *
+     * @param difficulty Board size and mine count.
+     * @param safeZone Area kept free of mines around the first click.
+     * @param capacity Maximum number of boards kept ready.
+     */
+    public BoardPool(Difficulty difficulty, SafeZone safeZone, int capacity) {
+        this(difficulty.toSpec().withSafeZone(safeZone), capacity);
+    }
+
+    /**
+     * Creates a pool for a board spec and starts filling it.
+     * A seeded spec makes the sequence of boards reproducible.
+     *
+     * @param spec Board size, mine count, safe zone and optional seed.
+     * @param capacity Maximum number of boards kept ready.
+     */
+    public BoardPool(BoardSpec spec, int capacity) {
+        this(spec.getRows(), spec.getCols(), spec.getMines(), spec.getSafeZone(), capacity, spec.newRandom());
+    }
+
+    /**
+     * Creates a pool for a custom board and starts filling it.
+     *
+     * @param rows Number of rows.
+     * @param cols Number of columns.
+     * @param totalMines Number of mines.
+     * @param safeZone Area kept free of mines around the first click.
+     * @param capacity Maximum number of boards kept ready.
+     * @param random Source of randomness; each board gets its own split of it.
+     * @throws IllegalArgumentException If the capacity is not positive or the mines do not fit.
+     */
+    public BoardPool(int rows, int cols, int totalMines, SafeZone safeZone, int capacity, SplittableRandom random) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        if (totalMines < 0 || totalMines > rows * cols - safeZone.cells(rows, cols, rows / 2, cols / 2).length) {
+            throw new IllegalArgumentException("Cannot fit " + totalMines + " mines on a " + rows + "x" + cols + " board");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.totalMines = totalMines;
+        this.safeZone = safeZone;
+        this.boards = new ArrayBlockingQueue<>(capacity);
+        this.random = random;
+
+        refiller = new Thread(this::refill, "board-pool-" + rows + "x" + cols);
+        refiller.setDaemon(true);
+        refiller.start();
+    }
+
+    /**
+     * Starts a new game, on a pooled board if one is ready.
+     * Safe to call from any thread, and never blocks.
+     *
+     * @return A controller whose first move keeps the safe zone free.
+     */
+    public GameController take() {
+        Board board = boards.poll();
+        SplittableRandom gameRandom;
+        synchronized (random) {
+            gameRandom = random.split();
+        }
+
+        if (board != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            board = new Board(rows, cols);
+        }
+        return new GameController(board, totalMines, safeZone, gameRandom);
+    }
+
+    /**
+     * Stops the refill thread. Boards already in the pool can still be taken.
+     */
+    public void shutdown() {
+        refiller.interrupt();
+    }
+
+    /**
+     * Keeps the pool full until interrupted.
+     */
+    private void refill() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                SplittableRandom boardRandom;
+                synchronized (random) {
+                    boardRandom = random.split();
+                }
+
+                long start = System.nanoTime();
+                Board board = new Board(rows, cols);
+                board.placeMines(totalMines, boardRandom);
+                generateNanos.addAndGet(System.nanoTime() - start);
+                generated.incrementAndGet();
+
+                boards.put(board);
+            }
+        } catch (InterruptedException e) {
+            // Shut down
+        }
+    }
+
+    /**
+     * Gets the number of games started on a pooled board.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of games started while the pool was empty.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the share of games started on a pooled board (0 if none were started).
+     */
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    /**
+     * Gets the number of boards ready right now.
+     */
+    public int getAvailable() {
+        return boards.size();
+    }
+
+    @Override
+    public String toString() {
+        long count = generated.get();
+        return String.format("%dx%d pool: available=%d hits=%d misses=%d hitRate=%.1f%% generated=%d avgGenerate=%.2fms",
+                rows, cols, getAvailable(), getHits(), getMisses(), 100 * getHitRate(), count,
+                count == 0 ? 0 : generateNanos.get() / 1e6 / count);
+    }
+}
@@ -0,0 +1,210 @@
+import java.util.SplittableRandom;
+
+/**
+ * Describes a board of any size: rows, columns, mine count, the safe zone
+ * kept free around the first click and, optionally, a seed that makes the
+ * mine layout reproducible.
+ *
+ * Every place that takes a {@link Difficulty} also takes a spec; use
+ * {@link Difficulty#toSpec()} for the standard sizes. Specs are validated
+ * when created, so a spec that exists can always be played.
+ */
+public final class BoardSpec {
+    // Boards are addressed by an int flat index and stored one byte per cell
+    public static final long MAX_CELLS = Integer.MAX_VALUE - 8;
+    // Above this density first clicks almost never open an area and games are pure guessing
+    public static final double MAX_DENSITY = 0.85;
+
+    private final int rows;
+    private final int cols;
+    private final int mines;
+    private final SafeZone safeZone;
+    private final boolean seeded;
+    private final long seed;
+
+    /**
+     * Creates an unseeded spec with only the first clicked cell kept safe.
+     *
+     * @param rows Number of rows.
+     * @param cols Number of columns.
+     * @param mines Number of mines.
+     * @throws IllegalArgumentException If the size or mine density is out of range.
+     */
+    public BoardSpec(int rows, int cols, int mines) {
+        this(rows, cols, mines, SafeZone.CELL, false, 0);
+    }
+
+    /**
+     * Creates an unseeded spec.
+     *
+     * @param rows Number of rows.
+     * @param cols Number of columns.
+     * @param mines Number of mines.
+     * @param safeZone Area kept free of mines around the first click.
+     * @throws IllegalArgumentException If the size or mine density is out of range.
+     */
+    public BoardSpec(int rows, int cols, int mines, SafeZone safeZone) {
+        this(rows, cols, mines, safeZone, false, 0);
+    }
+
+    /**
+     * Creates a seeded spec: the same first click always gives the same board.
+     *
+     * @param rows Number of rows.
+     * @param cols Number of columns.
+     * @param mines Number of mines.
+     * @param safeZone Area kept free of mines around the first click.
+     * @param seed Seed for mine placement.
+     * @throws IllegalArgumentException If the size or mine density is out of range.
+     */
+    public BoardSpec(int rows, int cols, int mines, SafeZone safeZone, long seed) {
+        this(rows, cols, mines, safeZone, true, seed);
+    }
+
+    private BoardSpec(int rows, int cols, int mines, SafeZone safeZone, boolean seeded, long seed) {
+        if (rows < 1 || cols < 1) {
+            throw new IllegalArgumentException("Board must have at least one row and column: " + rows + "x" + cols);
+        }
+        long cells = (long) rows * cols;
+        if (cells > MAX_CELLS) {
+            throw new IllegalArgumentException("Board too large: " + rows + "x" + cols + " exceeds " + MAX_CELLS + " cells");
+        }
+        if (safeZone == null) throw new IllegalArgumentException("Safe zone must not be null");
+        if (mines < 1) throw new IllegalArgumentException("Board needs at least one mine: " + mines);
+        if (mines > cells * MAX_DENSITY) {
+            throw new IllegalArgumentException(String.format("Too many mines: %d on %dx%d is over %.0f%% density",
+                    mines, rows, cols, MAX_DENSITY * 100));
+        }
+        // The largest safe zone is the unclipped one in the middle of the board
+        int zoneCells = safeZone.cells(rows, cols, rows / 2, cols / 2).length;
+        if (mines > cells - zoneCells) {
+            throw new IllegalArgumentException("Cannot fit " + mines + " mines outside the " + safeZone
+                    + " safe zone of a " + rows + "x" + cols + " board");
+        }
+
+        this.rows = rows;
+        this.cols = cols;
+        this.mines = mines;
+        this.safeZone = safeZone;
+        this.seeded = seeded;
+        this.seed = seed;
+    }
+
+    /**
+     * Parses a difficulty name ({@code HARD}) or a custom size written as
+     * {@code ROWSxCOLS:MINES} ({@code 1000x1000:150000}).
+     *
+     * @param text The text to parse.
+     * @param safeZone Area kept free of mines around the first click.
+     * @return The unseeded spec.
+     * @throws IllegalArgumentException If the text is not a valid spec.
+     */
+    public static BoardSpec parse(String text, SafeZone safeZone) {
+        String trimmed = text.trim();
+        int x = trimmed.indexOf('x');
+        int colon = trimmed.indexOf(':');
+        if (x < 0 || colon < x) {
+            return Difficulty.valueOf(trimmed.toUpperCase()).toSpec().withSafeZone(safeZone);
+        }
+        try {
+            return new BoardSpec(Integer.parseInt(trimmed.substring(0, x)),
+                    Integer.parseInt(trimmed.substring(x + 1, colon)),
+                    Integer.parseInt(trimmed.substring(colon + 1)), safeZone);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected ROWSxCOLS:MINES, got: " + text);
+        }
+    }
+
+    /**
+     * Returns the same spec with another safe zone.
+     */
+    public BoardSpec withSafeZone(SafeZone safeZone) {
+        return new BoardSpec(rows, cols, mines, safeZone, seeded, seed);
+    }
+
+    /**
+     * Returns the same spec with a fixed seed.
+     */
+    public BoardSpec withSeed(long seed) {
+        return new BoardSpec(rows, cols, mines, safeZone, true, seed);
+    }
+
+    /**
+     * Creates the random source for a game: seeded if the spec has a seed,
+     * otherwise a fresh unpredictable one.
+     */
+    public SplittableRandom newRandom() {
+        return seeded ? new SplittableRandom(seed) : new SplittableRandom();
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getMines() {
+        return mines;
+    }
+
+    public SafeZone getSafeZone() {
+        return safeZone;
+    }
+
+    /**
+     * Checks if the spec has a fixed seed.
+     */
+    public boolean hasSeed() {
+        return seeded;
+    }
+
+    /**
+     * Gets the seed (only meaningful if {@link #hasSeed()}).
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the number of cells, rows x cols.
+     */
+    public int getCells() {
+        return rows * cols;
+    }
+
+    /**
+     * Gets the share of cells that are mines.
+     */
+    public double getDensity() {
+        return (double) mines / getCells();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BoardSpec)) return false;
+        BoardSpec other = (BoardSpec) o;
+        return rows == other.rows && cols == other.cols && mines == other.mines
+                && safeZone == other.safeZone && seeded == other.seeded && seed == other.seed;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = rows;
+        hash = 31 * hash + cols;
+        hash = 31 * hash + mines;
+        hash = 31 * hash + safeZone.hashCode();
+        hash = 31 * hash + (seeded ? Long.hashCode(seed) : -1);
+        return hash;
+    }
+
+    /**
+     * Formats the spec the way {@link #parse} reads it.
+     */
+    @Override
+    public String toString() {
+        return rows + "x" + cols + ":" + mines;
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.Arrays;
+
+/**
+ * What the player sees of a board: one byte per cell holding its tile
+ * (a revealed count 0-8, {@link #HIDDEN}, {@link #FLAG} or {@link #MINE}),
+ * plus the counters shown above the board.
+ *
+ * The view belongs to the event dispatch thread. It is only changed by
+ * applying the deltas a {@link GameEngine} publishes, so painting never reads
+ * the grid that the engine thread is changing.
+ */
+public class BoardView {
+    public static final byte HIDDEN = 9;
+    public static final byte FLAG = 10;
+    public static final byte MINE = 11;
+
+    private final int rows;
+    private final int cols;
+    private final byte[] tiles;
+    private GameStats stats;
+    private long sequence;
+
+    /**
+     * Creates a view of a game as it is now, e.g. before handing it to an engine.
+     *
+     * @param controller The game, which no other thread may be changing.
+     */
+    public BoardView(GameController controller) {
+        Board board = controller.getBoard();
+        CellGrid grid = board.getGrid();
+        this.rows = board.getRows();
+        this.cols = board.getCols();
+        this.tiles = new byte[grid.size()];
+        this.stats = controller.getStats();
+
+        if (controller.getRevealedCells() == 0 && stats.getFlagsPlaced() == 0) {
+            Arrays.fill(tiles, HIDDEN);
+        } else {
+            for (int i = 0; i < tiles.length; i++) {
+                tiles[i] = tileOf(grid, i);
+            }
+        }
+    }
+
+    /**
+     * Works out the tile a cell shows.
+     *
+     * @param grid The board storage.
+     * @param index Flat index of the cell.
+     * @return The cell's tile.
+     */
+    public static byte tileOf(CellGrid grid, int index) {
+        if (grid.isRevealed(index)) {
+            return grid.isMine(index) ? MINE : (byte) grid.getNeighborMines(index);
+        }
+        return grid.isFlagged(index) ? FLAG : HIDDEN;
+    }
+
+    /**
+     * Applies the changes of one or more engine batches.
+     *
+     * @param delta The delta, applied in the order the engine published them.
+     */
+    public void apply(GameEngine.Delta delta) {
+        for (int i = 0; i < delta.size(); i++) {
+            tiles[delta.getCell(i)] = delta.getTile(i);
+        }
+        stats = delta.getStats();
+        sequence = delta.getSequence();
+    }
+
+    /**
+     * Gets the tile of a cell.
+     *
+     * @param index Flat index of the cell.
+     */
+    public byte getTile(int index) {
+        return tiles[index];
+    }
+
+    /**
+     * Checks if a cell shows a number greater than zero.
+     */
+    public boolean isNumber(int index) {
+        return tiles[index] > 0 && tiles[index] <= 8;
+    }
+
+    /**
+     * Gets the counters as of the last applied delta.
+     */
+    public GameStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Gets the submission number of the last command the view shows, 0 if none.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int indexOf(int row, int col) {
+        return row * cols + col;
+    }
+
+    public boolean isInBounds(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols;
+    }
+}
@@ -26,6 +26,13 @@ public class Cell {
         this.isMine = true;
     }
 
+    /**
+     * Removes the mine from this cell.
+     */
+    public void clearMine() {
+        this.isMine = false;
+    }
+
     /**
      * Reveals this cell.
      */
@@ -33,6 +40,13 @@ public class Cell {
         this.isRevealed = true;
     }
 
+    /**
+     * Hides this cell again, e.g. when a move is undone.
+     */
+    public void hide() {
+        this.isRevealed = false;
+    }
+
     /**
      * Toggles the flagged status of this cell.
      * Flagging marks a cell as suspected to contain a mine.
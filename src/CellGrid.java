@@ -0,0 +1,96 @@
+/**
+ * Storage backend for the cells of a Minesweeper board.
+ * Cells are addressed by a flat index ({@code row * cols + col}),
+ * which lets implementations keep the whole board in a single array.
+ */
+public interface CellGrid {
+
+    /**
+     * Gets the number of rows of the grid.
+     *
+     * @return Number of rows.
+     */
+    int getRows();
+
+    /**
+     * Gets the number of columns of the grid.
+     *
+     * @return Number of columns.
+     */
+    int getCols();
+
+    /**
+     * Gets the total number of cells in the grid.
+     *
+     * @return rows * cols.
+     */
+    int size();
+
+    /**
+     * Checks if the cell at the given index contains a mine.
+     */
+    boolean isMine(int index);
+
+    /**
+     * Checks if the cell at the given index has been revealed.
+     */
+    boolean isRevealed(int index);
+
+    /**
+     * Checks if the cell at the given index is flagged.
+     */
+    boolean isFlagged(int index);
+
+    /**
+     * Returns the count of neighboring mines of the cell at the given index.
+     */
+    int getNeighborMines(int index);
+
+    /**
+     * Marks the cell at the given index as a mine.
+     */
+    void setMine(int index);
+
+    /**
+     * Removes the mine from the cell at the given index.
+     */
+    void clearMine(int index);
+
+    /**
+     * Reveals the cell at the given index.
+     */
+    void reveal(int index);
+
+    /**
+     * Hides the cell at the given index again, e.g. when a move is undone.
+     */
+    void hide(int index);
+
+    /**
+     * Toggles the flagged status of the cell at the given index.
+     */
+    void toggleFlag(int index);
+
+    /**
+     * Sets the count of neighboring mines of the cell at the given index.
+     *
+     * @param index Flat cell index.
+     * @param count Number of neighboring mines (0 to 8).
+     */
+    void setNeighborMines(int index, int count);
+
+    /**
+     * Resets every cell to empty: no mine, hidden, unflagged, count 0.
+     */
+    void clear();
+
+    /**
+     * Returns a Cell describing the cell at the given index.
+     * Backends that do not store Cell objects return a detached copy,
+     * so changes must go through the grid rather than the returned Cell.
+     *
+     * @param index Flat cell index.
+     * @return The Cell at that index.
+     */
+    Cell getCell(int index);
+}
@@ -0,0 +1,59 @@
+import java.util.Arrays;
+
+/**
+ * List of the cells whose state changed during one move, as flat indices.
+ * The GUI uses it to update only those cells instead of the whole board.
+ * The backing array is kept and reused between moves.
+ */
+public class ChangeSet {
+    private int[] indices = new int[16];
+    private int size;
+
+    /**
+     * Records that the cell at the given index changed.
+     *
+     * @param index Flat cell index.
+     */
+    public void add(int index) {
+        if (size == indices.length) {
+            indices = Arrays.copyOf(indices, size * 2);
+        }
+        indices[size++] = index;
+    }
+
+    /**
+     * Forgets all recorded cells, keeping the allocated storage.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Gets the number of recorded cells.
+     *
+     * @return Number of changed cells.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if no cell changed.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the flat index of the i-th changed cell.
+     *
+     * @param i Position in the change set, from 0 to size() - 1.
+     * @return Flat cell index.
+     */
+    public int get(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+        }
+        return indices[i];
+    }
+}
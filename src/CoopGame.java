@@ -0,0 +1,375 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.random.RandomGenerator;
+
+/**
+ * One board shared by many players (people or bots) who reveal and flag at
+ * the same time, from any number of threads.
+ *
+ * Cells are the one-byte cells of a {@link PackedCellGrid}, and every change
+ * to them is a compare-and-set on the cell's byte, so there are no locks on
+ * the move path. A cell is revealed by exactly one compare-and-set, and only
+ * the thread whose compare-and-set succeeded counts it and, for an empty
+ * cell, spreads the cascade from it. Cascades started by different players
+ * that meet therefore open every cell once and count it once.
+ *
+ * The game ends exactly once: the move that reveals a mine, or the one whose
+ * cells bring the number of safe cells left to zero, moves the state from
+ * PLAYING with a compare-and-set, and only that move notifies the
+ * {@link EndListener}. Moves started after the end change nothing; a cascade
+ * already running when another player hits a mine still finishes.
+ *
+ * Mines are placed by the first reveal, around its safe zone, under a lock
+ * taken only until they are placed. Flags cannot be placed before that.
+ */
+public class CoopGame {
+    private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final ThreadLocal<int[][]> STACK = ThreadLocal.withInitial(() -> new int[][] {new int[64]});
+
+    /**
+     * Where a game stands.
+     */
+    public enum State { PLAYING, WON, LOST }
+
+    /**
+     * Told once when the game ends.
+     */
+    public interface EndListener {
+        /**
+         * Called on the thread of the move that ended the game.
+         *
+         * @param won True if every safe cell was revealed, false if a mine was.
+         */
+        void gameEnded(boolean won);
+    }
+
+    private final Board board;
+    private final byte[] cells;
+    private final int rows;
+    private final int cols;
+    private final int totalMines;
+    private final SafeZone safeZone;
+    private final RandomGenerator random;
+    private final EndListener listener;
+
+    private volatile boolean minesPlaced;
+    private final AtomicReference<State> state = new AtomicReference<>(State.PLAYING);
+    private final AtomicInteger safeCellsRemaining;
+    private final AtomicInteger flagsPlaced = new AtomicInteger();
+
+    /**
+     * Creates a shared game. A seeded spec makes the mine layout reproducible
+     * for a given first reveal.
+     *
+     * @param spec Board size, mine count, safe zone and optional seed.
+     * @param listener Told when the game ends, or null.
+     */
+    public CoopGame(BoardSpec spec, EndListener listener) {
+        PackedCellGrid grid = new PackedCellGrid(spec.getRows(), spec.getCols());
+        this.board = new Board(grid);
+        this.cells = grid.bytes();
+        this.rows = spec.getRows();
+        this.cols = spec.getCols();
+        this.totalMines = spec.getMines();
+        this.safeZone = spec.getSafeZone();
+        this.random = spec.newRandom();
+        this.listener = listener;
+        this.safeCellsRemaining = new AtomicInteger(rows * cols - totalMines);
+    }
+
+    /**
+     * Reveals a cell for one player, with its cascade if it is empty.
+     * Safe to call from any thread.
+     *
+     * @param row Row of the cell.
+     * @param col Column of the cell.
+     * @return Number of cells this move opened; cells opened first by another
+     *         player's cascade are not counted.
+     */
+    public int reveal(int row, int col) {
+        if (state.get() != State.PLAYING || !board.isInBounds(row, col)) return 0;
+        if (!minesPlaced) placeMines(row, col);
+
+        int index = board.indexOf(row, col);
+        if (!claim(index, false)) return 0;
+
+        if ((cells[index] & PackedCellGrid.MINE) != 0) {
+            if (state.compareAndSet(State.PLAYING, State.LOST)) {
+                revealAllMines();
+                if (listener != null) listener.gameEnded(false);
+            }
+            return 1;
+        }
+
+        int opened = 1;
+        if ((cells[index] & PackedCellGrid.COUNT_MASK) == 0) opened += cascade(index);
+
+        // Only one move can bring the count to zero
+        if (safeCellsRemaining.addAndGet(-opened) == 0 && state.compareAndSet(State.PLAYING, State.WON)) {
+            if (listener != null) listener.gameEnded(true);
+        }
+        return opened;
+    }
+
+    /**
+     * Toggles a flag for one player. Safe to call from any thread.
+     *
+     * @param row Row of the cell.
+     * @param col Column of the cell.
+     * @return False if nothing changed: the game is over, no cell was revealed
+     *         yet, or the cell is revealed.
+     */
+    public boolean toggleFlag(int row, int col) {
+        if (state.get() != State.PLAYING || !minesPlaced || !board.isInBounds(row, col)) return false;
+
+        int index = board.indexOf(row, col);
+        while (true) {
+            byte bits = (byte) CELLS.getVolatile(cells, index);
+            if ((bits & PackedCellGrid.REVEALED) != 0) return false;
+            if (CELLS.compareAndSet(cells, index, bits, (byte) (bits ^ PackedCellGrid.FLAGGED))) {
+                flagsPlaced.addAndGet((bits & PackedCellGrid.FLAGGED) != 0 ? -1 : 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Places the mines for the first reveal, once, whichever player makes it.
+     */
+    private void placeMines(int row, int col) {
+        synchronized (this) {
+            if (minesPlaced) return;
+            board.placeMines(row, col, totalMines, safeZone, random);
+            // Volatile write: every thread that sees it sees the layout
+            minesPlaced = true;
+        }
+    }
+
+    /**
+     * Reveals a hidden cell if no other player got to it first.
+     *
+     * @param clearFlag Whether a flag is removed (by a cascade) or blocks the reveal.
+     * @return True if this call revealed the cell.
+     */
+    private boolean claim(int index, boolean clearFlag) {
+        while (true) {
+            byte bits = (byte) CELLS.getVolatile(cells, index);
+            if ((bits & PackedCellGrid.REVEALED) != 0) return false;
+            if ((bits & PackedCellGrid.FLAGGED) != 0 && !clearFlag) return false;
+
+            byte revealed = (byte) ((bits | PackedCellGrid.REVEALED) & ~PackedCellGrid.FLAGGED);
+            if (CELLS.compareAndSet(cells, index, bits, revealed)) {
+                if ((bits & PackedCellGrid.FLAGGED) != 0) flagsPlaced.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Opens everything reachable from an empty cell this thread revealed,
+     * spreading only from the empty cells it claims itself.
+     *
+     * @return Number of cells opened, not counting start.
+     */
+    private int cascade(int start) {
+        int[][] holder = STACK.get();
+        int[] stack = holder[0];
+        int top = 0;
+        int opened = 0;
+        stack[top++] = start;
+
+        while (top > 0) {
+            int index = stack[--top];
+            int row = index / cols;
+            int col = index - row * cols;
+
+            for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+                for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+                    int neighbor = r * cols + c;
+                    // A zero cell has no mine around it, so every neighbor is safe
+                    if (!claim(neighbor, true)) continue;
+                    opened++;
+                    if ((cells[neighbor] & PackedCellGrid.COUNT_MASK) == 0) {
+                        if (top == stack.length) stack = holder[0] = Arrays.copyOf(stack, stack.length * 2);
+                        stack[top++] = neighbor;
+                    }
+                }
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * Shows every mine after the game is lost. Not counted as opened cells.
+     */
+    private void revealAllMines() {
+        for (int i = 0; i < cells.length; i++) {
+            if ((cells[i] & PackedCellGrid.MINE) != 0) claim(i, true);
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * Gets the number of safe cells revealed by all players so far.
+     */
+    public int getRevealedCells() {
+        return rows * cols - totalMines - safeCellsRemaining.get();
+    }
+
+    public int getSafeCellsRemaining() {
+        return safeCellsRemaining.get();
+    }
+
+    public int getFlagsPlaced() {
+        return flagsPlaced.get();
+    }
+
+    /**
+     * Gets the board. Reading its cells while players move sees each cell
+     * either before or after a move, never half changed.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Stress test and scaling benchmark. Bot threads play shared games: most
+     * reveal safe cells in their own order (they can see the mines, so games
+     * run to the end), some flag and unflag mines, and with --careless one bot
+     * reveals at random and usually loses the game for everyone. After each
+     * game the counters are checked against the cells and the end listener
+     * must have been called exactly once.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Options options = new Options(args, "--difficulty", "--threads", "--games", "--seed", "--careless");
+        String difficulty = options.get("--difficulty", "1024x1024:150000");
+        String threadCounts = options.get("--threads", "1,2,4,8");
+        int games = options.getInt("--games", 5);
+        long seed = options.getLong("--seed", 1);
+        boolean careless = options.getBoolean("--careless", false);
+
+        BoardSpec spec = BoardSpec.parse(difficulty, SafeZone.NEIGHBORHOOD);
+        System.out.printf("difficulty=%s games=%d seed=%d careless=%b cores=%d%n", difficulty, games, seed,
+                careless, Runtime.getRuntime().availableProcessors());
+        for (String count : threadCounts.split(",")) {
+            int threads = Integer.parseInt(count.trim());
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            long moves = 0;
+            long nanos = 0;
+            int won = 0;
+            int failures = 0;
+
+            for (int g = 0; g < games; g++) {
+                AtomicInteger ends = new AtomicInteger();
+                CoopGame game = new CoopGame(spec.withSeed(seed + g), won1 -> ends.incrementAndGet());
+                game.reveal(spec.getRows() / 2, spec.getCols() / 2);
+
+                long start = System.nanoTime();
+                List<Future<Long>> bots = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    long botSeed = seed * 31 + g * 1_000_003L + t;
+                    boolean carelessBot = careless && t == 0;
+                    boolean flagger = !carelessBot && threads > 1 && t == threads - 1;
+                    bots.add(pool.submit(() -> play(game, new SplittableRandom(botSeed), carelessBot, flagger)));
+                }
+                try {
+                    for (Future<Long> bot : bots) {
+                        moves += bot.get();
+                    }
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+                nanos += System.nanoTime() - start;
+
+                String problem = check(game, ends.get());
+                if (problem != null) {
+                    failures++;
+                    System.out.println("  game " + g + ": " + problem);
+                }
+                if (game.getState() == State.WON) won++;
+            }
+            pool.shutdown();
+
+            double seconds = nanos / 1e9;
+            System.out.printf("threads=%-3d games=%d won=%d moves/s=%.0f cells/s=%.0f failures=%d%n",
+                    threads, games, won, moves / seconds, (double) games * spec.getCells() / seconds, failures);
+        }
+    }
+
+    /**
+     * Plays as one bot until the game ends.
+     *
+     * @return Number of moves made.
+     */
+    private static long play(CoopGame game, SplittableRandom random, boolean careless, boolean flagger) {
+        int size = game.rows * game.cols;
+        // Visit cells in a different order per bot: a random start and an odd stride
+        long stride = (size / 3 + random.nextInt(size / 3 + 1)) | 1;
+        while (gcd(stride, size) != 1) stride += 2;
+        long index = random.nextInt(size);
+        long moves = 0;
+
+        for (int step = 0; step < size && game.getState() == State.PLAYING; step++) {
+            index = (index + stride) % size;
+            int cell = (int) index;
+            byte bits = (byte) CELLS.getVolatile(game.cells, cell);
+            if ((bits & PackedCellGrid.REVEALED) != 0) continue;
+
+            boolean mine = (bits & PackedCellGrid.MINE) != 0;
+            if (flagger) {
+                if (mine) game.toggleFlag(cell / game.cols, cell % game.cols);
+            } else if (careless && random.nextInt(64) == 0 || !mine) {
+                game.reveal(cell / game.cols, cell % game.cols);
+            } else {
+                continue;
+            }
+            moves++;
+        }
+        return moves;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    /**
+     * Checks a finished game's counters against its cells.
+     *
+     * @return What is wrong, or null.
+     */
+    private static String check(CoopGame game, int ends) {
+        int revealedSafe = 0;
+        int revealedMines = 0;
+        int flagged = 0;
+        for (byte bits : game.cells) {
+            boolean revealed = (bits & PackedCellGrid.REVEALED) != 0;
+            if (revealed && (bits & PackedCellGrid.MINE) != 0) revealedMines++;
+            if (revealed && (bits & PackedCellGrid.MINE) == 0) revealedSafe++;
+            if ((bits & PackedCellGrid.FLAGGED) != 0) flagged++;
+        }
+
+        State state = game.getState();
+        if (state == State.PLAYING) return "not finished";
+        if (ends != 1) return "end reported " + ends + " times";
+        if (revealedSafe != game.getRevealedCells()) {
+            return "revealed " + revealedSafe + " cells, counted " + game.getRevealedCells();
+        }
+        if (flagged != game.getFlagsPlaced()) return "flagged " + flagged + " cells, counted " + game.getFlagsPlaced();
+        if (state == State.WON && (game.getSafeCellsRemaining() != 0 || revealedMines != 0)) return "bad win";
+        if (state == State.LOST && revealedMines != game.totalMines) return "mines not all shown";
+        return null;
+    }
+}
@@ -54,4 +54,12 @@ public enum Difficulty {
     public int getMines(){
         return mines;
     }
+
+    /**
+     * Gets the board spec for this difficulty level, keeping only the first clicked cell safe.
+     * @return The unseeded board spec.
+     */
+    public BoardSpec toSpec(){
+        return new BoardSpec(rows, cols, mines);
+    }
 }
@@ -0,0 +1,288 @@
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * An unbounded Minesweeper plane for the endless mode.
+ *
+ * The plane is split into square chunks of {@link #CHUNK_SIZE} cells, each
+ * stored like a small {@link PackedCellGrid}. A chunk's mines are generated
+ * from the board seed and the chunk coordinates only, the first time one of
+ * its cells is needed, so the same seed always gives the same plane and
+ * chunks nobody has touched take no memory. Neighbor counts along a chunk's
+ * edges come from the mine layouts of the surrounding chunks, which are
+ * generated on the side (and not kept) if those chunks are not loaded.
+ *
+ * At most a fixed number of chunks are kept loaded. The least recently used
+ * ones are evicted: a chunk the player never changed is simply dropped (it
+ * can be generated again), others are kept as two bitsets of revealed and
+ * flagged cells, about a quarter of the loaded size. Evicted chunks are
+ * restored transparently when they are used again.
+ *
+ * Cells are addressed by signed row and column, with no bounds to check.
+ */
+public class EndlessBoard {
+    public static final int CHUNK_SIZE = 32;
+    private static final int CHUNK_SHIFT = 5;
+    private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+
+    // The game starts at this cell, whose neighborhood is kept free of mines
+    public static final int START_ROW = CHUNK_SIZE / 2;
+    public static final int START_COL = CHUNK_SIZE / 2;
+
+    // Below this density zero cells can connect forever and a cascade would never end
+    public static final double MIN_DENSITY = 0.12;
+
+    private final long seed;
+    private final int minesPerChunk;
+    private final int maxLoadedChunks;
+    private final LinkedHashMap<Long, PackedCellGrid> loaded;
+    private final Map<Long, byte[]> evicted = new HashMap<>();
+    private long generatedChunks;
+
+    /**
+     * Creates an endless board.
+     *
+     * @param seed Seed the whole plane is generated from.
+     * @param density Share of cells that are mines, between MIN_DENSITY and BoardSpec.MAX_DENSITY.
+     * @param maxLoadedChunks Number of chunks kept loaded before the coldest are evicted.
+     * @throws IllegalArgumentException If the density or chunk limit is out of range.
+     */
+    public EndlessBoard(long seed, double density, int maxLoadedChunks) {
+        if (density < MIN_DENSITY || density > BoardSpec.MAX_DENSITY) {
+            throw new IllegalArgumentException(String.format("Density must be between %.2f and %.2f: %.2f",
+                    MIN_DENSITY, BoardSpec.MAX_DENSITY, density));
+        }
+        // A cell is counted from its own chunk and the eight around it
+        if (maxLoadedChunks < 9) throw new IllegalArgumentException("At least 9 chunks must stay loaded: " + maxLoadedChunks);
+
+        this.seed = seed;
+        this.minesPerChunk = (int) Math.round(density * CHUNK_CELLS);
+        this.maxLoadedChunks = maxLoadedChunks;
+        this.loaded = new LinkedHashMap<>(64, 0.75f, true);
+    }
+
+    /**
+     * Checks if the cell at the given coordinates contains a mine.
+     */
+    public boolean isMine(int row, int col) {
+        return (chunkAt(row, col).bytes()[offsetOf(row, col)] & PackedCellGrid.MINE) != 0;
+    }
+
+    /**
+     * Returns the count of mines around the cell at the given coordinates.
+     */
+    public int getNeighborMines(int row, int col) {
+        return chunkAt(row, col).bytes()[offsetOf(row, col)] & PackedCellGrid.COUNT_MASK;
+    }
+
+    /**
+     * Checks if a cell is revealed, without generating its chunk if it was never touched.
+     */
+    public boolean isRevealed(int row, int col) {
+        PackedCellGrid chunk = peekChunk(row, col);
+        return chunk != null && (chunk.bytes()[offsetOf(row, col)] & PackedCellGrid.REVEALED) != 0;
+    }
+
+    /**
+     * Checks if a cell is flagged, without generating its chunk if it was never touched.
+     */
+    public boolean isFlagged(int row, int col) {
+        PackedCellGrid chunk = peekChunk(row, col);
+        return chunk != null && (chunk.bytes()[offsetOf(row, col)] & PackedCellGrid.FLAGGED) != 0;
+    }
+
+    /**
+     * Marks the cell at the given coordinates as revealed.
+     */
+    public void reveal(int row, int col) {
+        chunkAt(row, col).bytes()[offsetOf(row, col)] |= PackedCellGrid.REVEALED;
+    }
+
+    /**
+     * Toggles the flag on the cell at the given coordinates.
+     */
+    public void toggleFlag(int row, int col) {
+        chunkAt(row, col).bytes()[offsetOf(row, col)] ^= PackedCellGrid.FLAGGED;
+    }
+
+    /**
+     * Gets the number of chunks currently loaded.
+     */
+    public int getLoadedChunks() {
+        return loaded.size();
+    }
+
+    /**
+     * Gets the number of changed chunks kept in compact form.
+     */
+    public int getEvictedChunks() {
+        return evicted.size();
+    }
+
+    /**
+     * Gets the number of times a chunk's cells were generated, including regenerations after eviction.
+     */
+    public long getGeneratedChunks() {
+        return generatedChunks;
+    }
+
+    /**
+     * Approximate bytes held by chunk cells, loaded and compact (excluding map overhead).
+     */
+    public long getCellBytes() {
+        long bytes = (long) loaded.size() * CHUNK_CELLS;
+        for (byte[] compact : evicted.values()) bytes += compact.length;
+        return bytes;
+    }
+
+    /**
+     * Evicts every loaded chunk, e.g. before saving or when the game is paused.
+     */
+    public void evictAll() {
+        for (Iterator<Map.Entry<Long, PackedCellGrid>> it = loaded.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, PackedCellGrid> entry = it.next();
+            evict(entry.getKey(), entry.getValue());
+            it.remove();
+        }
+    }
+
+    /**
+     * Gets the loaded chunk holding a cell, restoring or generating it if needed.
+     */
+    private PackedCellGrid chunkAt(int row, int col) {
+        long key = keyOf(row >> CHUNK_SHIFT, col >> CHUNK_SHIFT);
+        PackedCellGrid chunk = loaded.get(key);
+        return chunk != null ? chunk : load(key);
+    }
+
+    /**
+     * Gets the chunk holding a cell if it has state worth reading, or null for an untouched chunk.
+     */
+    private PackedCellGrid peekChunk(int row, int col) {
+        long key = keyOf(row >> CHUNK_SHIFT, col >> CHUNK_SHIFT);
+        PackedCellGrid chunk = loaded.get(key);
+        if (chunk == null && evicted.containsKey(key)) chunk = load(key);
+        return chunk;
+    }
+
+    private PackedCellGrid load(long key) {
+        int chunkRow = (int) (key >> 32);
+        int chunkCol = (int) key;
+        PackedCellGrid chunk = generate(chunkRow, chunkCol);
+
+        byte[] compact = evicted.remove(key);
+        if (compact != null) restore(chunk, compact);
+
+        loaded.put(key, chunk);
+        if (loaded.size() > maxLoadedChunks) {
+            // Access order: the first entry is the least recently used
+            Iterator<Map.Entry<Long, PackedCellGrid>> it = loaded.entrySet().iterator();
+            Map.Entry<Long, PackedCellGrid> coldest = it.next();
+            evict(coldest.getKey(), coldest.getValue());
+            it.remove();
+        }
+        return chunk;
+    }
+
+    /**
+     * Generates a chunk's mines and its neighbor counts, reading the mines of the
+     * eight surrounding chunks through a one-cell halo.
+     */
+    private PackedCellGrid generate(int chunkRow, int chunkCol) {
+        generatedChunks++;
+        PackedCellGrid padded = new PackedCellGrid(CHUNK_SIZE + 2, CHUNK_SIZE + 2);
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                PackedCellGrid mines = minesOf(chunkRow + dr, chunkCol + dc);
+                copyMines(mines, padded, dr, dc);
+            }
+        }
+        NeighborCounter.countRows(padded, 1, CHUNK_SIZE + 1);
+
+        PackedCellGrid chunk = new PackedCellGrid(CHUNK_SIZE, CHUNK_SIZE);
+        byte[] from = padded.bytes();
+        byte[] to = chunk.bytes();
+        for (int r = 0; r < CHUNK_SIZE; r++) {
+            System.arraycopy(from, (r + 1) * (CHUNK_SIZE + 2) + 1, to, r * CHUNK_SIZE, CHUNK_SIZE);
+        }
+        return chunk;
+    }
+
+    /**
+     * Gets a chunk's mine layout: from the loaded chunk if there is one, otherwise
+     * generated from the seed. Only the mine bits of the result are meaningful.
+     */
+    private PackedCellGrid minesOf(int chunkRow, int chunkCol) {
+        PackedCellGrid chunk = loaded.get(keyOf(chunkRow, chunkCol));
+        if (chunk != null) return chunk;
+
+        PackedCellGrid mines = new PackedCellGrid(CHUNK_SIZE, CHUNK_SIZE);
+        long mixed = seed ^ (chunkRow * 0x9E3779B97F4A7C15L) ^ (chunkCol * 0xC2B2AE3D27D4EB4FL);
+        int[] excluded = chunkRow == 0 && chunkCol == 0
+                ? SafeZone.NEIGHBORHOOD.cells(CHUNK_SIZE, CHUNK_SIZE, START_ROW, START_COL)
+                : new int[0];
+        MinePlacer.place(mines, 0, CHUNK_CELLS, excluded, minesPerChunk, new SplittableRandom(mixed));
+        return mines;
+    }
+
+    /**
+     * Copies the part of a chunk's mines that falls inside the padded grid of the
+     * chunk at offset (dr, dc) from it: all of them for the center, one edge or
+     * corner for the others.
+     */
+    private static void copyMines(PackedCellGrid mines, PackedCellGrid padded, int dr, int dc) {
+        int rowFrom = dr < 0 ? CHUNK_SIZE - 1 : 0;
+        int rowTo = dr > 0 ? 1 : CHUNK_SIZE;
+        int colFrom = dc < 0 ? CHUNK_SIZE - 1 : 0;
+        int colTo = dc > 0 ? 1 : CHUNK_SIZE;
+
+        for (int r = rowFrom; r < rowTo; r++) {
+            int paddedRow = r + 1 + dr * CHUNK_SIZE;
+            for (int c = colFrom; c < colTo; c++) {
+                if (mines.isMine(r * CHUNK_SIZE + c)) {
+                    padded.setMine(paddedRow * (CHUNK_SIZE + 2) + c + 1 + dc * CHUNK_SIZE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps the player's changes to a chunk as revealed and flagged bitsets.
+     * A chunk with no changes is dropped, since it can be generated again.
+     */
+    private void evict(long key, PackedCellGrid chunk) {
+        byte[] cells = chunk.bytes();
+        byte[] compact = new byte[CHUNK_CELLS / 4];
+        boolean changed = false;
+        for (int i = 0; i < CHUNK_CELLS; i++) {
+            if ((cells[i] & PackedCellGrid.REVEALED) != 0) {
+                compact[i >> 3] |= (byte) (1 << (i & 7));
+                changed = true;
+            }
+            if ((cells[i] & PackedCellGrid.FLAGGED) != 0) {
+                compact[(CHUNK_CELLS + i) >> 3] |= (byte) (1 << (i & 7));
+                changed = true;
+            }
+        }
+        if (changed) evicted.put(key, compact);
+    }
+
+    private static void restore(PackedCellGrid chunk, byte[] compact) {
+        byte[] cells = chunk.bytes();
+        for (int i = 0; i < CHUNK_CELLS; i++) {
+            if ((compact[i >> 3] & (1 << (i & 7))) != 0) cells[i] |= PackedCellGrid.REVEALED;
+            if ((compact[(CHUNK_CELLS + i) >> 3] & (1 << (i & 7))) != 0) cells[i] |= PackedCellGrid.FLAGGED;
+        }
+    }
+
+    private static long keyOf(int chunkRow, int chunkCol) {
+        return ((long) chunkRow << 32) | (chunkCol & 0xFFFFFFFFL);
+    }
+
+    private static int offsetOf(int row, int col) {
+        return ((row & (CHUNK_SIZE - 1)) << CHUNK_SHIFT) | (col & (CHUNK_SIZE - 1));
+    }
+}
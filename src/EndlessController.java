@@ -0,0 +1,179 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Game logic for the endless mode on an {@link EndlessBoard}.
+ *
+ * There is no last cell to reveal, so the game has no win: it ends when a
+ * mine is revealed, and the score is the number of cells opened until then.
+ * The game starts with the board's start cell already opened.
+ *
+ * Usage of the demo: {@code java -cp out EndlessController [--moves N]
+ * [--density D] [--seed S] [--max-chunks C]}
+ */
+public class EndlessController {
+    // Chunks kept loaded by default, about 1 MB of cells
+    public static final int DEFAULT_MAX_CHUNKS = 1024;
+
+    private final EndlessBoard board;
+    private boolean gameOver;
+    private long revealedCells;
+    private long flagsPlaced;
+
+    // Cells waiting to be opened by a cascade, packed as row << 32 | col
+    private long[] stack = new long[64];
+
+    /**
+     * Starts an endless game.
+     *
+     * @param seed Seed the whole plane is generated from.
+     * @param density Share of cells that are mines.
+     */
+    public EndlessController(long seed, double density) {
+        this(new EndlessBoard(seed, density, DEFAULT_MAX_CHUNKS));
+    }
+
+    /**
+     * Starts an endless game on the given board.
+     *
+     * @param board A board no cell of which has been revealed.
+     */
+    public EndlessController(EndlessBoard board) {
+        this.board = board;
+        revealCell(EndlessBoard.START_ROW, EndlessBoard.START_COL);
+    }
+
+    /**
+     * Reveals a cell, opening the area around it if it has no neighboring mines.
+     * Revealing a mine ends the game.
+     *
+     * @param row The row of the cell, any int.
+     * @param col The column of the cell, any int.
+     * @return Number of cells opened by this move.
+     */
+    public long revealCell(int row, int col) {
+        if (gameOver || board.isRevealed(row, col) || board.isFlagged(row, col)) return 0;
+
+        board.reveal(row, col);
+        if (board.isMine(row, col)) {
+            gameOver = true;
+            return 1;
+        }
+
+        long opened = 1;
+        if (board.getNeighborMines(row, col) == 0) opened += cascade(row, col);
+        revealedCells += opened;
+        return opened;
+    }
+
+    /**
+     * Opens every cell reachable from a revealed zero cell, the same way
+     * {@link FloodFill} does on a bounded board. Chunks are generated as the
+     * fill reaches them.
+     */
+    private long cascade(int startRow, int startCol) {
+        long opened = 0;
+        int top = 0;
+        stack[top++] = pack(startRow, startCol);
+
+        while (top > 0) {
+            long cell = stack[--top];
+            int row = (int) (cell >> 32);
+            int col = (int) cell;
+
+            for (int r = row - 1; r <= row + 1; r++) {
+                for (int c = col - 1; c <= col + 1; c++) {
+                    if (board.isRevealed(r, c) || board.isMine(r, c)) continue;
+
+                    if (board.isFlagged(r, c)) {
+                        board.toggleFlag(r, c);
+                        flagsPlaced--;
+                    }
+
+                    // Reveal before pushing so every cell enters the stack at most once
+                    board.reveal(r, c);
+                    opened++;
+
+                    if (board.getNeighborMines(r, c) == 0) {
+                        if (top == stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                        stack[top++] = pack(r, c);
+                    }
+                }
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * Toggles a flag on a hidden cell.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     */
+    public void toggleFlag(int row, int col) {
+        if (gameOver || board.isRevealed(row, col)) return;
+
+        board.toggleFlag(row, col);
+        flagsPlaced += board.isFlagged(row, col) ? 1 : -1;
+    }
+
+    // Getters for external classes to query game state
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Gets the number of safe cells opened so far, which is the score.
+     */
+    public long getRevealedCells() {
+        return revealedCells;
+    }
+
+    public long getFlagsPlaced() {
+        return flagsPlaced;
+    }
+
+    public EndlessBoard getBoard() {
+        return board;
+    }
+
+    private static long pack(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Explores the plane with a random walk that opens every safe cell it steps on,
+     * like a player who knows where the mines are. Prints how many chunks were
+     * generated, kept and evicted, and the memory their cells use.
+     */
+    public static void main(String[] args) {
+        Options options = new Options(args, "--moves", "--density", "--seed", "--max-chunks");
+        int moves = options.getInt("--moves", 100_000);
+        double density = options.getDouble("--density", 0.18);
+        long seed = options.getLong("--seed", 1);
+        int maxChunks = options.getInt("--max-chunks", 256);
+
+        EndlessController game = new EndlessController(new EndlessBoard(seed, density, maxChunks));
+        EndlessBoard board = game.getBoard();
+        SplittableRandom random = new SplittableRandom(seed);
+        int row = EndlessBoard.START_ROW;
+        int col = EndlessBoard.START_COL;
+
+        long start = System.nanoTime();
+        for (int move = 0; move < moves; move++) {
+            // Step in a random direction and open the cell there if it is safe
+            int dr = random.nextInt(3) - 1;
+            int dc = random.nextInt(3) - 1;
+            if (dr == 0 && dc == 0) dr = 1;
+            row += dr;
+            col += dc;
+            if (!board.isMine(row, col)) game.revealCell(row, col);
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("moves=%d time=%.1fms revealed=%d generated=%d loaded=%d evicted=%d cellBytes=%d%n",
+                moves, millis, game.getRevealedCells(), board.getGeneratedChunks(),
+                board.getLoadedChunks(), board.getEvictedChunks(), board.getCellBytes());
+    }
+}
@@ -0,0 +1,762 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Micro-benchmarks for the game engine hot paths.
+ *
+ * Each case runs a few untimed warmup rounds, then is timed with its setup
+ * excluded. The report shows average and p99 time per operation and the bytes
+ * allocated per operation, read from the JVM's per-thread allocation counter
+ * (the same source JMH's gc profiler uses).
+ *
+ * Usage: {@code java -cp out EngineBenchmark [filter] [--large] [--budget]}, where the
+ * filter matches a benchmark name and/or size, e.g. {@code controller} or {@code HARD}.
+ * With {@code --budget}, only the large-board latency budgets are checked (see
+ * {@link #checkBudgets}) and the exit status is 1 if any is exceeded.
+ *
+ * This harness needs nothing but the JDK and is meant for a quick look. For
+ * numbers to compare, run the same cases under JMH (see {@link #prepare}).
+ */
+public class EngineBenchmark {
+    private static final long TARGET_NANOS = 500_000_000L;
+    private static final long WALL_LIMIT_NANOS = 3_000_000_000L;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MIN_ITERATIONS = 5;
+    private static final int MAX_ITERATIONS = 20_000;
+    private static final long SEED = 42;
+    private static final long PROBABILITY_BUDGET_MILLIS = 1_000;
+
+    // Latency budgets for large custom boards, per million cells
+    private static final double GENERATE_BUDGET_MILLIS = 50;
+    private static final double FIRST_CLICK_BUDGET_MILLIS = 150;
+    private static final int BUDGET_RUNS = 20;
+
+    /**
+     * A benchmarked operation with an untimed setup step.
+     * A setup returning null means the case does not apply and is skipped.
+     *
+     * @param <S> Type of the state the setup creates.
+     */
+    interface Case<S> {
+        S setup();
+
+        /**
+         * Runs the operation.
+         *
+         * @return Its result, or the state it changed, so that nothing is optimized away.
+         */
+        Object run(S state);
+    }
+
+    /**
+     * A board size to run the cases on.
+     */
+    static final class Size {
+        final String name;
+        final int rows;
+        final int cols;
+        final int mines;
+
+        Size(String name, BoardSpec spec) {
+            this.name = name;
+            this.rows = spec.getRows();
+            this.cols = spec.getCols();
+            this.mines = spec.getMines();
+        }
+
+        /**
+         * Parses a size name: a {@link Difficulty}, or a custom board as
+         * {@code ROWSxCOLS} with the expert mine density (about 20%).
+         *
+         * @throws IllegalArgumentException If the name is neither.
+         */
+        static Size of(String name) {
+            for (Difficulty difficulty : Difficulty.values()) {
+                if (difficulty.name().equals(name)) return new Size(name, difficulty.toSpec());
+            }
+            String[] parts = name.split("x");
+            if (parts.length != 2) throw new IllegalArgumentException("Unknown board size: " + name);
+            int rows = Integer.parseInt(parts[0]);
+            int cols = Integer.parseInt(parts[1]);
+            return new Size(name, new BoardSpec(rows, cols, rows * cols / 5));
+        }
+    }
+
+    private final String filter;
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    // File the save and load cases write to, deleted on exit
+    private final Path scratch;
+
+    private EngineBenchmark(String filter) {
+        this.filter = filter;
+        try {
+            this.scratch = Files.createTempFile("minesweeper-bench", ".save");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        scratch.toFile().deleteOnExit();
+    }
+
+    public static void main(String[] args) {
+        String filter = "";
+        boolean large = false;
+        boolean budget = false;
+        for (String arg : args) {
+            if (arg.equals("--large")) {
+                large = true;
+            } else if (arg.equals("--budget")) {
+                budget = true;
+            } else {
+                filter = arg;
+            }
+        }
+
+        if (budget) {
+            boolean ok = checkBudgets(new BoardSpec(1000, 1000, 200_000, SafeZone.NEIGHBORHOOD))
+                    & checkBudgets(new BoardSpec(1000, 1000, 10_000, SafeZone.NEIGHBORHOOD));
+            if (large) {
+                ok &= checkBudgets(new BoardSpec(4096, 4096, 4096 * 4096 / 5, SafeZone.NEIGHBORHOOD));
+            }
+            System.exit(ok ? 0 : 1);
+        }
+
+        List<Size> sizes = new ArrayList<>();
+        for (Difficulty difficulty : Difficulty.values()) {
+            sizes.add(Size.of(difficulty.name()));
+        }
+        sizes.add(Size.of("256x256"));
+        sizes.add(Size.of("1024x1024"));
+        if (large) {
+            sizes.add(Size.of("4096x4096"));
+        }
+
+        EngineBenchmark bench = new EngineBenchmark(filter);
+        bench.printHeader();
+        for (Size size : sizes) {
+            bench.runAll(size);
+        }
+    }
+
+    /**
+     * Prepares one case for an outside harness, {@code benchmarks.EngineBenchmarks}
+     * under JMH. JMH needs benchmarks in a named package, which cannot refer to
+     * classes in the default package, so it looks this method up by name and
+     * only sees JDK types: each call of the returned supplier runs the case's
+     * untimed setup and returns the operation to time on that state.
+     *
+     * @param name The case name, e.g. {@code controller.firstClick}.
+     * @param size A board size as parsed by {@link Size#of}.
+     * @throws IllegalArgumentException If there is no such case.
+     */
+    public static Supplier<Callable<Object>> prepare(String name, String size) {
+        Case<?> benchCase = new EngineBenchmark("").cases(Size.of(size)).get(name);
+        if (benchCase == null) throw new IllegalArgumentException("Unknown benchmark: " + name);
+        return () -> bind(benchCase, name + " " + size);
+    }
+
+    private static <S> Callable<Object> bind(Case<S> benchCase, String name) {
+        S state = benchCase.setup();
+        if (state == null) throw new IllegalStateException(name + " does not apply to this board");
+        return () -> benchCase.run(state);
+    }
+
+    /**
+     * Runs every case for one board size.
+     */
+    private void runAll(Size size) {
+        for (Map.Entry<String, Case<?>> entry : cases(size).entrySet()) {
+            measure(entry.getKey(), size, entry.getValue());
+        }
+    }
+
+    /**
+     * Creates every case for one board size, by name in run order.
+     */
+    private Map<String, Case<?>> cases(Size size) {
+        Map<String, Case<?>> cases = new LinkedHashMap<>();
+        cases.put("board.new", new Case<Size>() {
+            public Size setup() {
+                return size;
+            }
+
+            public Object run(Size state) {
+                return new Board(size.rows, size.cols);
+            }
+        });
+
+        cases.put("board.placeMines", new Case<Board>() {
+            public Board setup() {
+                return new Board(size.rows, size.cols);
+            }
+
+            public Object run(Board board) {
+                board.placeMines(size.rows / 2, size.cols / 2, size.mines,
+                        SafeZone.CELL, new SplittableRandom(SEED));
+                return board;
+            }
+        });
+
+        cases.put("board.countNeighbors", new Case<Board>() {
+            public Board setup() {
+                Board board = new Board(size.rows, size.cols);
+                board.placeMines(size.rows / 2, size.cols / 2, size.mines,
+                        SafeZone.CELL, new SplittableRandom(SEED));
+                return board;
+            }
+
+            public Object run(Board board) {
+                NeighborCounter.countAll(board.getGrid());
+                return board;
+            }
+        });
+
+        BoardMetrics.Calculator calculator = new BoardMetrics.Calculator();
+        cases.put("board.metrics", new Case<Board>() {
+            public Board setup() {
+                Board board = new Board(size.rows, size.cols);
+                board.placeMines(size.rows / 2, size.cols / 2, size.mines,
+                        SafeZone.CELL, new SplittableRandom(SEED));
+                return board;
+            }
+
+            public Object run(Board board) {
+                return board.computeMetrics(calculator);
+            }
+        });
+
+        cases.put("controller.firstClick", new Case<GameController>() {
+            public GameController setup() {
+                return newGame(size);
+            }
+
+            public Object run(GameController controller) {
+                return controller.revealCell(size.rows / 2, size.cols / 2);
+            }
+        });
+
+        cases.put("controller.revealSingle", new Case<Move>() {
+            public Move setup() {
+                return findMove(startedGame(size), false);
+            }
+
+            public Object run(Move move) {
+                return move.play();
+            }
+        });
+
+        cases.put("controller.revealCascade", new Case<Move>() {
+            public Move setup() {
+                return findMove(startedGame(size), true);
+            }
+
+            public Object run(Move move) {
+                return move.play();
+            }
+        });
+
+        cases.put("controller.fullGame", new Case<GameController>() {
+            public GameController setup() {
+                return startedGame(size);
+            }
+
+            public Object run(GameController controller) {
+                playPerfectGame(controller);
+                return controller;
+            }
+        });
+
+        cases.put("controller.stats", new Case<GameController>() {
+            public GameController setup() {
+                return startedGame(size);
+            }
+
+            public Object run(GameController controller) {
+                return controller.getStats();
+            }
+        });
+
+        cases.put("history.undoFirstClick", new Case<GameController>() {
+            public GameController setup() {
+                GameController controller = newGame(size);
+                controller.setUndoEnabled(true);
+                controller.revealCell(size.rows / 2, size.cols / 2);
+                return controller;
+            }
+
+            public Object run(GameController controller) {
+                return controller.undo();
+            }
+        });
+
+        cases.put("history.redoFirstClick", new Case<GameController>() {
+            public GameController setup() {
+                GameController controller = newGame(size);
+                controller.setUndoEnabled(true);
+                controller.revealCell(size.rows / 2, size.cols / 2);
+                controller.undo();
+                return controller;
+            }
+
+            public Object run(GameController controller) {
+                return controller.redo();
+            }
+        });
+
+        cases.put("solver.autoPlay", new Case<Solver>() {
+            public Solver setup() {
+                return new Solver(startedGame(size));
+            }
+
+            public Object run(Solver solver) {
+                return solver.autoPlay();
+            }
+        });
+
+        cases.put("probability.compute", new Case<ProbabilityEngine>() {
+            public ProbabilityEngine setup() {
+                // A position where the solver is stuck, as when a guess is needed
+                GameController controller = startedGame(size);
+                new Solver(controller).autoPlay();
+                return controller.isGameOver() ? null : new ProbabilityEngine(controller);
+            }
+
+            public Object run(ProbabilityEngine engine) {
+                return engine.compute(PROBABILITY_BUDGET_MILLIS);
+            }
+        });
+
+        cases.put("snapshot.save", new Case<GameController>() {
+            public GameController setup() {
+                return startedGame(size);
+            }
+
+            public Object run(GameController controller) {
+                try {
+                    controller.save(scratch, 0);
+                    return scratch;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+
+        cases.put("snapshot.load", new Case<Path>() {
+            public Path setup() {
+                try {
+                    GameController controller = startedGame(size);
+                    controller.save(scratch, 0);
+                    GameSnapshot.checkSameGame(controller, GameController.load(scratch).getController());
+                    return scratch;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            public Object run(Path file) {
+                try {
+                    return GameController.load(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+
+        cases.put("snapshot.map", new Case<Path>() {
+            public Path setup() {
+                try {
+                    GameController controller = startedGame(size);
+                    new GameSnapshot(controller, 0).writeMappable(scratch);
+                    GameSnapshot.checkSameGame(controller, GameSnapshot.map(scratch).getController());
+                    return scratch;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            public Object run(Path file) {
+                try {
+                    return GameSnapshot.map(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+
+        cases.put("serialization.save", new Case<SerializedGame>() {
+            public SerializedGame setup() {
+                return new SerializedGame(startedGame(size));
+            }
+
+            public Object run(SerializedGame game) {
+                game.write(scratch);
+                return scratch;
+            }
+        });
+
+        cases.put("serialization.load", new Case<Path>() {
+            public Path setup() {
+                GameController controller = startedGame(size);
+                new SerializedGame(controller).write(scratch);
+                GameSnapshot.checkSameGame(controller, SerializedGame.read(scratch).toController());
+                return scratch;
+            }
+
+            public Object run(Path file) {
+                return SerializedGame.read(file).toController();
+            }
+        });
+
+        cases.put("render.diff", new Case<RenderState>() {
+            public RenderState setup() {
+                GameController controller = startedGame(size);
+                RenderState state = new RenderState(controller.getBoard());
+                state.diff();
+                playPerfectGame(controller);
+                return state;
+            }
+
+            public Object run(RenderState state) {
+                return state.diff();
+            }
+        });
+        return cases;
+    }
+
+    /**
+     * Warms up and times one case, then prints a result row.
+     */
+    private <S> void measure(String name, Size size, Case<S> benchCase) {
+        if (!(name + " " + size.name).contains(filter)) return;
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            S state = benchCase.setup();
+            if (state == null) {
+                // The case does not apply to this board (e.g. no cascade left to click)
+                return;
+            }
+            benchCase.run(state);
+        }
+
+        long[] times = new long[MAX_ITERATIONS];
+        long allocated = 0;
+        long spent = 0;
+        int iterations = 0;
+        long threadId = Thread.currentThread().getId();
+        long deadline = System.nanoTime() + WALL_LIMIT_NANOS;
+
+        // Stop after the target measured time, or earlier if setup dominates the wall clock
+        while (iterations < MAX_ITERATIONS && (iterations < MIN_ITERATIONS
+                || (spent < TARGET_NANOS && System.nanoTime() < deadline))) {
+            S state = benchCase.setup();
+            if (state == null) return;
+
+            long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            benchCase.run(state);
+            long elapsed = System.nanoTime() - start;
+            allocated += threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+            times[iterations++] = elapsed;
+            spent += elapsed;
+        }
+
+        Arrays.sort(times, 0, iterations);
+        long p99 = times[Math.min(iterations - 1, (int) Math.ceil(iterations * 0.99) - 1)];
+        System.out.printf("%-28s %-10s %10d %14.2f %14.2f %16d%n",
+                name, size.name, iterations, spent / 1000.0 / iterations, p99 / 1000.0,
+                allocated / iterations);
+    }
+
+    /**
+     * Checks that a large board stays responsive: generating it (allocation and
+     * mine placement) and the first click (placement, cascade and counters) must
+     * each take at most their budget, scaled by the number of cells. The
+     * first click is timed both on a fresh board and on a pooled one, where
+     * mines are moved out of the safe zone instead of placed.
+     *
+     * @return True if every p99 is within its budget.
+     */
+    private static boolean checkBudgets(BoardSpec spec) {
+        double millionCells = spec.getCells() / 1e6;
+        LatencyHistogram generate = new LatencyHistogram();
+        LatencyHistogram firstClick = new LatencyHistogram();
+        LatencyHistogram pooledClick = new LatencyHistogram();
+        int row = spec.getRows() / 2;
+        int col = spec.getCols() / 2;
+
+        // The first rounds only warm up the JIT
+        for (int run = -WARMUP_ROUNDS; run < BUDGET_RUNS; run++) {
+            long start = System.nanoTime();
+            Board board = new Board(spec.getRows(), spec.getCols());
+            board.placeMines(spec.getMines(), new SplittableRandom(SEED + run));
+            long generated = System.nanoTime();
+
+            GameController pooled = new GameController(board, spec.getMines(), spec.getSafeZone(),
+                    new SplittableRandom(SEED - run));
+            long pooledStart = System.nanoTime();
+            pooled.revealCell(row, col);
+            long pooledEnd = System.nanoTime();
+
+            GameController fresh = new GameController(spec.withSeed(SEED + run));
+            long clickStart = System.nanoTime();
+            fresh.revealCell(row, col);
+            long clickEnd = System.nanoTime();
+
+            if (run < 0) continue;
+            generate.record(generated - start);
+            pooledClick.record(pooledEnd - pooledStart);
+            firstClick.record(clickEnd - clickStart);
+        }
+
+        System.out.printf("budget %s (%.0f%% mines, %s safe zone)%n",
+                spec, spec.getDensity() * 100, spec.getSafeZone());
+        return reportBudget("generate", generate, GENERATE_BUDGET_MILLIS * millionCells)
+                & reportBudget("firstClick", firstClick, FIRST_CLICK_BUDGET_MILLIS * millionCells)
+                & reportBudget("firstClick.pooled", pooledClick, FIRST_CLICK_BUDGET_MILLIS * millionCells);
+    }
+
+    private static boolean reportBudget(String name, LatencyHistogram latency, double budgetMillis) {
+        double p99 = latency.getPercentile(99) / 1e6;
+        boolean ok = p99 <= budgetMillis;
+        System.out.printf("  %-20s p50=%8.2fms p99=%8.2fms max=%8.2fms budget=%8.2fms %s%n",
+                name, latency.getPercentile(50) / 1e6, p99, latency.getMax() / 1e6, budgetMillis,
+                ok ? "OK" : "OVER");
+        return ok;
+    }
+
+    private void printHeader() {
+        System.out.printf("%-28s %-10s %10s %14s %14s %16s%n",
+                "benchmark", "size", "ops", "avg us/op", "p99 us/op", "alloc B/op");
+    }
+
+    /**
+     * Creates a seeded game whose first click opens an area.
+     */
+    private static GameController newGame(Size size) {
+        return new GameController(size.rows, size.cols, size.mines,
+                SafeZone.NEIGHBORHOOD, new SplittableRandom(SEED));
+    }
+
+    /**
+     * Creates a seeded game with the first click already made.
+     */
+    private static GameController startedGame(Size size) {
+        GameController controller = newGame(size);
+        controller.revealCell(size.rows / 2, size.cols / 2);
+        return controller;
+    }
+
+    /**
+     * Reveals every safe cell in index order, like a player who knows the layout.
+     */
+    private static void playPerfectGame(GameController controller) {
+        Board board = controller.getBoard();
+        CellGrid grid = board.getGrid();
+        int cols = board.getCols();
+        for (int i = 0; i < grid.size() && !controller.isGameOver(); i++) {
+            if (!grid.isMine(i) && !grid.isRevealed(i)) {
+                controller.revealCell(i / cols, i % cols);
+            }
+        }
+    }
+
+    /**
+     * Finds a hidden safe cell to click, either a zero cell (cascade) or a numbered one.
+     *
+     * @return The move, or null if the board has no such cell.
+     */
+    private static Move findMove(GameController controller, boolean cascade) {
+        CellGrid grid = controller.getBoard().getGrid();
+        for (int i = 0; i < grid.size(); i++) {
+            if (grid.isMine(i) || grid.isRevealed(i)) continue;
+            if ((grid.getNeighborMines(i) == 0) == cascade) {
+                return new Move(controller, i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A prepared reveal on a started game.
+     */
+    static final class Move {
+        private final GameController controller;
+        private final int index;
+
+        Move(GameController controller, int index) {
+            this.controller = controller;
+            this.index = index;
+        }
+
+        /**
+         * Reveals the cell.
+         *
+         * @return Number of cells revealed.
+         */
+        int play() {
+            int cols = controller.getBoard().getCols();
+            return controller.revealCell(index / cols, index % cols);
+        }
+    }
+
+    /**
+     * Mirror of what the GUI shows for each cell, used to measure the cost of
+     * working out which cells changed since the last repaint.
+     */
+    static final class RenderState {
+        private static final byte HIDDEN = 9;
+        private static final byte FLAG = 10;
+        private static final byte MINE = 11;
+
+        private final CellGrid grid;
+        private final byte[] shown;
+
+        RenderState(Board board) {
+            this.grid = board.getGrid();
+            this.shown = new byte[grid.size()];
+            Arrays.fill(shown, HIDDEN);
+        }
+
+        /**
+         * Updates the mirror from the board.
+         *
+         * @return Number of cells whose appearance changed.
+         */
+        int diff() {
+            int changed = 0;
+            for (int i = 0; i < shown.length; i++) {
+                byte look;
+                if (grid.isRevealed(i)) {
+                    look = grid.isMine(i) ? MINE : (byte) grid.getNeighborMines(i);
+                } else {
+                    look = grid.isFlagged(i) ? FLAG : HIDDEN;
+                }
+                if (shown[i] != look) {
+                    shown[i] = look;
+                    changed++;
+                }
+            }
+            return changed;
+        }
+    }
+
+    /**
+     * The naive way to save a game, as a baseline for {@link GameSnapshot}:
+     * the board as two-dimensional arrays, written with Java serialization.
+     */
+    static final class SerializedGame implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean[][] mines;
+        private final boolean[][] revealed;
+        private final boolean[][] flagged;
+        private final int[][] neighborMines;
+        private final GameStatsFields stats;
+        private final SafeZone safeZone;
+        private final boolean minesPlaced;
+        private final boolean firstMoveMade;
+
+        SerializedGame(GameController controller) {
+            Board board = controller.getBoard();
+            int rows = board.getRows();
+            int cols = board.getCols();
+            mines = new boolean[rows][cols];
+            revealed = new boolean[rows][cols];
+            flagged = new boolean[rows][cols];
+            neighborMines = new int[rows][cols];
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    mines[r][c] = board.isMine(r, c);
+                    revealed[r][c] = board.isRevealed(r, c);
+                    flagged[r][c] = board.isFlagged(r, c);
+                    neighborMines[r][c] = board.getNeighborMines(r, c);
+                }
+            }
+            stats = new GameStatsFields(controller.getStats());
+            safeZone = controller.getSafeZone();
+            minesPlaced = board.areMinesPlaced();
+            firstMoveMade = controller.isFirstMoveMade();
+        }
+
+        void write(Path file) {
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file)))) {
+                out.writeObject(this);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        static SerializedGame read(Path file) {
+            try (ObjectInputStream in = new ObjectInputStream(
+                    new BufferedInputStream(Files.newInputStream(file)))) {
+                return (SerializedGame) in.readObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        GameController toController() {
+            int rows = mines.length;
+            int cols = mines[0].length;
+            Board board = new Board(new PackedCellGrid(rows, cols), minesPlaced);
+            CellGrid grid = board.getGrid();
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    int i = r * cols + c;
+                    if (mines[r][c]) grid.setMine(i);
+                    if (revealed[r][c]) grid.reveal(i);
+                    if (flagged[r][c]) grid.toggleFlag(i);
+                    grid.setNeighborMines(i, neighborMines[r][c]);
+                }
+            }
+            return new GameController(board, safeZone, new SplittableRandom(), stats.toStats(), firstMoveMade);
+        }
+    }
+
+    /**
+     * Serializable copy of the game counters, since {@link GameStats} is not serializable.
+     */
+    static final class GameStatsFields implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int totalMines;
+        private final int revealedCells;
+        private final int safeCellsRemaining;
+        private final int flagsPlaced;
+        private final boolean gameOver;
+        private final boolean gameWon;
+
+        GameStatsFields(GameStats stats) {
+            totalMines = stats.getTotalMines();
+            revealedCells = stats.getRevealedCells();
+            safeCellsRemaining = stats.getSafeCellsRemaining();
+            flagsPlaced = stats.getFlagsPlaced();
+            gameOver = stats.isGameOver();
+            gameWon = stats.isGameWon();
+        }
+
+        GameStats toStats() {
+            return new GameStats(totalMines, revealedCells, safeCellsRemaining, flagsPlaced, gameOver, gameWon);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Optional timings and counters for the engine hot paths and the GUI.
+ *
+ * Metrics are off unless the JVM is started with {@code -Dminesweeper.metrics=true}.
+ * {@link #ENABLED} is a static final constant, so when it is false the JIT
+ * removes every instrumented branch and the engine runs exactly as without
+ * metrics: no clock reads, no recording and no events.
+ *
+ * When on, each {@link Metric} is a {@link LatencyHistogram} of durations in
+ * nanoseconds or of sizes in cells. Every thread records into its own
+ * histograms, so recording never contends; {@link #snapshot()} merges them
+ * (values recorded while it runs may or may not be included). Moves, mine
+ * placement and repaints are also emitted as JFR events, visible in a flight
+ * recording ({@code -XX:StartFlightRecording}) under "Minesweeper".
+ *
+ * At exit the merged metrics are written as CSV to the file named by
+ * {@code -Dminesweeper.metrics.csv}, or printed to standard error if it is not set.
+ */
+public final class EngineMetrics {
+    public static final boolean ENABLED = Boolean.getBoolean("minesweeper.metrics");
+
+    /**
+     * The measured quantities and their units.
+     */
+    public enum Metric {
+        PLACE_MINES("ns"),
+        COUNT_NEIGHBORS("ns"),
+        REVEAL_CELL("ns"),
+        FLOOD_FILL("ns"),
+        CASCADE_CELLS("cells"),
+        FLAG_TOGGLE("ns"),
+        GAME_WON("games"),
+        GAME_LOST("games"),
+        COMMAND_LATENCY("ns"),
+        COMMAND_BATCH("commands"),
+        UPDATE_BOARD("ns"),
+        REPAINT("ns"),
+        REPAINT_CELLS("cells"),
+        EDT_STALL("ns");
+
+        private final String unit;
+
+        Metric(String unit) {
+            this.unit = unit;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+    }
+
+    private static final List<LatencyHistogram[]> RECORDERS = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<LatencyHistogram[]> LOCAL = ThreadLocal.withInitial(() -> {
+        LatencyHistogram[] histograms = new LatencyHistogram[Metric.values().length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        RECORDERS.add(histograms);
+        return histograms;
+    });
+
+    static {
+        if (ENABLED) {
+            Runtime.getRuntime().addShutdownHook(new Thread(EngineMetrics::export, "metrics-export"));
+        }
+    }
+
+    private EngineMetrics() {
+    }
+
+    /**
+     * Reads the clock at the start of a timed section.
+     *
+     * @return The start time to pass to {@link #stop}, or 0 when metrics are off.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since {@link #start}.
+     *
+     * @param metric The timed section.
+     * @param start Value returned by start().
+     */
+    public static void stop(Metric metric, long start) {
+        if (ENABLED) record(metric, System.nanoTime() - start);
+    }
+
+    /**
+     * Records one value, a duration or a size depending on the metric.
+     *
+     * @param metric The measured quantity.
+     * @param value Value in the metric's unit.
+     */
+    public static void record(Metric metric, long value) {
+        if (ENABLED) LOCAL.get()[metric.ordinal()].record(value);
+    }
+
+    /**
+     * Merges what every thread recorded so far.
+     *
+     * @return One histogram per metric, empty if nothing was recorded.
+     */
+    public static Map<Metric, LatencyHistogram> snapshot() {
+        Map<Metric, LatencyHistogram> merged = new EnumMap<>(Metric.class);
+        for (Metric metric : Metric.values()) {
+            merged.put(metric, new LatencyHistogram());
+        }
+        for (LatencyHistogram[] histograms : RECORDERS) {
+            for (Metric metric : Metric.values()) {
+                merged.get(metric).add(histograms[metric.ordinal()]);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public static void reset() {
+        for (LatencyHistogram[] histograms : RECORDERS) {
+            for (LatencyHistogram histogram : histograms) {
+                histogram.reset();
+            }
+        }
+    }
+
+    /**
+     * Formats a snapshot as CSV, one row per metric, with durations in nanoseconds.
+     *
+     * @return The CSV text, with a header row.
+     */
+    public static String toCsv() {
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        out.println("metric,unit,count,mean,p50,p90,p99,p99.9,max");
+        for (Map.Entry<Metric, LatencyHistogram> entry : snapshot().entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            out.printf("%s,%s,%d,%.1f,%d,%d,%d,%d,%d%n", entry.getKey(), entry.getKey().getUnit(),
+                    h.getCount(), h.getMean(), h.getPercentile(50), h.getPercentile(90),
+                    h.getPercentile(99), h.getPercentile(99.9), h.getMax());
+        }
+        out.flush();
+        return text.toString();
+    }
+
+    /**
+     * Writes a snapshot as CSV.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void writeCsv(Path file) throws IOException {
+        Files.writeString(file, toCsv());
+    }
+
+    /**
+     * Records a finished reveal and emits its JFR event.
+     *
+     * @param start Value returned by start() before the reveal.
+     */
+    static void revealed(long start, int row, int col, int opened, boolean gameOver) {
+        long nanos = System.nanoTime() - start;
+        record(Metric.REVEAL_CELL, nanos);
+        RevealEvent event = new RevealEvent();
+        if (event.isEnabled()) {
+            event.row = row;
+            event.col = col;
+            event.opened = opened;
+            event.gameOver = gameOver;
+            event.time = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records a finished mine placement, neighbor counts included, and emits its JFR event.
+     *
+     * @param start Value returned by start() before the placement.
+     */
+    static void placed(long start, int cells, int mines) {
+        long nanos = System.nanoTime() - start;
+        record(Metric.PLACE_MINES, nanos);
+        PlaceMinesEvent event = new PlaceMinesEvent();
+        if (event.isEnabled()) {
+            event.cells = cells;
+            event.mines = mines;
+            event.time = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records a finished paint of the board and emits its JFR event.
+     *
+     * @param start Value returned by start() before painting.
+     */
+    static void repainted(long start, int cells) {
+        long nanos = System.nanoTime() - start;
+        record(Metric.REPAINT, nanos);
+        record(Metric.REPAINT_CELLS, cells);
+        RepaintEvent event = new RepaintEvent();
+        if (event.isEnabled()) {
+            event.cells = cells;
+            event.time = nanos;
+            event.commit();
+        }
+    }
+
+    private static void export() {
+        String file = System.getProperty("minesweeper.metrics.csv");
+        if (file == null) {
+            System.err.print(toCsv());
+            return;
+        }
+        try {
+            writeCsv(Paths.get(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A cell reveal, including any cascade it started.
+     */
+    @Name("minesweeper.Reveal")
+    @Label("Reveal Cell")
+    @Category("Minesweeper")
+    static final class RevealEvent extends Event {
+        @Label("Row")
+        int row;
+
+        @Label("Column")
+        int col;
+
+        @Label("Cells Opened")
+        int opened;
+
+        @Label("Game Over")
+        boolean gameOver;
+
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+
+    /**
+     * Mine placement and neighbor counting for a new board.
+     */
+    @Name("minesweeper.PlaceMines")
+    @Label("Place Mines")
+    @Category("Minesweeper")
+    static final class PlaceMinesEvent extends Event {
+        @Label("Cells")
+        int cells;
+
+        @Label("Mines")
+        int mines;
+
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+
+    /**
+     * One paint of the board canvas.
+     */
+    @Name("minesweeper.Repaint")
+    @Label("Repaint Board")
+    @Category("Minesweeper")
+    @Description("Painting of the cells in the clip region")
+    static final class RepaintEvent extends Event {
+        @Label("Cells Painted")
+        int cells;
+
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+}
@@ -0,0 +1,22 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Clicks the center cell once and stops, to measure what a first click alone achieves.
+ */
+public class FirstClickStrategy implements MoveStrategy {
+    private boolean clicked;
+
+    @Override
+    public void newGame(GameController controller) {
+        clicked = false;
+    }
+
+    @Override
+    public int nextMove(GameController controller, RandomGenerator random) {
+        if (clicked) return -1;
+
+        clicked = true;
+        Board board = controller.getBoard();
+        return board.indexOf(board.getRows() / 2, board.getCols() / 2);
+    }
+}
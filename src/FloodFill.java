@@ -0,0 +1,91 @@
+import java.util.Arrays;
+
+/**
+ * Iterative flood fill used to open the empty region around a zero cell.
+ * Uses an explicit work stack instead of recursion, so it cannot overflow
+ * the call stack on huge boards, and keeps that stack between calls so
+ * repeated fills do not allocate.
+ */
+public class FloodFill {
+    private int[] stack = new int[64];
+    private final ChangeSet clearedFlags = new ChangeSet();
+
+    /**
+     * Reveals every cell reachable from an already revealed zero cell,
+     * following the same rule as a recursive fill: each hidden, non-mine
+     * neighbor of a zero cell is revealed, and zero cells keep spreading.
+     * Wrong flags on opened cells are removed, see {@link #getClearedFlagCells()}.
+     *
+     * @param grid The board storage to fill.
+     * @param start Flat index of the revealed zero cell to start from.
+     * @param changes Receives the index of every cell the fill opens.
+     * @return Number of cells revealed by the fill (not counting start).
+     */
+    public int fill(CellGrid grid, int start, ChangeSet changes) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        int opened = 0;
+        int top = 0;
+
+        stack[top++] = start;
+
+        while (top > 0) {
+            int index = stack[--top];
+            int row = index / cols;
+            int col = index - row * cols;
+
+            // Clamp the 3x3 neighborhood once instead of bounds-checking each neighbor
+            int rowStart = Math.max(row - 1, 0);
+            int rowEnd = Math.min(row + 1, rows - 1);
+            int colStart = Math.max(col - 1, 0);
+            int colEnd = Math.min(col + 1, cols - 1);
+
+            for (int r = rowStart; r <= rowEnd; r++) {
+                int base = r * cols;
+                for (int c = colStart; c <= colEnd; c++) {
+                    int neighbor = base + c;
+                    if (grid.isRevealed(neighbor) || grid.isMine(neighbor)) continue;
+
+                    if (grid.isFlagged(neighbor)) {
+                        grid.toggleFlag(neighbor);
+                        clearedFlags.add(neighbor);
+                    }
+
+                    // Reveal before pushing so every cell enters the stack at most once
+                    grid.reveal(neighbor);
+                    changes.add(neighbor);
+                    opened++;
+
+                    if (grid.getNeighborMines(neighbor) == 0) {
+                        if (top == stack.length) {
+                            stack = Arrays.copyOf(stack, stack.length * 2);
+                        }
+                        stack[top++] = neighbor;
+                    }
+                }
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * Returns how many flags the fills since the last clear of
+     * {@link #getClearedFlagCells()} removed from cells they opened.
+     *
+     * @return Number of cleared flags.
+     */
+    public int getClearedFlags() {
+        return clearedFlags.size();
+    }
+
+    /**
+     * Returns the cells whose flags the fills removed. Fills add to the set,
+     * so a move made of several fills (a chord) collects all of them; the
+     * caller clears it before each move.
+     *
+     * @return The cells with cleared flags.
+     */
+    public ChangeSet getClearedFlagCells() {
+        return clearedFlags;
+    }
+}
@@ -0,0 +1,626 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.random.RandomGenerator;
+
+/**
+ * A group of hidden cells on the frontier (next to revealed numbers) that are
+ * linked by shared numbers, together with the constraints those numbers impose.
+ * Separate components do not influence each other and can be solved on their own.
+ *
+ * {@link #enumerate(long)} visits every mine layout of the component that
+ * satisfies all its numbers and tallies, per number of mines used, how many
+ * layouts there are and in how many of them each cell holds a mine. Large
+ * components can be split across threads or, past any budget, sampled.
+ * {@link #enumerateByState} gets the same tallies without visiting each
+ * layout, by memoizing the sub-states that many layouts share.
+ */
+public class FrontierComponent {
+    // Widest set of partly assigned constraints a state can hold, 4 bits each in a long
+    private static final int MAX_STATE_CONSTRAINTS = 16;
+
+    private final int[] cells;
+    private final int[][] constraintsOfCell;
+    private final int[] constraintNeed;
+    private final int[] constraintSize;
+
+    // Results, indexed by number of mines in the component
+    private long[] solutionsByMines;
+    private long[][] mineHitsByMines;
+    private boolean exact;
+
+    private FrontierComponent(int[] cells, int[][] constraintsOfCell, int[] constraintNeed, int[] constraintSize) {
+        this.cells = cells;
+        this.constraintsOfCell = constraintsOfCell;
+        this.constraintNeed = constraintNeed;
+        this.constraintSize = constraintSize;
+    }
+
+    /**
+     * Splits the frontier around the given numbered cells into independent components.
+     *
+     * Only visible information is used: which cells are revealed and their numbers.
+     * Cells already deduced can be passed in known; deduced mines reduce the
+     * numbers around them and deduced safe cells are left out.
+     *
+     * @param grid The board storage.
+     * @param numberCells Flat indices of revealed numbered cells to use as constraints.
+     * @param count How many entries of numberCells to use.
+     * @param known Per-cell deductions ({@link Solver#MINE}, {@link Solver#SAFE}), or null.
+     * @return The components, each with its cells in a search-friendly order.
+     */
+    public static List<FrontierComponent> build(CellGrid grid, int[] numberCells, int count, byte[] known) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+
+        // Collect constraints: each number minus known mines, over its unknown neighbors
+        Map<Integer, Integer> cellIds = new HashMap<>();
+        List<Integer> cellList = new ArrayList<>();
+        List<int[]> constraintCells = new ArrayList<>();
+        List<Integer> constraintNeeds = new ArrayList<>();
+
+        int[] scratch = new int[8];
+        for (int k = 0; k < count; k++) {
+            int index = numberCells[k];
+            if (!grid.isRevealed(index)) continue;
+
+            int row = index / cols;
+            int col = index % cols;
+            int need = grid.getNeighborMines(index);
+            int open = 0;
+            for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+                for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                    int neighbor = r * cols + c;
+                    if (grid.isRevealed(neighbor)) continue;
+                    byte state = known == null ? Solver.UNKNOWN : known[neighbor];
+                    if (state == Solver.MINE) {
+                        need--;
+                    } else if (state == Solver.UNKNOWN) {
+                        scratch[open++] = neighbor;
+                    }
+                }
+            }
+            if (open == 0) continue;
+
+            int[] ids = new int[open];
+            for (int i = 0; i < open; i++) {
+                Integer id = cellIds.get(scratch[i]);
+                if (id == null) {
+                    id = cellList.size();
+                    cellIds.put(scratch[i], id);
+                    cellList.add(scratch[i]);
+                }
+                ids[i] = id;
+            }
+            constraintCells.add(ids);
+            constraintNeeds.add(need);
+        }
+
+        // Link cells to the constraints that mention them
+        int cellCount = cellList.size();
+        int[] degree = new int[cellCount];
+        for (int[] ids : constraintCells) {
+            for (int id : ids) degree[id]++;
+        }
+        int[][] cellConstraints = new int[cellCount][];
+        for (int i = 0; i < cellCount; i++) {
+            cellConstraints[i] = new int[degree[i]];
+        }
+        Arrays.fill(degree, 0);
+        for (int c = 0; c < constraintCells.size(); c++) {
+            for (int id : constraintCells.get(c)) {
+                cellConstraints[id][degree[id]++] = c;
+            }
+        }
+
+        // Breadth-first walk: each walk is one component, in an order that keeps
+        // constraints closing early during the search
+        List<FrontierComponent> components = new ArrayList<>();
+        boolean[] cellSeen = new boolean[cellCount];
+        boolean[] constraintSeen = new boolean[constraintCells.size()];
+        int[] localId = new int[cellCount];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+
+        for (int startCell = 0; startCell < cellCount; startCell++) {
+            if (cellSeen[startCell]) continue;
+
+            List<Integer> members = new ArrayList<>();
+            List<Integer> memberConstraints = new ArrayList<>();
+            cellSeen[startCell] = true;
+            queue.add(startCell);
+            while (!queue.isEmpty()) {
+                int cell = queue.poll();
+                localId[cell] = members.size();
+                members.add(cell);
+                for (int c : cellConstraints[cell]) {
+                    if (constraintSeen[c]) continue;
+                    constraintSeen[c] = true;
+                    memberConstraints.add(c);
+                    for (int other : constraintCells.get(c)) {
+                        if (!cellSeen[other]) {
+                            cellSeen[other] = true;
+                            queue.add(other);
+                        }
+                    }
+                }
+            }
+
+            int[] cells = new int[members.size()];
+            int[][] ofCell = new int[members.size()][];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = cellList.get(members.get(i));
+                ofCell[i] = new int[cellConstraints[members.get(i)].length];
+            }
+            int[] need = new int[memberConstraints.size()];
+            int[] size = new int[memberConstraints.size()];
+            int[] fill = new int[cells.length];
+            for (int c = 0; c < need.length; c++) {
+                int global = memberConstraints.get(c);
+                need[c] = constraintNeeds.get(global);
+                size[c] = constraintCells.get(global).length;
+                for (int id : constraintCells.get(global)) {
+                    int local = localId[id];
+                    ofCell[local][fill[local]++] = c;
+                }
+            }
+            components.add(new FrontierComponent(cells, ofCell, need, size));
+        }
+        return components;
+    }
+
+    /**
+     * Enumerates all mine layouts of this component that satisfy its numbers.
+     *
+     * @param nodeBudget Maximum number of search steps before giving up.
+     * @return True if the enumeration finished within the budget.
+     */
+    public boolean enumerate(long nodeBudget) {
+        Search search = new Search(nodeBudget, Long.MAX_VALUE, null);
+        search.start(0, 0);
+        store(search.solutions, search.hits, search.complete);
+        return exact;
+    }
+
+    /**
+     * Tallies the layouts like {@link #enumerate(long)}, but memoizes shared
+     * sub-states instead of visiting every layout.
+     *
+     * Going through the cells in order, what the remaining cells can do
+     * depends only on the mine counts of the constraints that are partly
+     * assigned, not on how those counts came about. Layouts of the cells so
+     * far are therefore grouped by those counts into states. A forward pass
+     * tallies, by mines used, the ways to reach each state, and a backward
+     * pass the ways to finish from it. A cell holds a mine in (ways to reach a
+     * state before it) x (ways to finish after it is a mine) layouts. The work
+     * grows with the number of states, which the breadth-first cell order keeps
+     * small, not with the number of layouts.
+     *
+     * @param nodeBudget Maximum number of tally steps before giving up.
+     * @param deadline System.nanoTime() after which the count gives up.
+     * @return True if the count finished. False if a state would hold more
+     *         than 16 partly assigned constraints, the budget or deadline ran
+     *         out, or a tally does not fit in a long; nothing is stored then.
+     */
+    public boolean enumerateByState(long nodeBudget, long deadline) {
+        int n = cells.length;
+        int constraints = constraintNeed.length;
+
+        // Span of each constraint in cell order, and for each cell how many
+        // cells of each of its constraints are at or before it
+        int[] first = new int[constraints];
+        int[] last = new int[constraints];
+        Arrays.fill(first, n);
+        int[] seen = new int[constraints];
+        int[][] rank = new int[n][];
+        for (int i = 0; i < n; i++) {
+            int[] of = constraintsOfCell[i];
+            rank[i] = new int[of.length];
+            for (int k = 0; k < of.length; k++) {
+                int c = of[k];
+                first[c] = Math.min(first[c], i);
+                last[c] = i;
+                rank[i][k] = ++seen[c];
+            }
+        }
+
+        // active[i]: constraints with cells both before i and at or after i, whose counts make the state
+        int[][] active = new int[n + 1][];
+        active[0] = new int[0];
+        int[] scratch = new int[constraints];
+        for (int i = 0; i < n; i++) {
+            int size = 0;
+            for (int c : active[i]) {
+                if (last[c] > i) scratch[size++] = c;
+            }
+            for (int c : constraintsOfCell[i]) {
+                if (first[c] == i && last[c] > i) scratch[size++] = c;
+            }
+            if (size > MAX_STATE_CONSTRAINTS) return false;
+            active[i + 1] = Arrays.copyOf(scratch, size);
+        }
+
+        try {
+            // Forward: the states before each cell, the ways to reach them by
+            // mines used, and where each value of the cell leads (-1 if nowhere)
+            long[][] keys = new long[n + 1][];
+            long[][][] reach = new long[n + 1][][];
+            int[][] next = new int[n][];
+            keys[0] = new long[] {0};
+            reach[0] = new long[][] {{1}};
+            int[] mines = new int[constraints];
+            // A cell is in at most 8 constraints, one per revealed neighbor
+            int[] saved = new int[8];
+            long nodes = 0;
+
+            for (int i = 0; i < n; i++) {
+                if (System.nanoTime() > deadline) return false;
+                Map<Long, Integer> index = new HashMap<>();
+                List<long[]> reachNext = new ArrayList<>();
+                long[] keysNext = new long[Math.max(1, keys[i].length * 2)];
+                next[i] = new int[keys[i].length * 2];
+
+                for (int s = 0; s < keys[i].length; s++) {
+                    decode(keys[i][s], active[i], mines);
+                    for (int v = 0; v <= 1; v++) {
+                        long key = step(i, v, mines, saved, first, rank, active[i + 1]);
+                        if (key < 0) {
+                            next[i][2 * s + v] = -1;
+                            continue;
+                        }
+                        Integer t = index.get(key);
+                        if (t == null) {
+                            t = reachNext.size();
+                            index.put(key, t);
+                            keysNext[t] = key;
+                            reachNext.add(new long[i + 2]);
+                        }
+                        next[i][2 * s + v] = t;
+                        long[] from = reach[i][s];
+                        long[] to = reachNext.get(t);
+                        for (int a = 0; a < from.length; a++) {
+                            to[a + v] = Math.addExact(to[a + v], from[a]);
+                        }
+                        nodes += from.length;
+                    }
+                }
+                if (nodes > nodeBudget) return false;
+                keys[i + 1] = Arrays.copyOf(keysNext, reachNext.size());
+                reach[i + 1] = reachNext.toArray(new long[0][]);
+            }
+
+            // Backward: the ways to finish from each state by mines used, and the
+            // mine hits of cell i from the states before and after it
+            long[] solutions = new long[n + 1];
+            long[][] hits = new long[n + 1][];
+            long[][] finish = new long[keys[n].length][];
+            for (int s = 0; s < finish.length; s++) finish[s] = new long[] {1};
+            if (finish.length == 1) solutions = Arrays.copyOf(reach[n][0], n + 1);
+
+            for (int i = n - 1; i >= 0; i--) {
+                if (System.nanoTime() > deadline) return false;
+                long[][] before = new long[keys[i].length][];
+                for (int s = 0; s < before.length; s++) {
+                    long[] ways = new long[n - i + 1];
+                    for (int v = 0; v <= 1; v++) {
+                        int t = next[i][2 * s + v];
+                        if (t < 0) continue;
+                        long[] after = finish[t];
+                        for (int b = 0; b < after.length; b++) {
+                            ways[b + v] = Math.addExact(ways[b + v], after[b]);
+                        }
+                        if (v == 1) {
+                            long[] into = reach[i][s];
+                            for (int a = 0; a < into.length; a++) {
+                                if (into[a] == 0) continue;
+                                for (int b = 0; b < after.length; b++) {
+                                    if (after[b] == 0) continue;
+                                    int k = a + b + 1;
+                                    if (hits[k] == null) hits[k] = new long[n];
+                                    hits[k][i] = Math.addExact(hits[k][i], Math.multiplyExact(into[a], after[b]));
+                                }
+                            }
+                            nodes += (long) into.length * after.length;
+                        }
+                    }
+                    before[s] = ways;
+                }
+                if (nodes > nodeBudget) return false;
+                finish = before;
+                reach[i + 1] = null;
+            }
+            store(solutions, hits, true);
+            return true;
+        } catch (ArithmeticException e) {
+            // More layouts than a long holds
+            return false;
+        }
+    }
+
+    /**
+     * Unpacks a state's constraint counts into mines, indexed by constraint.
+     */
+    private static void decode(long key, int[] active, int[] mines) {
+        for (int j = 0; j < active.length; j++) {
+            mines[active[j]] = (int) (key >>> (4 * j)) & 0xF;
+        }
+    }
+
+    /**
+     * Gives cell i the value v in the state held in mines, which is left as it was.
+     *
+     * @return The key of the state after the cell, or -1 if a constraint can no longer be met.
+     */
+    private long step(int i, int v, int[] mines, int[] saved, int[] first, int[][] rank, int[] activeAfter) {
+        int[] of = constraintsOfCell[i];
+        for (int k = 0; k < of.length; k++) {
+            int c = of[k];
+            int count = (first[c] == i ? 0 : mines[c]) + v;
+            if (count > constraintNeed[c] || count + constraintSize[c] - rank[i][k] < constraintNeed[c]) return -1;
+        }
+
+        for (int k = 0; k < of.length; k++) {
+            int c = of[k];
+            saved[k] = mines[c];
+            mines[c] = (first[c] == i ? 0 : mines[c]) + v;
+        }
+        long key = 0;
+        for (int j = 0; j < activeAfter.length; j++) {
+            key |= (long) mines[activeAfter[j]] << (4 * j);
+        }
+        for (int k = 0; k < of.length; k++) mines[of[k]] = saved[k];
+        return key;
+    }
+
+    /**
+     * Enumerates like {@link #enumerate(long)}, but splits the search on the
+     * first few cells and runs the parts as parallel tasks on the given pool.
+     *
+     * @param nodeBudget Maximum number of search steps over all parts.
+     * @param deadline System.nanoTime() after which the search gives up.
+     * @param splitCells Number of leading cells to split on (2^splitCells parts).
+     * @param pool Pool to run the parts on.
+     * @return True if every part finished in time.
+     */
+    public boolean enumerateParallel(long nodeBudget, long deadline, int splitCells, ForkJoinPool pool) {
+        int split = Math.min(splitCells, cells.length);
+        int parts = 1 << split;
+        List<ForkJoinTask<Search>> tasks = new ArrayList<>(parts);
+        for (int prefix = 0; prefix < parts; prefix++) {
+            final int bits = prefix;
+            tasks.add(pool.submit(() -> {
+                Search search = new Search(Math.max(1, nodeBudget / parts), deadline, null);
+                search.startWithPrefix(split, bits);
+                return search;
+            }));
+        }
+
+        long[] solutions = new long[cells.length + 1];
+        long[][] hits = new long[cells.length + 1][];
+        boolean complete = true;
+        for (ForkJoinTask<Search> task : tasks) {
+            Search search = task.join();
+            complete &= search.complete;
+            for (int k = 0; k <= cells.length; k++) {
+                solutions[k] += search.solutions[k];
+                addHits(hits, k, search.hits[k]);
+            }
+        }
+        store(solutions, hits, complete);
+        return complete;
+    }
+
+    /**
+     * Estimates the tallies from random valid layouts when the component is too
+     * large to enumerate. Each sample is a depth-first search with random value
+     * order stopped at its first valid layout, so the estimate is approximate
+     * (layouts are not drawn with exactly equal probability).
+     *
+     * @param samples Number of layouts to draw.
+     * @param nodeBudget Maximum number of search steps over all samples.
+     * @param deadline System.nanoTime() after which sampling stops.
+     * @param random Source of randomness.
+     * @return Number of layouts actually drawn.
+     */
+    public int sample(int samples, long nodeBudget, long deadline, RandomGenerator random) {
+        long[] solutions = new long[cells.length + 1];
+        long[][] hits = new long[cells.length + 1][];
+        int drawn = 0;
+        long remaining = nodeBudget;
+
+        while (drawn < samples && remaining > 0 && System.nanoTime() < deadline) {
+            Search search = new Search(Math.min(remaining, nodeBudget / Math.max(1, samples) + cells.length * 4L),
+                    deadline, random);
+            search.start(0, 0);
+            remaining -= search.nodes;
+            for (int k = 0; k <= cells.length; k++) {
+                if (search.solutions[k] == 0) continue;
+                solutions[k]++;
+                addHits(hits, k, search.hits[k]);
+                drawn++;
+            }
+        }
+        store(solutions, hits, false);
+        return drawn;
+    }
+
+    /**
+     * Adds one search's per-cell tally for k mines into a total, allocating it on first use.
+     */
+    private void addHits(long[][] total, int k, long[] part) {
+        if (part == null) return;
+        if (total[k] == null) total[k] = new long[cells.length];
+        for (int i = 0; i < cells.length; i++) total[k][i] += part[i];
+    }
+
+    private void store(long[] solutions, long[][] hits, boolean complete) {
+        this.solutionsByMines = solutions;
+        this.mineHitsByMines = hits;
+        this.exact = complete;
+    }
+
+    /**
+     * One depth-first search over the component's cells. Each search has its
+     * own state, so several can run on the same component at once.
+     */
+    private final class Search {
+        private final int[] constraintMines = new int[constraintNeed.length];
+        private final int[] constraintOpen = constraintSize.clone();
+        private final boolean[] assigned = new boolean[cells.length];
+        private final long[] solutions = new long[cells.length + 1];
+        // Per-cell tallies, allocated only for mine counts that actually occur
+        private final long[][] hits = new long[cells.length + 1][];
+        private final long nodeBudget;
+        private final long deadline;
+        private final RandomGenerator random;
+        private long nodes;
+        private boolean complete = true;
+
+        /**
+         * @param random If not null, values are tried in random order and the
+         *               search stops at the first valid layout.
+         */
+        Search(long nodeBudget, long deadline, RandomGenerator random) {
+            this.nodeBudget = nodeBudget;
+            this.deadline = deadline;
+            this.random = random;
+        }
+
+        void start(int from, int mines) {
+            search(from, mines);
+        }
+
+        /**
+         * Fixes the first cells to the bits of prefix, then searches the rest.
+         */
+        void startWithPrefix(int length, int prefix) {
+            int mines = 0;
+            for (int i = 0; i < length; i++) {
+                int value = (prefix >>> i) & 1;
+                if (!fits(i, value)) return;
+                set(i, value);
+                mines += value;
+            }
+            search(length, mines);
+        }
+
+        /**
+         * Depth-first search over cells from..n-1, trying both values for each cell
+         * and pruning as soon as a constraint can no longer be met. Uses explicit
+         * arrays instead of recursion, since components can have thousands of cells.
+         */
+        private void search(int from, int mines) {
+            int n = cells.length;
+            int[] tried = new int[n];
+            int[] value = new int[n];
+            int[] order = new int[n];
+            int i = from;
+            if (i < n) order[i] = firstValue();
+
+            while (true) {
+                if (++nodes > nodeBudget || ((nodes & 0xFFF) == 0 && System.nanoTime() > deadline)) {
+                    complete = false;
+                    return;
+                }
+
+                if (i == n) {
+                    record(mines);
+                    if (random != null) return;
+                } else if (tried[i] < 2) {
+                    int v = order[i] ^ tried[i]++;
+                    if (fits(i, v)) {
+                        set(i, v);
+                        value[i] = v;
+                        mines += v;
+                        i++;
+                        if (i < n) {
+                            tried[i] = 0;
+                            order[i] = firstValue();
+                        }
+                    }
+                    continue;
+                }
+
+                // All layouts below cell i are done: step back and try the previous cell's other value
+                i--;
+                if (i < from) return;
+                unset(i, value[i]);
+                mines -= value[i];
+            }
+        }
+
+        private int firstValue() {
+            return random != null && random.nextBoolean() ? 1 : 0;
+        }
+
+        private void record(int mines) {
+            solutions[mines]++;
+            if (hits[mines] == null) hits[mines] = new long[cells.length];
+            long[] tally = hits[mines];
+            for (int j = 0; j < cells.length; j++) {
+                if (assigned[j]) tally[j]++;
+            }
+        }
+
+        private boolean fits(int i, int value) {
+            for (int c : constraintsOfCell[i]) {
+                int mines = constraintMines[c] + value;
+                if (mines > constraintNeed[c]) return false;
+                if (mines + constraintOpen[c] - 1 < constraintNeed[c]) return false;
+            }
+            return true;
+        }
+
+        private void set(int i, int value) {
+            assigned[i] = value == 1;
+            for (int c : constraintsOfCell[i]) {
+                constraintMines[c] += value;
+                constraintOpen[c]--;
+            }
+        }
+
+        private void unset(int i, int value) {
+            assigned[i] = false;
+            for (int c : constraintsOfCell[i]) {
+                constraintMines[c] -= value;
+                constraintOpen[c]++;
+            }
+        }
+    }
+
+    /**
+     * Gets the flat indices of the hidden cells in this component.
+     */
+    public int[] getCells() {
+        return cells;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    /**
+     * Checks if the last enumeration visited every layout (false after sampling or a timeout).
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Number of valid layouts using exactly k mines (after {@link #enumerate}).
+     */
+    public long getSolutions(int k) {
+        return solutionsByMines[k];
+    }
+
+    /**
+     * Number of valid layouts using exactly k mines in which cell i holds a mine.
+     */
+    public long getMineHits(int k, int i) {
+        return mineHitsByMines[k] == null ? 0 : mineHitsByMines[k][i];
+    }
+}
@@ -1,13 +1,29 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
 /**
  * Manages the Minesweeper game logic, including player moves,
  * mine placement, and win/loss detection.
  */
 public class GameController {
     private final Board board;
+    private final FloodFill floodFill = new FloodFill();
+    private final ChangeSet changes = new ChangeSet();
     private final int totalMines;
+    private final SafeZone safeZone;
+    private RandomGenerator random;
     private boolean gameOver;
     private boolean gameWon;
     private boolean firstMoveMade;
+    private MoveJournal journal;
+    private MoveHistory history;
+
+    // Live counters, updated by every move so no board scan is needed
+    private int revealedCells;
+    private int safeCellsRemaining;
+    private int flagsPlaced;
 
     /**
      * Initializes the game with a given difficulty.
@@ -16,48 +32,254 @@ public class GameController {
      * @param difficulty The chosen difficulty level
      */
     public GameController(Difficulty difficulty) {
-        this.board = new Board(difficulty.getRows(), difficulty.getCols());
-        this.totalMines = difficulty.getMines();
+        this(difficulty, SafeZone.CELL, new SplittableRandom());
+    }
+
+    /**
+     * Initializes the game with a given difficulty, safe zone and random source.
+     * Passing a seeded generator makes the mine layout reproducible.
+     *
+     * @param difficulty The chosen difficulty level
+     * @param safeZone The area around the first click that is kept free of mines
+     * @param random Source of randomness for mine placement
+     */
+    public GameController(Difficulty difficulty, SafeZone safeZone, RandomGenerator random) {
+        this(difficulty.getRows(), difficulty.getCols(), difficulty.getMines(), safeZone, random);
+    }
+
+    /**
+     * Initializes a game from a board spec. A seeded spec makes the mine layout reproducible.
+     *
+     * @param spec Board size, mine count, safe zone and optional seed
+     */
+    public GameController(BoardSpec spec) {
+        this(spec.getRows(), spec.getCols(), spec.getMines(), spec.getSafeZone(), spec.newRandom());
+    }
+
+    /**
+     * Initializes a game on a board of any size.
+     *
+     * @param rows Number of rows of the board
+     * @param cols Number of columns of the board
+     * @param totalMines Number of mines to place on the first move
+     * @param safeZone The area around the first click that is kept free of mines
+     * @param random Source of randomness for mine placement
+     */
+    public GameController(int rows, int cols, int totalMines, SafeZone safeZone, RandomGenerator random) {
+        this(new Board(rows, cols), totalMines, safeZone, random);
+    }
+
+    /**
+     * Initializes a game on an existing unplayed board. If the board already
+     * has its mines (e.g. one prepared ahead of time), the first move only
+     * moves mines out of its safe zone instead of placing them.
+     *
+     * @param board Board with no revealed cells, with or without mines
+     * @param totalMines Number of mines on the board, or to place on the first move
+     * @param safeZone The area around the first click that is kept free of mines
+     * @param random Source of randomness for mine placement or relocation
+     */
+    public GameController(Board board, int totalMines, SafeZone safeZone, RandomGenerator random) {
+        this.board = board;
+        this.totalMines = totalMines;
+        this.safeZone = safeZone;
+        this.random = random;
         this.gameOver = false;
         this.gameWon = false;
         this.firstMoveMade = false;
+        this.safeCellsRemaining = board.getRows() * board.getCols() - totalMines;
+    }
+
+    /**
+     * Resumes a saved game on a board restored with its cells, see {@link GameSnapshot}.
+     *
+     * @param board The restored board
+     * @param safeZone The area around the first click that is kept free of mines
+     * @param random Source of randomness, used only if the first move was not made yet
+     * @param stats The saved counters, which must match the board
+     * @param firstMoveMade Whether the first move was made before saving
+     */
+    GameController(Board board, SafeZone safeZone, RandomGenerator random, GameStats stats,
+                   boolean firstMoveMade) {
+        this(board, stats.getTotalMines(), safeZone, random);
+        this.gameOver = stats.isGameOver();
+        this.gameWon = stats.isGameWon();
+        this.firstMoveMade = firstMoveMade;
+        this.revealedCells = stats.getRevealedCells();
+        this.safeCellsRemaining = stats.getSafeCellsRemaining();
+        this.flagsPlaced = stats.getFlagsPlaced();
+    }
+
+    /**
+     * Saves the game to a compact binary file, see {@link GameSnapshot}.
+     *
+     * @param file The file to write.
+     * @param elapsedMillis Time played so far, stored with the game.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path file, long elapsedMillis) throws IOException {
+        new GameSnapshot(this, elapsedMillis).write(file);
+    }
+
+    /**
+     * Loads a game saved with {@link #save} (or any {@link GameSnapshot} file).
+     *
+     * @param file The file to read.
+     * @return The snapshot, holding the resumed controller and the time played.
+     * @throws IOException If the file cannot be read or is not a valid snapshot.
+     */
+    public static GameSnapshot load(Path file) throws IOException {
+        return GameSnapshot.read(file);
+    }
+
+    /**
+     * Starts a new game on the same board, reusing its storage instead of allocating a new one.
+     *
+     * @param random Source of randomness for the new game's mine placement
+     */
+    public void reset(RandomGenerator random) {
+        board.reset();
+        changes.clear();
+        this.random = random;
+        this.gameOver = false;
+        this.gameWon = false;
+        this.firstMoveMade = false;
+        this.journal = null;
+        if (history != null) history.clear();
+        this.revealedCells = 0;
+        this.flagsPlaced = 0;
+        this.safeCellsRemaining = board.getRows() * board.getCols() - totalMines;
     }
 
     /**
      * Handles revealing a cell at the specified position.
-     * On the first move, mines are placed avoiding the chosen cell.
-     * If an empty cell is revealed, adjacent empty cells are revealed recursively.
+     * On the first move, mines are placed avoiding the chosen cell's safe zone.
+     * If an empty cell is revealed, adjacent empty cells are revealed as well.
      * If a mine is revealed, the game ends with a loss.
      * 
      * @param row The row index of the cell to reveal
      * @param col The column index of the cell to reveal
+     * @return Number of cells opened by this move, including the clicked cell
      */
-    public void revealCell(int row, int col) {
-        if (gameOver || !board.isInBounds(row, col)) return;
+    public int revealCell(int row, int col) {
+        long start = EngineMetrics.start();
+        int opened = move(false, row, col);
+        if (EngineMetrics.ENABLED) EngineMetrics.revealed(start, row, col, opened, gameOver);
+        return opened;
+    }
+
+    /**
+     * Chords on a revealed number: if as many of its neighbors are flagged as
+     * the number says, every other hidden neighbor is revealed at once, with
+     * cascades. A wrong flag means a mine is revealed and the game is lost.
+     * Nothing happens on a hidden cell, an empty cell or a number whose flags
+     * do not add up. The whole chord is one move for {@link #undo()}, and the
+     * journal records it as the reveals it made.
+     *
+     * @param row The row index of the revealed number
+     * @param col The column index of the revealed number
+     * @return Number of cells opened by the chord
+     */
+    public int chord(int row, int col) {
+        long start = EngineMetrics.start();
+        int opened = move(true, row, col);
+        if (EngineMetrics.ENABLED) EngineMetrics.revealed(start, row, col, opened, gameOver);
+        return opened;
+    }
+
+    /**
+     * Plays a reveal or a chord as one move, recording it in the history when undo is on.
+     */
+    private int move(boolean chord, int row, int col) {
+        changes.clear();
+        floodFill.getClearedFlagCells().clear();
+        if (history == null) return chord ? openAround(row, col) : open(row, col);
+
+        GameStats before = getStats();
+        boolean firstMoveBefore = firstMoveMade;
+        int opened = chord ? openAround(row, col) : open(row, col);
+        history.record(false, changes, floodFill.getClearedFlagCells(), before, getStats(), firstMoveBefore,
+                firstMoveMade);
+        return opened;
+    }
+
+    /**
+     * Reveals the hidden, unflagged neighbors of a number whose flags add up.
+     */
+    private int openAround(int row, int col) {
+        if (gameOver || !board.isInBounds(row, col)) return 0;
+
+        CellGrid grid = board.getGrid();
+        int index = board.indexOf(row, col);
+        int count = grid.getNeighborMines(index);
+        if (!grid.isRevealed(index) || grid.isMine(index) || count == 0) return 0;
+
+        int flags = 0;
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = col - 1; c <= col + 1; c++) {
+                if (board.isInBounds(r, c) && grid.isFlagged(board.indexOf(r, c))) flags++;
+            }
+        }
+        if (flags != count) return 0;
+
+        int opened = 0;
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = col - 1; c <= col + 1; c++) {
+                if (!board.isInBounds(r, c)) continue;
+                int neighbor = board.indexOf(r, c);
+                if (!grid.isRevealed(neighbor) && !grid.isFlagged(neighbor)) opened += open(r, c);
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * Reveals one cell and the cascade it starts, adding the opened cells to the change set.
+     */
+    private int open(int row, int col) {
+        if (gameOver || !board.isInBounds(row, col)) return 0;
+        if (journal != null) journal.recordReveal(board.indexOf(row, col));
 
         if (!firstMoveMade) {
-            board.placeMines(row, col, totalMines);
+            if (board.areMinesPlaced()) {
+                board.clearSafeZone(row, col, safeZone, random);
+            } else {
+                board.placeMines(row, col, totalMines, safeZone, random);
+            }
             firstMoveMade = true;
         }
 
-        Cell cell = board.getCell(row, col);
+        CellGrid grid = board.getGrid();
+        int index = board.indexOf(row, col);
 
-        if (cell.isRevealed() || cell.isFlagged()) return;
+        if (grid.isRevealed(index) || grid.isFlagged(index)) return 0;
 
-        cell.reveal();
+        grid.reveal(index);
+        changes.add(index);
+        int opened = 1;
 
-        if (cell.isMine()) {
+        if (grid.isMine(index)) {
             gameOver = true;
             gameWon = false;
             revealAllMines();
-            return;
+            EngineMetrics.record(EngineMetrics.Metric.GAME_LOST, 1);
+            return opened;
         }
 
-        if (cell.getNeighborMines() == 0) {
-            revealAdjacentCells(row, col);
+        if (grid.getNeighborMines(index) == 0) {
+            long start = EngineMetrics.start();
+            int clearedBefore = floodFill.getClearedFlags();
+            int filled = floodFill.fill(grid, index, changes);
+            EngineMetrics.stop(EngineMetrics.Metric.FLOOD_FILL, start);
+            EngineMetrics.record(EngineMetrics.Metric.CASCADE_CELLS, filled + 1);
+            opened += filled;
+            flagsPlaced -= floodFill.getClearedFlags() - clearedBefore;
         }
 
+        revealedCells += opened;
+        safeCellsRemaining -= opened;
         checkWinCondition();
+        return opened;
     }
 
     /**
@@ -68,54 +290,118 @@ public class GameController {
      * @param col The column index of the cell to flag/unflag
      */
     public void toggleFlag(int row, int col) {
+        changes.clear();
         if (gameOver || !board.isInBounds(row, col)) return;
 
-        Cell cell = board.getCell(row, col);
+        CellGrid grid = board.getGrid();
+        int index = board.indexOf(row, col);
+        if (journal != null) journal.recordFlag(index);
 
-        if (!cell.isRevealed()) {
-            cell.toggleFlag();
+        if (!grid.isRevealed(index)) {
+            long start = EngineMetrics.start();
+            GameStats before = history == null ? null : getStats();
+            grid.toggleFlag(index);
+            changes.add(index);
+            flagsPlaced += grid.isFlagged(index) ? 1 : -1;
+            if (history != null) history.record(true, changes, null, before, getStats(), firstMoveMade,
+                    firstMoveMade);
+            EngineMetrics.stop(EngineMetrics.Metric.FLAG_TOGGLE, start);
         }
     }
 
     /**
-     * Reveals all mines on the board.
-     * Called when the player hits a mine to show all mine locations.
+     * Turns undo and redo on or off. When on, every move keeps the cells it
+     * changed and the counters around it, see {@link MoveHistory}; when off,
+     * moves cost nothing extra and the history is dropped.
+     * A journal has no record of undo, so while one is attached, undo and
+     * redo are refused and the journal always replays into this game.
+     *
+     * @param enabled Whether to keep a history of moves
      */
-    private void revealAllMines() {
-        for (int r = 0; r < board.getRows(); r++) {
-            for (int c = 0; c < board.getCols(); c++) {
-                Cell cell = board.getCell(r, c);
-                if (cell.isMine()) {
-                    cell.reveal();
-                }
-            }
+    public void setUndoEnabled(boolean enabled) {
+        if (!enabled) {
+            history = null;
+        } else if (history == null) {
+            history = new MoveHistory();
         }
     }
 
     /**
-     * Recursively reveals adjacent cells with zero neighboring mines.
-     * Stops when cells with neighboring mines are reached.
-     * 
-     * @param row The row of the current cell
-     * @param col The column of the current cell
-     */
-    private void revealAdjacentCells(int row, int col) {
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) continue;
-
-                int newRow = row + dr;
-                int newCol = col + dc;
-
-                if (board.isInBounds(newRow, newCol)) {
-                    Cell neighbor = board.getCell(newRow, newCol);
-                    if (!neighbor.isRevealed() && !neighbor.isMine()) {
-                        neighbor.reveal();
-                        if (neighbor.getNeighborMines() == 0) {
-                            revealAdjacentCells(newRow, newCol);
-                        }
-                    }
-                }
+     * Checks if a move can be undone: undo is on and no journal is attached.
+     */
+    public boolean canUndo() {
+        return history != null && journal == null && history.canUndo();
+    }
+
+    /**
+     * Checks if an undone move can be played again: undo is on and no journal is attached.
+     */
+    public boolean canRedo() {
+        return history != null && journal == null && history.canRedo();
+    }
+
+    /**
+     * Takes back the last move, including a lost game's last click.
+     * The cells it changed are reported by {@link #getLastChanges()}.
+     *
+     * @return False if there was no move to undo, or a journal is attached.
+     */
+    public boolean undo() {
+        changes.clear();
+        if (!canUndo()) return false;
+
+        MoveHistory.Move move = history.undo(board.getGrid(), changes);
+        restoreCounters(move.before, move.firstMoveBefore);
+        return true;
+    }
+
+    /**
+     * Plays again the last undone move.
+     * The cells it changed are reported by {@link #getLastChanges()}.
+     *
+     * @return False if there was no move to redo, or a journal is attached.
+     */
+    public boolean redo() {
+        changes.clear();
+        if (!canRedo()) return false;
+
+        MoveHistory.Move move = history.redo(board.getGrid(), changes);
+        restoreCounters(move.after, move.firstMoveAfter);
+        return true;
+    }
+
+    private void restoreCounters(GameStats stats, boolean firstMoveMade) {
+        this.gameOver = stats.isGameOver();
+        this.gameWon = stats.isGameWon();
+        this.firstMoveMade = firstMoveMade;
+        this.revealedCells = stats.getRevealedCells();
+        this.safeCellsRemaining = stats.getSafeCellsRemaining();
+        this.flagsPlaced = stats.getFlagsPlaced();
+    }
+
+    /**
+     * Attaches a journal that records every following move of this game,
+     * e.g. right after creating the controller from the journal's spec.
+     * Moves after the game ended or off the board are not recorded.
+     * Starting a new game with {@link #reset} detaches the journal.
+     * While a journal is attached, undo and redo are refused.
+     *
+     * @param journal The journal to record to, or null to stop recording
+     */
+    public void setJournal(MoveJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Reveals all mines on the board.
+     * Called when the player hits a mine to show all mine locations.
+     */
+    private void revealAllMines() {
+        CellGrid grid = board.getGrid();
+        for (int i = 0; i < grid.size(); i++) {
+            if (grid.isMine(i) && !grid.isRevealed(i)) {
+                grid.reveal(i);
+                changes.add(i);
             }
         }
     }
@@ -125,16 +411,12 @@ public class GameController {
      * If so, marks the game as won and over.
      */
     private void checkWinCondition() {
-        for (int r = 0; r < board.getRows(); r++) {
-            for (int c = 0; c < board.getCols(); c++) {
-                Cell cell = board.getCell(r, c);
-                if (!cell.isMine() && !cell.isRevealed()) {
-                    return; // Still cells to reveal, game continues
-                }
-            }
+        if (safeCellsRemaining > 0) {
+            return; // Still cells to reveal, game continues
         }
         gameWon = true;
         gameOver = true;
+        EngineMetrics.record(EngineMetrics.Metric.GAME_WON, 1);
     }
 
     // Getters for external classes (like the GUI) to query game state
@@ -150,4 +432,69 @@ public class GameController {
     public Board getBoard() {
         return board;
     }
+
+    public SafeZone getSafeZone() {
+        return safeZone;
+    }
+
+    /**
+     * Gets the undo history, or null if undo is off.
+     */
+    public MoveHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Gets the journal recording this game, or null if moves are not recorded.
+     */
+    public MoveJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Checks if the first move was made, i.e. the mines are final.
+     */
+    public boolean isFirstMoveMade() {
+        return firstMoveMade;
+    }
+
+    /**
+     * Returns the cells changed by the last call to revealCell or toggleFlag.
+     * The returned set is reused and overwritten by the next move.
+     *
+     * @return The cells changed by the last move.
+     */
+    public ChangeSet getLastChanges() {
+        return changes;
+    }
+
+    public int getTotalMines() {
+        return totalMines;
+    }
+
+    public int getRevealedCells() {
+        return revealedCells;
+    }
+
+    public int getSafeCellsRemaining() {
+        return safeCellsRemaining;
+    }
+
+    public int getFlagsPlaced() {
+        return flagsPlaced;
+    }
+
+    public int getMinesLeftToFlag() {
+        return totalMines - flagsPlaced;
+    }
+
+    /**
+     * Returns a snapshot of the game counters.
+     *
+     * @return The current game statistics.
+     */
+    public GameStats getStats() {
+        return new GameStats(totalMines, revealedCells, safeCellsRemaining,
+                flagsPlaced, gameOver, gameWon);
+    }
 }
@@ -0,0 +1,574 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Plays a game on its own thread, so no move ever runs on the Swing event
+ * dispatch thread, however large the board or the cascade.
+ *
+ * Once the engine is created, its thread is the only one that touches the
+ * {@link GameController} and the {@link Solver} behind hints and auto play.
+ * Any thread may submit commands; each gets the next submission number and
+ * goes into one queue. The engine takes every command waiting in the queue
+ * (up to MAX_BATCH) as a batch and applies them in submission order, so the
+ * game only depends on the order of the commands, never on timing.
+ *
+ * After each batch the engine publishes an immutable {@link Delta}: the new
+ * tile of every cell the batch changed and the counters after it. Deltas are
+ * handed to the listener through the publishing executor, by default
+ * {@code SwingUtilities.invokeLater}. Deltas published while an earlier
+ * hand-off is still waiting to run are merged into it, so a burst of moves
+ * costs the event dispatch thread one task and one repaint.
+ */
+public class GameEngine {
+    // Most commands applied before the changes are published
+    private static final int MAX_BATCH = 256;
+
+    /**
+     * Receives the engine's changes, on the publishing executor's thread.
+     */
+    public interface Listener {
+        /**
+         * Called after one or more batches of commands were applied.
+         *
+         * @param delta What the batches changed, to apply to a {@link BoardView}.
+         */
+        void boardChanged(Delta delta);
+    }
+
+    /**
+     * The cells changed by one or more batches, with their new tiles, and the
+     * counters after them. Cells may repeat; the later entry wins.
+     */
+    public static final class Delta {
+        private final long sequence;
+        private final int commands;
+        private final int[] cells;
+        private final byte[] tiles;
+        private final GameStats stats;
+
+        Delta(long sequence, int commands, int[] cells, byte[] tiles, GameStats stats) {
+            this.sequence = sequence;
+            this.commands = commands;
+            this.cells = cells;
+            this.tiles = tiles;
+            this.stats = stats;
+        }
+
+        /**
+         * Appends a later delta to this one.
+         */
+        Delta merge(Delta next) {
+            int[] mergedCells = Arrays.copyOf(cells, cells.length + next.cells.length);
+            byte[] mergedTiles = Arrays.copyOf(tiles, tiles.length + next.tiles.length);
+            System.arraycopy(next.cells, 0, mergedCells, cells.length, next.cells.length);
+            System.arraycopy(next.tiles, 0, mergedTiles, tiles.length, next.tiles.length);
+            return new Delta(next.sequence, commands + next.commands, mergedCells, mergedTiles, next.stats);
+        }
+
+        /**
+         * Gets the submission number of the last command included.
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Gets the number of commands included.
+         */
+        public int getCommands() {
+            return commands;
+        }
+
+        /**
+         * Gets the number of changed cell entries.
+         */
+        public int size() {
+            return cells.length;
+        }
+
+        /**
+         * Gets the flat index of the i-th changed cell.
+         */
+        public int getCell(int i) {
+            return cells[i];
+        }
+
+        /**
+         * Gets the new tile of the i-th changed cell, see {@link BoardView}.
+         */
+        public byte getTile(int i) {
+            return tiles[i];
+        }
+
+        /**
+         * Gets the counters after the last command included.
+         */
+        public GameStats getStats() {
+            return stats;
+        }
+    }
+
+    private enum Type { REVEAL, FLAG, CHORD, UNDO, REDO, AUTO, HINT }
+
+    private static final class Command {
+        final Type type;
+        final int row;
+        final int col;
+        final Consumer<Solver.Hint> callback;
+        long sequence;
+        long submitted;
+
+        Command(Type type, int row, int col, Consumer<Solver.Hint> callback) {
+            this.type = type;
+            this.row = row;
+            this.col = col;
+            this.callback = callback;
+        }
+    }
+
+    private final GameController controller;
+    private final Listener listener;
+    private final Executor publisher;
+    private final BlockingQueue<Command> commands = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile long submitted;
+    private volatile boolean stopped;
+
+    // Engine thread only
+    private Solver solver;
+    private final ChangeSet pending = new ChangeSet();
+    private long applied;
+    private int unpublished;
+
+    // Deltas waiting for the listener, and whether a hand-off is already scheduled
+    private final ConcurrentLinkedQueue<Delta> outbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean handOffScheduled = new AtomicBoolean();
+
+    /**
+     * Starts an engine that publishes to the event dispatch thread.
+     *
+     * @param controller The game, which from now on only the engine may touch.
+     * @param listener Receives the changes on the event dispatch thread.
+     */
+    public GameEngine(GameController controller, Listener listener) {
+        this(controller, listener, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Starts an engine.
+     *
+     * @param controller The game, which from now on only the engine may touch.
+     * @param listener Receives the changes.
+     * @param publisher Runs the hand-offs to the listener, in the order they are given.
+     */
+    public GameEngine(GameController controller, Listener listener, Executor publisher) {
+        this.controller = controller;
+        this.listener = listener;
+        this.publisher = publisher;
+
+        thread = new Thread(this::run, "game-engine");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues a reveal, see {@link GameController#revealCell}.
+     */
+    public void reveal(int row, int col) {
+        submit(new Command(Type.REVEAL, row, col, null));
+    }
+
+    /**
+     * Queues a flag toggle, see {@link GameController#toggleFlag}.
+     */
+    public void flag(int row, int col) {
+        submit(new Command(Type.FLAG, row, col, null));
+    }
+
+    /**
+     * Queues a chord, see {@link GameController#chord}.
+     */
+    public void chord(int row, int col) {
+        submit(new Command(Type.CHORD, row, col, null));
+    }
+
+    /**
+     * Queues taking back the last move.
+     */
+    public void undo() {
+        submit(new Command(Type.UNDO, 0, 0, null));
+    }
+
+    /**
+     * Queues playing the last undone move again.
+     */
+    public void redo() {
+        submit(new Command(Type.REDO, 0, 0, null));
+    }
+
+    /**
+     * Queues revealing every cell the solver can prove safe.
+     */
+    public void autoPlay() {
+        submit(new Command(Type.AUTO, 0, 0, null));
+    }
+
+    /**
+     * Asks the solver for a certain move once the commands before it are applied.
+     * The answer is handed over after the delta of those commands.
+     *
+     * @param callback Receives the hint, or null if every move would be a guess
+     *                 or the solver failed, through the publishing executor.
+     */
+    public void hint(Consumer<Solver.Hint> callback) {
+        submit(new Command(Type.HINT, 0, 0, callback));
+    }
+
+    /**
+     * Gets the submission number of the last command queued, 0 if none.
+     * A view whose {@link BoardView#getSequence()} equals it shows every move.
+     */
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    /**
+     * Stops the engine thread. Queued commands are dropped and nothing more
+     * is handed to the listener, e.g. when the player restarts.
+     */
+    public void shutdown() {
+        stopped = true;
+        thread.interrupt();
+    }
+
+    private synchronized void submit(Command command) {
+        command.sequence = submitted + 1;
+        command.submitted = EngineMetrics.start();
+        commands.add(command);
+        submitted = command.sequence;
+    }
+
+    /**
+     * Applies batches of commands until shut down.
+     */
+    private void run() {
+        solver = new Solver(controller);
+        List<Command> batch = new ArrayList<>();
+        try {
+            while (!stopped) {
+                batch.add(commands.take());
+                commands.drainTo(batch, MAX_BATCH - 1);
+                EngineMetrics.record(EngineMetrics.Metric.COMMAND_BATCH, batch.size());
+
+                for (Command command : batch) {
+                    try {
+                        apply(command);
+                    } catch (RuntimeException e) {
+                        // A bug must not stop the only thread that plays the game
+                        System.err.println("Command failed: " + command.type + " " + command.row + "," + command.col);
+                        e.printStackTrace();
+                        skip(command);
+                    }
+                    EngineMetrics.stop(EngineMetrics.Metric.COMMAND_LATENCY, command.submitted);
+                }
+                batch.clear();
+                if (unpublished > 0) publish();
+            }
+        } catch (InterruptedException e) {
+            // Shut down
+        }
+    }
+
+    private void apply(Command command) {
+        switch (command.type) {
+            case REVEAL:
+                controller.revealCell(command.row, command.col);
+                observe();
+                break;
+            case FLAG:
+                controller.toggleFlag(command.row, command.col);
+                collect(controller.getLastChanges());
+                break;
+            case CHORD:
+                controller.chord(command.row, command.col);
+                observe();
+                break;
+            case UNDO:
+                if (controller.undo()) {
+                    collect(controller.getLastChanges());
+                    // The solver's deductions may rest on cells that are hidden again
+                    solver.reset();
+                }
+                break;
+            case REDO:
+                if (controller.redo()) observe();
+                break;
+            case AUTO:
+                int cols = controller.getBoard().getCols();
+                int safe;
+                while (!controller.isGameOver() && (safe = solver.nextSafeCell()) >= 0) {
+                    controller.revealCell(safe / cols, safe % cols);
+                    observe();
+                }
+                break;
+            case HINT:
+                Solver.Hint hint = controller.isGameOver() ? null : solver.hint();
+                applied = command.sequence;
+                unpublished++;
+                publish();
+                publisher.execute(() -> {
+                    if (!stopped) command.callback.accept(hint);
+                });
+                return;
+        }
+        applied = command.sequence;
+        unpublished++;
+    }
+
+    /**
+     * Counts a command that failed as applied, so the views and hints waiting
+     * for it are not stuck. The cells it changed before failing are published
+     * with the next delta.
+     */
+    private void skip(Command command) {
+        collect(controller.getLastChanges());
+        // The solver may have missed part of the move
+        solver.reset();
+        applied = command.sequence;
+        unpublished++;
+        if (command.callback != null) {
+            publish();
+            publisher.execute(() -> {
+                if (!stopped) command.callback.accept(null);
+            });
+        }
+    }
+
+    /**
+     * Collects the last move's changes and lets the solver see them.
+     */
+    private void observe() {
+        ChangeSet changes = controller.getLastChanges();
+        solver.observe(changes);
+        collect(changes);
+    }
+
+    private void collect(ChangeSet changes) {
+        for (int i = 0; i < changes.size(); i++) {
+            pending.add(changes.get(i));
+        }
+    }
+
+    /**
+     * Turns the changes since the last delta into a new one and schedules its hand-off.
+     */
+    private void publish() {
+        CellGrid grid = controller.getBoard().getGrid();
+        int[] cells = new int[pending.size()];
+        byte[] tiles = new byte[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = pending.get(i);
+            tiles[i] = BoardView.tileOf(grid, cells[i]);
+        }
+        pending.clear();
+
+        outbox.add(new Delta(applied, unpublished, cells, tiles, controller.getStats()));
+        unpublished = 0;
+        if (handOffScheduled.compareAndSet(false, true)) publisher.execute(this::handOff);
+    }
+
+    /**
+     * Hands every waiting delta to the listener as one.
+     */
+    private void handOff() {
+        // Cleared first, so a delta published from here on schedules its own hand-off
+        handOffScheduled.set(false);
+        Delta delta = outbox.poll();
+        if (delta == null) return;
+
+        Delta next;
+        while ((next = outbox.poll()) != null) {
+            delta = delta.merge(next);
+        }
+        if (!stopped) listener.boardChanged(delta);
+    }
+
+    /**
+     * Plays seeded games both directly and through an engine that publishes
+     * to a stand-in for the event dispatch thread, checks that every engine
+     * game ends exactly like the direct one, and compares the time the event
+     * thread spends per command: the whole move before, applying deltas now.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Options options = new Options(args, "--games", "--commands", "--difficulty", "--seed");
+        int games = options.getInt("--games", 200);
+        int commands = options.getInt("--commands", 500);
+        String difficulties = options.get("--difficulty", "EASY,MEDIUM,HARD,1000x1000:150000");
+        long seed = options.getLong("--seed", 1);
+
+        ExecutorService eventThread = Executors.newSingleThreadExecutor(r -> new Thread(r, "event-thread"));
+        System.out.printf("games=%d commands=%d seed=%d%n", games, commands, seed);
+        for (String name : difficulties.split(",")) {
+            BoardSpec base = BoardSpec.parse(name, SafeZone.NEIGHBORHOOD);
+            // Keep the largest boards to a few games
+            int count = (int) Math.max(1, Math.min(games, 50_000_000L / ((long) commands * base.getCells())));
+            long directNanos = 0;
+            long eventNanos = 0;
+            long deltas = 0;
+            long applied = 0;
+            int mismatches = 0;
+            long start = System.nanoTime();
+
+            for (int g = 0; g < count; g++) {
+                long gameSeed = seed + g * 0x9E3779B97F4A7C15L;
+                GameController direct = new GameController(base.withSeed(gameSeed));
+                direct.setUndoEnabled(true);
+                long moveStart = System.nanoTime();
+                int[] script = script(direct, commands, new SplittableRandom(gameSeed));
+                directNanos += System.nanoTime() - moveStart;
+
+                GameController played = new GameController(base.withSeed(gameSeed));
+                played.setUndoEnabled(true);
+                BoardView view = new BoardView(played);
+                int last = commands;
+                CountDownLatch done = new CountDownLatch(1);
+                long[] timing = new long[2];
+                GameEngine engine = new GameEngine(played, delta -> {
+                    long applyStart = System.nanoTime();
+                    view.apply(delta);
+                    timing[0] += System.nanoTime() - applyStart;
+                    timing[1]++;
+                    if (view.getSequence() == last) done.countDown();
+                }, eventThread);
+
+                for (int i = 0; i < script.length; i += 3) {
+                    int row = script[i + 1];
+                    int col = script[i + 2];
+                    switch (Type.values()[script[i]]) {
+                        case REVEAL: engine.reveal(row, col); break;
+                        case FLAG: engine.flag(row, col); break;
+                        case CHORD: engine.chord(row, col); break;
+                        case UNDO: engine.undo(); break;
+                        default: engine.redo(); break;
+                    }
+                }
+                if (!done.await(60, TimeUnit.SECONDS)) throw new IllegalStateException("Engine did not finish");
+                engine.shutdown();
+
+                // The latch was counted down on the event thread after the last apply
+                eventNanos += timing[0];
+                deltas += timing[1];
+                applied += commands;
+                if (!sameView(view, new BoardView(direct))) mismatches++;
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-18s games=%d commands/s=%.0f commands/delta=%.1f "
+                            + "event-thread us/command: direct=%.2f engine=%.2f mismatches=%d%n",
+                    name.trim(), count, applied / seconds, (double) applied / deltas,
+                    directNanos / 1e3 / applied, eventNanos / 1e3 / applied, mismatches);
+        }
+        eventThread.shutdown();
+        checkSurvivesFailure(seed);
+    }
+
+    /**
+     * Submits a flag whose move throws, then a reveal and a hint, and checks
+     * that the engine logs the failure and goes on: the delta covers all three
+     * commands, the reveal is applied and the hint is answered.
+     */
+    private static void checkSurvivesFailure(long seed) throws InterruptedException {
+        GameController played = new GameController(BoardSpec.parse("EASY", SafeZone.NEIGHBORHOOD).withSeed(seed)) {
+            @Override
+            public void toggleFlag(int row, int col) {
+                throw new IllegalStateException("Failing on purpose");
+            }
+        };
+        BoardView view = new BoardView(played);
+        CountDownLatch done = new CountDownLatch(2);
+        GameEngine engine = new GameEngine(played, delta -> {
+            view.apply(delta);
+            if (view.getSequence() == 3) done.countDown();
+        }, Runnable::run);
+
+        System.out.println("Failing a command on purpose:");
+        engine.flag(0, 0);
+        engine.reveal(0, 0);
+        engine.hint(hint -> done.countDown());
+        boolean survived = done.await(10, TimeUnit.SECONDS);
+        engine.shutdown();
+
+        boolean revealed = survived && played.getBoard().getGrid().isRevealed(0);
+        System.out.printf("failing command: engine kept running=%b later reveal applied=%b%n", survived, revealed);
+        if (!survived || !revealed) System.exit(1);
+    }
+
+    /**
+     * Plays random reveals, flags on mines, chords, undos and redos directly,
+     * and returns them as (type, row, col) triples. A lost game is undone.
+     */
+    private static int[] script(GameController controller, int commands, SplittableRandom random) {
+        Board board = controller.getBoard();
+        CellGrid grid = board.getGrid();
+        int rows = board.getRows();
+        int cols = board.getCols();
+        int[] script = new int[commands * 3];
+
+        for (int i = 0; i < commands; i++) {
+            int row = random.nextInt(rows);
+            int col = random.nextInt(cols);
+            double roll = random.nextDouble();
+            Type type;
+            if (controller.isGameOver() || roll < 0.05) {
+                type = Type.UNDO;
+                controller.undo();
+            } else if (roll < 0.10) {
+                type = Type.REDO;
+                controller.redo();
+            } else if (roll < 0.25 || !controller.isFirstMoveMade()) {
+                type = Type.REVEAL;
+                controller.revealCell(row, col);
+            } else if (roll < 0.55) {
+                // Flag a mine next to a random cell, so that chords can add up
+                type = Type.FLAG;
+                for (int tries = 0; tries < 16 && !grid.isMine(board.indexOf(row, col)); tries++) {
+                    row = Math.min(rows - 1, Math.max(0, row + random.nextInt(3) - 1));
+                    col = Math.min(cols - 1, Math.max(0, col + random.nextInt(3) - 1));
+                }
+                controller.toggleFlag(row, col);
+            } else {
+                type = Type.CHORD;
+                for (int tries = 0; tries < 64 && !grid.isRevealed(board.indexOf(row, col)); tries++) {
+                    row = random.nextInt(rows);
+                    col = random.nextInt(cols);
+                }
+                controller.chord(row, col);
+            }
+            script[i * 3] = type.ordinal();
+            script[i * 3 + 1] = row;
+            script[i * 3 + 2] = col;
+        }
+        return script;
+    }
+
+    private static boolean sameView(BoardView a, BoardView b) {
+        if (!a.getStats().toString().equals(b.getStats().toString())) return false;
+        for (int i = 0; i < a.getRows() * a.getCols(); i++) {
+            if (a.getTile(i) != b.getTile(i)) return false;
+        }
+        return true;
+    }
+}
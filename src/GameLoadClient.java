@@ -0,0 +1,224 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load test driver for {@link GameServer}.
+ *
+ * Opens a number of connections, each on its own thread, and creates an
+ * equal share of the games on each. Then every connection plays random moves
+ * on its games in turn, sending a few requests at a time (the pipeline depth)
+ * and timing each one from send to reply. A game that ends is closed and
+ * replaced, so the number of sessions held stays the same. At the end it
+ * reports the sessions the server holds, moves per second and move latency.
+ *
+ * <pre>
+ * java -cp out GameServer --port 7878
+ * java -cp out GameLoadClient --port 7878 --connections 16 --sessions 10000 --seconds 20
+ * java -cp out GameLoadClient --embedded true    # server in the same process
+ * </pre>
+ */
+public class GameLoadClient {
+
+    /**
+     * What one connection did.
+     */
+    private static final class Result {
+        final LatencyHistogram latency = new LatencyHistogram();
+        long moves;
+        long games;
+        long errors;
+    }
+
+    private final String host;
+    private final int port;
+    private final String spec;
+    private final int pipeline;
+
+    /**
+     * Creates a driver for a server.
+     *
+     * @param host Server host.
+     * @param port Server port.
+     * @param spec Board of every game, e.g. HARD.
+     * @param pipeline Requests sent before waiting for their replies.
+     */
+    public GameLoadClient(String host, int port, String spec, int pipeline) {
+        if (pipeline < 1) throw new IllegalArgumentException("Pipeline depth must be at least 1, got " + pipeline);
+        this.host = host;
+        this.port = port;
+        this.spec = spec;
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Runs one connection: creates its games, then plays until the deadline.
+     */
+    private Result play(int sessions, long deadline, long seed) throws IOException {
+        Result result = new Result();
+        SplittableRandom random = new SplittableRandom(seed);
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port));
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII));
+
+            long[] ids = new long[sessions];
+            int rows = 0;
+            int cols = 0;
+            for (int i = 0; i < sessions; i++) {
+                String[] reply = request(out, in, "NEW " + spec);
+                ids[i] = Long.parseLong(reply[1]);
+                rows = Integer.parseInt(reply[2]);
+                cols = Integer.parseInt(reply[3]);
+            }
+
+            int[] batch = new int[pipeline];
+            long[] sent = new long[pipeline];
+            StringBuilder requests = new StringBuilder();
+            int next = 0;
+            while (System.nanoTime() < deadline) {
+                requests.setLength(0);
+                int count = Math.min(pipeline, sessions);
+                for (int i = 0; i < count; i++) {
+                    batch[i] = next;
+                    next = (next + 1) % sessions;
+                    // Mostly reveals, as in a real game
+                    String move = random.nextInt(8) == 0 ? "FLAG " : "REVEAL ";
+                    requests.append(move).append(ids[batch[i]]).append(' ')
+                            .append(random.nextInt(rows)).append(' ').append(random.nextInt(cols)).append('\n');
+                }
+                long start = System.nanoTime();
+                out.write(requests.toString().getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                for (int i = 0; i < count; i++) {
+                    sent[i] = start;
+                }
+
+                int finished = 0;
+                for (int i = 0; i < count; i++) {
+                    String[] reply = in.readLine().split(" ");
+                    result.latency.record(System.nanoTime() - sent[i]);
+                    if (!reply[0].equals("OK")) {
+                        result.errors++;
+                    } else {
+                        result.moves++;
+                        if (!reply[1].equals("PLAYING")) batch[finished++] = batch[i];
+                    }
+                }
+
+                // Replace ended games once every reply of the batch is read
+                for (int i = 0; i < finished; i++) {
+                    result.games++;
+                    request(out, in, "CLOSE " + ids[batch[i]]);
+                    ids[batch[i]] = Long.parseLong(request(out, in, "NEW " + spec)[1]);
+                }
+            }
+
+            for (long id : ids) {
+                request(out, in, "CLOSE " + id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sends one request and waits for its reply.
+     *
+     * @throws IllegalStateException If the server answers with an error.
+     */
+    private static String[] request(OutputStream out, BufferedReader in, String line) throws IOException {
+        out.write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        String reply = in.readLine();
+        if (reply == null) throw new IOException("Server closed the connection");
+        if (!reply.startsWith("OK")) throw new IllegalStateException(line + ": " + reply);
+        return reply.split(" ");
+    }
+
+    /**
+     * Asks the server for its counters.
+     */
+    private String stats() throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII));
+            return String.join(" ", request(socket.getOutputStream(), in, "STATS")).substring(3);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args, "--host", "--port", "--connections", "--sessions", "--seconds",
+                "--pipeline", "--difficulty", "--seed", "--embedded");
+        String host = options.get("--host", "localhost");
+        int port = options.getInt("--port", GameServer.DEFAULT_PORT);
+        int connections = options.getInt("--connections", 16);
+        int sessions = options.getInt("--sessions", 10_000);
+        int seconds = options.getInt("--seconds", 20);
+        int pipeline = options.getInt("--pipeline", 4);
+        String spec = options.get("--difficulty", "HARD");
+        long seed = options.getLong("--seed", 1);
+        boolean embedded = options.getBoolean("--embedded", false);
+
+        GameServer server = null;
+        if (embedded) {
+            server = new GameServer(new InetSocketAddress("localhost", 0),
+                    Runtime.getRuntime().availableProcessors(), 300_000, sessions + connections, 1_000_000);
+            port = server.getPort();
+        }
+        try {
+            GameLoadClient client = new GameLoadClient(host, port, spec, pipeline);
+            System.out.printf("host=%s port=%d connections=%d sessions=%d pipeline=%d difficulty=%s seconds=%d%n",
+                    host, port, connections, sessions, pipeline, spec, seconds);
+
+            ExecutorService pool = Executors.newFixedThreadPool(connections);
+            long start = System.nanoTime();
+            long deadline = start + seconds * 1_000_000_000L;
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int c = 0; c < connections; c++) {
+                int share = sessions / connections + (c < sessions % connections ? 1 : 0);
+                long connectionSeed = seed + c * 0x9E3779B97F4A7C15L;
+                futures.add(pool.submit(() -> client.play(share, deadline, connectionSeed)));
+            }
+
+            // Sample while every connection still holds its games
+            Thread.sleep(Math.max(0, seconds * 1000L - 500));
+            String held = client.stats();
+
+            Result total = new Result();
+            try {
+                for (Future<Result> future : futures) {
+                    Result result = future.get();
+                    total.latency.add(result.latency);
+                    total.moves += result.moves;
+                    total.games += result.games;
+                    total.errors += result.errors;
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            System.out.println("server " + held);
+            System.out.printf("moves=%d moves/s=%.0f games finished=%d errors=%d%n",
+                    total.moves, total.moves / elapsed, total.games, total.errors);
+            System.out.println("move " + total.latency);
+        } finally {
+            if (server != null) server.close();
+        }
+    }
+}
@@ -0,0 +1,529 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless server hosting many independent games over a line-based text
+ * protocol, for bots, load tests and remote clients.
+ *
+ * One selector thread accepts connections, reads request lines and writes
+ * replies, and never runs a move. Each connection's requests are handled in
+ * order by a worker pool, one task per connection at a time, so replies come
+ * back in request order while different connections run in parallel. Games
+ * live in a session table keyed by game id, independent of connections: any
+ * connection may play any game, and moves on one game are serialized by
+ * locking its session. Games untouched for longer than the idle timeout are
+ * evicted.
+ *
+ * Requests and replies are one line each, words separated by spaces:
+ * <pre>
+ * NEW spec [seed]          OK id rows cols mines     spec is HARD or 100x100:1500
+ * REVEAL id row col        OK state opened minesLeft state is PLAYING, WON or LOST
+ * FLAG id row col          OK state 0 minesLeft
+ * CHORD id row col         OK state opened minesLeft
+ * VIEW id                  OK rows cols tiles        tiles: 0-8, # hidden, F flag, * mine
+ * CLOSE id                 OK
+ * STATS                    OK sessions=n connections=n moves=n evicted=n
+ * </pre>
+ * Any request can instead get {@code ERR message}, e.g. for an unknown game.
+ */
+public class GameServer implements Closeable {
+    public static final int DEFAULT_PORT = 7878;
+
+    private static final int READ_BUFFER_BYTES = 4096;
+    private static final int MAX_LINE_LENGTH = 128;
+    // Reading from a connection pauses while this many requests wait for a worker
+    private static final int MAX_PENDING_LINES = 4096;
+    // ... or while this many reply bytes wait to be written; workers stop adding to them too
+    private static final int MAX_OUTBOUND_BYTES = 1 << 20;
+    private static final long EVICTION_INTERVAL_MILLIS = 1_000;
+    private static final char[] TILE_CHARS = "012345678#F*".toCharArray();
+
+    /**
+     * One game in the session table.
+     */
+    private static final class Session {
+        final GameController controller;
+        volatile long lastUsed;
+
+        Session(GameController controller) {
+            this.controller = controller;
+            this.lastUsed = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * One client connection: its channel, the request lines waiting for a
+     * worker and the replies waiting for the selector.
+     */
+    private final class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final StringBuilder partial = new StringBuilder();
+        final Queue<String> lines = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pendingLines = new AtomicInteger();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        // Guarded by itself
+        final Queue<ByteBuffer> outbound = new ArrayDeque<>();
+        final AtomicLong outboundBytes = new AtomicLong();
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        /**
+         * Queues replies and asks the selector to write them.
+         */
+        void send(byte[] replies) {
+            synchronized (outbound) {
+                outbound.add(ByteBuffer.wrap(replies));
+            }
+            outboundBytes.addAndGet(replies.length);
+            requestUpdate(this);
+        }
+
+        /**
+         * Checks if the client has left so many replies unread that no more
+         * requests should be read or run for it.
+         */
+        boolean isBackedUp() {
+            return outboundBytes.get() >= MAX_OUTBOUND_BYTES;
+        }
+
+        boolean hasOutput() {
+            synchronized (outbound) {
+                return !outbound.isEmpty();
+            }
+        }
+    }
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ExecutorService workers;
+    private final Thread selectorThread;
+    private final long idleMillis;
+    private final int maxSessions;
+    private final long maxCells;
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    // Connections whose interest ops must be recomputed on the selector thread
+    private final Queue<Connection> updates = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicLong moves = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    /**
+     * Opens the server socket and starts serving.
+     *
+     * @param address Address to listen on; port 0 picks a free port.
+     * @param workers Number of threads that run requests.
+     * @param idleMillis Games untouched for this long are evicted.
+     * @param maxSessions Most games kept at once; NEW fails beyond it.
+     * @param maxCells Largest board a NEW request may ask for.
+     * @throws IOException If the socket cannot be opened.
+     */
+    public GameServer(InetSocketAddress address, int workers, long idleMillis, int maxSessions, long maxCells)
+            throws IOException {
+        if (workers < 1) throw new IllegalArgumentException("Need at least one worker, got " + workers);
+        this.idleMillis = idleMillis;
+        this.maxSessions = maxSessions;
+        this.maxCells = maxCells;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        this.workers = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "game-server-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        selectorThread = new Thread(this::serve, "game-server-selector");
+        selectorThread.start();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Gets the number of games in the session table.
+     */
+    public int getSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * Gets the number of moves (reveals, flags and chords) played so far.
+     */
+    public long getMoves() {
+        return moves.get();
+    }
+
+    /**
+     * Stops accepting requests, closes every connection and drops all games.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdownNow();
+        sessions.clear();
+    }
+
+    /**
+     * Selector loop: accepts, reads, writes and evicts idle games until closed.
+     */
+    private void serve() {
+        ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+        long nextEviction = System.currentTimeMillis() + EVICTION_INTERVAL_MILLIS;
+        try {
+            while (running) {
+                selector.select(EVICTION_INTERVAL_MILLIS);
+
+                Connection updated;
+                while ((updated = updates.poll()) != null) {
+                    updateInterest(updated);
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isReadable()) read(connection, readBuffer);
+                        if (key.isValid() && key.isWritable()) write(connection);
+                    } catch (IOException e) {
+                        // The client went away; its games stay until evicted
+                        disconnect(key);
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                if (now >= nextEviction) {
+                    evictIdle(now);
+                    nextEviction = now + EVICTION_INTERVAL_MILLIS;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Game server stopped: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                disconnect(key);
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                // Already closing
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key));
+            connections.incrementAndGet();
+        }
+    }
+
+    /**
+     * Reads what the client sent and queues the complete lines for a worker.
+     */
+    private void read(Connection connection, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        int count = connection.channel.read(buffer);
+        if (count < 0) {
+            disconnect(connection.key);
+            return;
+        }
+        buffer.flip();
+
+        int queued = 0;
+        while (buffer.hasRemaining()) {
+            char c = (char) (buffer.get() & 0xFF);
+            if (c == '\n') {
+                connection.lines.add(connection.partial.toString());
+                connection.partial.setLength(0);
+                queued++;
+            } else if (c != '\r') {
+                if (connection.partial.length() == MAX_LINE_LENGTH) {
+                    throw new IOException("Request line longer than " + MAX_LINE_LENGTH + " characters");
+                }
+                connection.partial.append(c);
+            }
+        }
+
+        if (queued > 0) {
+            connection.pendingLines.addAndGet(queued);
+            schedule(connection);
+            updateInterest(connection);
+        }
+    }
+
+    /**
+     * Writes queued replies until the socket would block.
+     */
+    private void write(Connection connection) throws IOException {
+        long written = 0;
+        synchronized (connection.outbound) {
+            ByteBuffer next;
+            while ((next = connection.outbound.peek()) != null) {
+                written += connection.channel.write(next);
+                if (next.hasRemaining()) break;
+                connection.outbound.poll();
+            }
+        }
+        connection.outboundBytes.addAndGet(-written);
+        // A worker that stopped because the client was not reading can go on
+        if (!connection.isBackedUp() && !connection.lines.isEmpty()) schedule(connection);
+        updateInterest(connection);
+    }
+
+    /**
+     * Reads while the worker and the client keep up, and writes while there are replies.
+     */
+    private void updateInterest(Connection connection) {
+        if (!connection.key.isValid()) return;
+        int ops = 0;
+        if (connection.pendingLines.get() < MAX_PENDING_LINES && !connection.isBackedUp()) {
+            ops |= SelectionKey.OP_READ;
+        }
+        if (connection.hasOutput()) ops |= SelectionKey.OP_WRITE;
+        connection.key.interestOps(ops);
+    }
+
+    private void requestUpdate(Connection connection) {
+        updates.add(connection);
+        selector.wakeup();
+    }
+
+    private void disconnect(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Nothing left to do
+        }
+        if (key.attachment() != null) connections.decrementAndGet();
+        key.attach(null);
+    }
+
+    private void evictIdle(long now) {
+        Iterator<Session> it = sessions.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().lastUsed > idleMillis) {
+                it.remove();
+                evicted.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Starts a worker task for the connection unless one is already running.
+     */
+    private void schedule(Connection connection) {
+        if (connection.scheduled.compareAndSet(false, true)) {
+            workers.execute(() -> process(connection));
+        }
+    }
+
+    /**
+     * Handles the queued requests of a connection in order and sends the
+     * replies together. Stops early while the client leaves too many replies
+     * unread; the selector schedules the rest once they are written.
+     */
+    private void process(Connection connection) {
+        StringBuilder replies = new StringBuilder();
+        int handled = 0;
+        try {
+            String line;
+            while (connection.outboundBytes.get() + replies.length() < MAX_OUTBOUND_BYTES
+                    && (line = connection.lines.poll()) != null) {
+                handled++;
+                handle(line, replies);
+                replies.append('\n');
+            }
+        } finally {
+            connection.pendingLines.addAndGet(-handled);
+            if (replies.length() > 0) connection.send(replies.toString().getBytes(StandardCharsets.US_ASCII));
+
+            // Cleared first, so lines queued from here on are not left behind
+            connection.scheduled.set(false);
+            if (!connection.lines.isEmpty() && !connection.isBackedUp()) schedule(connection);
+        }
+    }
+
+    /**
+     * Runs one request and appends its reply.
+     */
+    private void handle(String line, StringBuilder reply) {
+        String[] words = line.trim().split(" +");
+        try {
+            switch (words[0].toUpperCase()) {
+                case "NEW":
+                    newGame(words, reply);
+                    break;
+                case "REVEAL":
+                case "FLAG":
+                case "CHORD":
+                    move(words, reply);
+                    break;
+                case "VIEW":
+                    view(words, reply);
+                    break;
+                case "CLOSE":
+                    expect(words, 2);
+                    if (sessions.remove(Long.parseLong(words[1])) == null) throw noGame(words[1]);
+                    reply.append("OK");
+                    break;
+                case "STATS":
+                    reply.append("OK sessions=").append(sessions.size())
+                            .append(" connections=").append(connections.get())
+                            .append(" moves=").append(moves.get())
+                            .append(" evicted=").append(evicted.get());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown request: " + words[0]);
+            }
+        } catch (IllegalArgumentException e) {
+            // Includes NumberFormatException
+            reply.setLength(reply.lastIndexOf("\n") + 1);
+            reply.append("ERR ").append(e.getMessage());
+        } catch (RuntimeException e) {
+            // A bug must not cost the connection its replies
+            System.err.println("Request failed: " + line);
+            e.printStackTrace();
+            reply.setLength(reply.lastIndexOf("\n") + 1);
+            reply.append("ERR internal error");
+        }
+    }
+
+    private void newGame(String[] words, StringBuilder reply) {
+        if (words.length != 2 && words.length != 3) throw new IllegalArgumentException("Usage: NEW spec [seed]");
+        BoardSpec spec = BoardSpec.parse(words[1], SafeZone.NEIGHBORHOOD);
+        if (spec.getCells() > maxCells) {
+            throw new IllegalArgumentException("Board larger than " + maxCells + " cells");
+        }
+        if (words.length == 3) spec = spec.withSeed(Long.parseLong(words[2]));
+        if (sessions.size() >= maxSessions) throw new IllegalArgumentException("Server full");
+
+        long id = nextId.getAndIncrement();
+        sessions.put(id, new Session(new GameController(spec)));
+        reply.append("OK ").append(id).append(' ').append(spec.getRows()).append(' ')
+                .append(spec.getCols()).append(' ').append(spec.getMines());
+    }
+
+    private void move(String[] words, StringBuilder reply) {
+        expect(words, 4);
+        Session session = session(words[1]);
+        int row = Integer.parseInt(words[2]);
+        int col = Integer.parseInt(words[3]);
+
+        int opened = 0;
+        GameStats stats;
+        // Moves on one game are applied one at a time, whichever connections send them
+        synchronized (session) {
+            GameController controller = session.controller;
+            if (!controller.getBoard().isInBounds(row, col)) throw new IllegalArgumentException("Off the board");
+            switch (words[0].toUpperCase()) {
+                case "REVEAL": opened = controller.revealCell(row, col); break;
+                case "CHORD": opened = controller.chord(row, col); break;
+                default: controller.toggleFlag(row, col); break;
+            }
+            stats = controller.getStats();
+        }
+        moves.incrementAndGet();
+
+        String state = !stats.isGameOver() ? "PLAYING" : stats.isGameWon() ? "WON" : "LOST";
+        reply.append("OK ").append(state).append(' ').append(opened).append(' ').append(stats.getMinesLeftToFlag());
+    }
+
+    private void view(String[] words, StringBuilder reply) {
+        expect(words, 2);
+        Session session = session(words[1]);
+        synchronized (session) {
+            Board board = session.controller.getBoard();
+            CellGrid grid = board.getGrid();
+            reply.append("OK ").append(board.getRows()).append(' ').append(board.getCols()).append(' ');
+            for (int i = 0; i < grid.size(); i++) {
+                reply.append(TILE_CHARS[BoardView.tileOf(grid, i)]);
+            }
+        }
+    }
+
+    private Session session(String id) {
+        Session session = sessions.get(Long.parseLong(id));
+        if (session == null) throw noGame(id);
+        session.lastUsed = System.currentTimeMillis();
+        return session;
+    }
+
+    private static IllegalArgumentException noGame(String id) {
+        return new IllegalArgumentException("No game " + id);
+    }
+
+    private static void expect(String[] words, int count) {
+        if (words.length != count) {
+            throw new IllegalArgumentException(words[0] + " takes " + (count - 1) + " arguments");
+        }
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     */
+    public static void main(String[] args) throws IOException {
+        Options options = new Options(args, "--port", "--workers", "--idle-seconds", "--max-sessions",
+                "--max-cells");
+        int port = options.getInt("--port", DEFAULT_PORT);
+        int workers = options.getInt("--workers", Runtime.getRuntime().availableProcessors());
+        long idleSeconds = options.getLong("--idle-seconds", 300);
+        int maxSessions = options.getInt("--max-sessions", 100_000);
+        long maxCells = options.getLong("--max-cells", 1_000_000);
+
+        GameServer server = new GameServer(new InetSocketAddress(port), workers, idleSeconds * 1000,
+                maxSessions, maxCells);
+        System.out.printf("port=%d workers=%d idleSeconds=%d maxSessions=%d maxCells=%d%n",
+                server.getPort(), workers, idleSeconds, maxSessions, maxCells);
+    }
+}
@@ -0,0 +1,697 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * A saved game: the board's cells, the controller's counters, the seed the
+ * board came from (if known) and the time played.
+ *
+ * The file starts with a fixed header of {@link #HEADER_BYTES} bytes, big-endian:
+ * <pre>
+ *   0   int    magic "MSWP"
+ *   4   short  format version
+ *   6   byte   body format (bits or bytes, see below)
+ *   7   byte   flags: mines placed, first move made, game over, game won, seeded
+ *   8   int    rows
+ *   12  int    cols
+ *   16  int    total mines
+ *   20  int    revealed cells
+ *   24  int    safe cells remaining
+ *   28  int    flags placed
+ *   32  long   seed
+ *   40  long   elapsed milliseconds
+ *   48  byte   safe zone ordinal
+ *   49  -      reserved, zero
+ * </pre>
+ *
+ * The bits body ({@link #write}) is the compact one: for every 64 cells, three
+ * words of mine, revealed and flagged bits, i.e. 3 bits per cell. Neighbor
+ * counts are not stored; they are recomputed on load.
+ *
+ * The bytes body ({@link #writeMappable}) stores each cell as its
+ * {@link PackedCellGrid} byte, counts included. It is 8/3 times larger, but
+ * {@link #map} can play it straight from a memory-mapped file, so loading a
+ * very large board costs a few page faults instead of reading every cell.
+ *
+ * Files that are truncated, from a newer version or otherwise not valid
+ * snapshots are rejected with an IOException. That includes a bytes body
+ * with a count above 8, which would otherwise be drawn as another tile, and
+ * header counters (revealed cells, flags, safe cells left, mines, won or
+ * lost) that do not match the cells.
+ * Run {@link #main} to check saving and loading in every format.
+ */
+public final class GameSnapshot {
+    static final int MAGIC = 0x4D535750;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+
+    private static final byte FORMAT_BITS = 0;
+    private static final byte FORMAT_BYTES = 1;
+
+    private static final int MINES_PLACED = 1;
+    private static final int FIRST_MOVE_MADE = 1 << 1;
+    private static final int GAME_OVER = 1 << 2;
+    private static final int GAME_WON = 1 << 3;
+    private static final int SEEDED = 1 << 4;
+
+    // Size of the buffer files are streamed through, a multiple of the 24 bytes per 64 cells
+    private static final int BUFFER_BYTES = 24 * 4096;
+
+    private final GameController controller;
+    private final long elapsedMillis;
+    private final boolean seeded;
+    private final long seed;
+
+    /**
+     * Creates a snapshot of a game whose seed is not known.
+     *
+     * @param controller The game to save.
+     * @param elapsedMillis Time played so far.
+     */
+    public GameSnapshot(GameController controller, long elapsedMillis) {
+        this(controller, elapsedMillis, false, 0);
+    }
+
+    /**
+     * Creates a snapshot of a game generated from a seed, e.g. a seeded {@link BoardSpec}.
+     *
+     * @param controller The game to save.
+     * @param elapsedMillis Time played so far.
+     * @param seed Seed the board was generated from.
+     */
+    public GameSnapshot(GameController controller, long elapsedMillis, long seed) {
+        this(controller, elapsedMillis, true, seed);
+    }
+
+    private GameSnapshot(GameController controller, long elapsedMillis, boolean seeded, long seed) {
+        this.controller = controller;
+        this.elapsedMillis = elapsedMillis;
+        this.seeded = seeded;
+        this.seed = seed;
+    }
+
+    /**
+     * Writes the snapshot in the compact bits format. The file is written
+     * next to the target and moved over it, so an existing save is never
+     * left half written.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        write(file, FORMAT_BITS);
+    }
+
+    /**
+     * Writes the snapshot in the bytes format, which {@link #map} can open without reading it.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeMappable(Path file) throws IOException {
+        write(file, FORMAT_BYTES);
+    }
+
+    private void write(Path file, byte format) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // Small boards need no more than the header and one byte per cell
+            long fileBytes = HEADER_BYTES + (long) controller.getBoard().getGrid().size();
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_BYTES, fileBytes));
+            writeHeader(buffer, format);
+
+            CellGrid grid = controller.getBoard().getGrid();
+            if (format == FORMAT_BITS) {
+                writeBits(channel, buffer, grid);
+            } else {
+                writeBytes(channel, buffer, grid);
+            }
+            flush(channel, buffer);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeHeader(ByteBuffer buffer, byte format) {
+        Board board = controller.getBoard();
+        int flags = (board.areMinesPlaced() ? MINES_PLACED : 0)
+                | (controller.isFirstMoveMade() ? FIRST_MOVE_MADE : 0)
+                | (controller.isGameOver() ? GAME_OVER : 0)
+                | (controller.isGameWon() ? GAME_WON : 0)
+                | (seeded ? SEEDED : 0);
+
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.put(format);
+        buffer.put((byte) flags);
+        buffer.putInt(board.getRows());
+        buffer.putInt(board.getCols());
+        buffer.putInt(controller.getTotalMines());
+        buffer.putInt(controller.getRevealedCells());
+        buffer.putInt(controller.getSafeCellsRemaining());
+        buffer.putInt(controller.getFlagsPlaced());
+        buffer.putLong(seed);
+        buffer.putLong(elapsedMillis);
+        buffer.put((byte) controller.getSafeZone().ordinal());
+        buffer.position(HEADER_BYTES);
+    }
+
+    /**
+     * Writes three words of mine, revealed and flagged bits per 64 cells.
+     */
+    private static void writeBits(FileChannel channel, ByteBuffer buffer, CellGrid grid) throws IOException {
+        byte[] packed = grid instanceof PackedCellGrid ? ((PackedCellGrid) grid).bytes() : null;
+        int size = grid.size();
+
+        for (int base = 0; base < size; base += 64) {
+            long mines = 0;
+            long revealed = 0;
+            long flagged = 0;
+            int end = Math.min(64, size - base);
+            for (int j = 0; j < end; j++) {
+                int bits = packed != null ? packed[base + j] : cellByte(grid, base + j);
+                long bit = 1L << j;
+                if ((bits & PackedCellGrid.MINE) != 0) mines |= bit;
+                if ((bits & PackedCellGrid.REVEALED) != 0) revealed |= bit;
+                if ((bits & PackedCellGrid.FLAGGED) != 0) flagged |= bit;
+            }
+
+            if (buffer.remaining() < 24) flush(channel, buffer);
+            buffer.putLong(mines);
+            buffer.putLong(revealed);
+            buffer.putLong(flagged);
+        }
+    }
+
+    /**
+     * Writes one PackedCellGrid byte per cell.
+     */
+    private static void writeBytes(FileChannel channel, ByteBuffer buffer, CellGrid grid) throws IOException {
+        if (grid instanceof PackedCellGrid) {
+            flush(channel, buffer);
+            ByteBuffer cells = ByteBuffer.wrap(((PackedCellGrid) grid).bytes());
+            while (cells.hasRemaining()) channel.write(cells);
+            return;
+        }
+
+        int size = grid.size();
+        for (int i = 0; i < size; i++) {
+            if (!buffer.hasRemaining()) flush(channel, buffer);
+            buffer.put((byte) cellByte(grid, i));
+        }
+    }
+
+    private static int cellByte(CellGrid grid, int index) {
+        return grid.getNeighborMines(index)
+                | (grid.isMine(index) ? PackedCellGrid.MINE : 0)
+                | (grid.isRevealed(index) ? PackedCellGrid.REVEALED : 0)
+                | (grid.isFlagged(index) ? PackedCellGrid.FLAGGED : 0);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Reads a snapshot in either format into a {@link PackedCellGrid} on the heap.
+     *
+     * @param file The file to read.
+     * @return The snapshot, with a controller ready to continue the game.
+     * @throws IOException If the file cannot be read or is not a valid snapshot.
+     */
+    public static GameSnapshot read(Path file) throws IOException {
+        return open(file, false);
+    }
+
+    /**
+     * Opens a snapshot written by {@link #writeMappable} as a private memory
+     * mapping: the game plays on a {@link MappedCellGrid} over the file's
+     * pages, and its moves are never written back to the file.
+     *
+     * A private mapping can only be made through a writable channel. If the
+     * file cannot be opened for writing (read-only file, directory or file
+     * system), its cells are read onto the heap as by {@link #read} instead.
+     *
+     * @param file The file to map.
+     * @return The snapshot, with a controller ready to continue the game.
+     * @throws IOException If the file cannot be mapped or is not a valid bytes-format snapshot.
+     */
+    public static GameSnapshot map(Path file) throws IOException {
+        return open(file, true);
+    }
+
+    private static GameSnapshot open(Path file, boolean mapped) throws IOException {
+        FileChannel writable = null;
+        if (mapped) {
+            try {
+                // A private mapping needs a writable channel, though the file itself is never changed
+                writable = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (FileSystemException e) {
+                // Not writable, so the cells are read instead
+            }
+        }
+        boolean mapCells = writable != null;
+        try (FileChannel channel = mapCells ? writable : FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header);
+            header.flip();
+
+            if (header.getInt() != MAGIC) throw new IOException("Not a game snapshot: " + file);
+            int version = header.getShort();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version + ": " + file);
+
+            byte format = header.get();
+            int flags = header.get();
+            int rows = header.getInt();
+            int cols = header.getInt();
+            int totalMines = header.getInt();
+            int revealedCells = header.getInt();
+            int safeCellsRemaining = header.getInt();
+            int flagsPlaced = header.getInt();
+            long seed = header.getLong();
+            long elapsedMillis = header.getLong();
+            int zone = header.get();
+
+            if (format != FORMAT_BITS && format != FORMAT_BYTES) {
+                throw new IOException("Unknown snapshot format " + format + ": " + file);
+            }
+            if (mapped && format != FORMAT_BYTES) {
+                throw new IOException("Snapshot is not in the mappable format: " + file);
+            }
+            if (rows < 1 || cols < 1 || (long) rows * cols > BoardSpec.MAX_CELLS
+                    || zone < 0 || zone >= SafeZone.values().length) {
+                throw new IOException("Corrupt snapshot header: " + file);
+            }
+
+            int size = rows * cols;
+            long bodyBytes = format == FORMAT_BITS ? (size + 63L) / 64 * 24 : size;
+            if (channel.size() != HEADER_BYTES + bodyBytes) {
+                throw new IOException("Snapshot has " + channel.size() + " bytes, expected "
+                        + (HEADER_BYTES + bodyBytes) + ": " + file);
+            }
+
+            CellGrid grid;
+            int[] counts;
+            if (mapCells) {
+                MappedByteBuffer cells = channel.map(FileChannel.MapMode.PRIVATE, HEADER_BYTES, size);
+                counts = checkCellBytes(cells, size, file);
+                grid = new MappedCellGrid(rows, cols, cells);
+            } else {
+                PackedCellGrid packed = new PackedCellGrid(rows, cols);
+                if (format == FORMAT_BITS) {
+                    counts = readBits(channel, packed.bytes(), (int) Math.min(BUFFER_BYTES, bodyBytes));
+                    NeighborCounter.countAll(packed);
+                } else {
+                    ByteBuffer cells = ByteBuffer.wrap(packed.bytes());
+                    readFully(channel, cells);
+                    counts = checkCellBytes(cells, size, file);
+                }
+                grid = packed;
+            }
+
+            boolean minesPlaced = (flags & MINES_PLACED) != 0;
+            boolean seeded = (flags & SEEDED) != 0;
+            GameStats stats = new GameStats(totalMines, revealedCells, safeCellsRemaining, flagsPlaced,
+                    (flags & GAME_OVER) != 0, (flags & GAME_WON) != 0);
+            checkCounters(stats, size, minesPlaced, counts, file);
+            // The generator is only used if the mines are still to be placed or moved
+            RandomGenerator random = seeded ? new SplittableRandom(seed) : new SplittableRandom();
+            GameController controller = new GameController(new Board(grid, minesPlaced),
+                    SafeZone.values()[zone], random, stats, (flags & FIRST_MOVE_MADE) != 0);
+            return new GameSnapshot(controller, elapsedMillis, seeded, seed);
+        }
+    }
+
+    /**
+     * Rejects cell bytes that no {@link PackedCellGrid} holds: a neighbor
+     * count above 8, or the unused top bit set. Reads every cell once, which
+     * for a mapped file means paging it in, but copies nothing. Eight cells
+     * are checked per long: a count is above 8 when its 8 bit is set along
+     * with any of the lower three. The same pass counts the cells for
+     * {@link #checkCounters}.
+     *
+     * @return The number of mines, revealed cells, flagged cells and revealed mines.
+     */
+    private static int[] checkCellBytes(ByteBuffer cells, int size, Path file) throws IOException {
+        int[] counts = new int[4];
+        int i = 0;
+        for (; i + 8 <= size; i += 8) {
+            long word = cells.getLong(i);
+            long low = word | word >>> 1 | word >>> 2;
+            if ((word & 0x8080808080808080L) != 0 || (word >>> 3 & low & 0x0101010101010101L) != 0) break;
+            counts[0] += Long.bitCount(word & 0x1010101010101010L);
+            counts[1] += Long.bitCount(word & 0x2020202020202020L);
+            counts[2] += Long.bitCount(word & 0x4040404040404040L);
+            // The mine bit shifted onto the revealed bit of the same byte
+            counts[3] += Long.bitCount(word << 1 & word & 0x2020202020202020L);
+        }
+        for (; i < size; i++) {
+            int cell = cells.get(i);
+            if ((cell & (0x80 | PackedCellGrid.COUNT_MASK)) > 8) {
+                throw new IOException("Corrupt snapshot: cell " + i + " has byte " + (cell & 0xFF) + ": " + file);
+            }
+            boolean mine = (cell & PackedCellGrid.MINE) != 0;
+            boolean revealed = (cell & PackedCellGrid.REVEALED) != 0;
+            if (mine) counts[0]++;
+            if (revealed) counts[1]++;
+            if ((cell & PackedCellGrid.FLAGGED) != 0) counts[2]++;
+            if (mine && revealed) counts[3]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Rejects header counters that the cells contradict, as the controller
+     * keeps them: revealed cells count safe cells only (a lost game reveals
+     * every mine), safe cells left are the safe cells not revealed, every
+     * flag is counted, a board with its mines placed has them all, and a game
+     * is lost exactly when a mine is revealed and won when no safe cell is left.
+     *
+     * @param counts The number of mines, revealed cells, flagged cells and revealed mines.
+     */
+    private static void checkCounters(GameStats stats, int size, boolean minesPlaced, int[] counts, Path file)
+            throws IOException {
+        int revealedSafe = counts[1] - counts[3];
+        boolean lost = counts[3] > 0;
+        String problem = null;
+        if (stats.getTotalMines() < 0 || stats.getTotalMines() >= size
+                || counts[0] != (minesPlaced ? stats.getTotalMines() : 0)) {
+            problem = counts[0] + " mines for " + stats.getTotalMines();
+        } else if (stats.getRevealedCells() != revealedSafe) {
+            problem = revealedSafe + " revealed cells for " + stats.getRevealedCells();
+        } else if (stats.getSafeCellsRemaining() != size - stats.getTotalMines() - revealedSafe) {
+            problem = stats.getSafeCellsRemaining() + " safe cells left for "
+                    + (size - stats.getTotalMines() - revealedSafe);
+        } else if (stats.getFlagsPlaced() != counts[2]) {
+            problem = counts[2] + " flags for " + stats.getFlagsPlaced();
+        } else if (stats.isGameOver() != (lost || stats.getSafeCellsRemaining() == 0)
+                || stats.isGameWon() != (stats.isGameOver() && !lost)) {
+            problem = "game over " + stats.isGameOver() + " and won " + stats.isGameWon()
+                    + " with " + counts[3] + " mines and " + stats.getSafeCellsRemaining() + " safe cells left";
+        }
+        if (problem != null) throw new IOException("Corrupt snapshot: " + problem + ": " + file);
+    }
+
+    /**
+     * Sets the mine, revealed and flagged bits of every cell from the bits body.
+     *
+     * @return The number of mines, revealed cells, flagged cells and revealed mines.
+     */
+    private static int[] readBits(FileChannel channel, byte[] cells, int bufferBytes) throws IOException {
+        int[] counts = new int[4];
+        ByteBuffer buffer = ByteBuffer.allocate(bufferBytes);
+        buffer.limit(0);
+
+        for (int base = 0; base < cells.length; base += 64) {
+            if (buffer.remaining() < 24) {
+                buffer.compact();
+                while (buffer.position() < 24) {
+                    if (channel.read(buffer) < 0) throw new EOFException("Snapshot is truncated");
+                }
+                buffer.flip();
+            }
+            long mines = buffer.getLong();
+            long revealed = buffer.getLong();
+            long flagged = buffer.getLong();
+            setBits(cells, base, mines, PackedCellGrid.MINE);
+            setBits(cells, base, revealed, PackedCellGrid.REVEALED);
+            setBits(cells, base, flagged, PackedCellGrid.FLAGGED);
+            counts[0] += Long.bitCount(mines);
+            counts[1] += Long.bitCount(revealed);
+            counts[2] += Long.bitCount(flagged);
+            counts[3] += Long.bitCount(mines & revealed);
+        }
+        return counts;
+    }
+
+    private static void setBits(byte[] cells, int base, long word, int bit) throws IOException {
+        // Only set bits are visited, so sparse words (most of them) cost almost nothing
+        while (word != 0) {
+            int index = base + Long.numberOfTrailingZeros(word);
+            if (index >= cells.length) throw new IOException("Corrupt snapshot: bit past the last cell");
+            cells[index] |= (byte) bit;
+            word &= word - 1;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new EOFException("Snapshot is truncated");
+        }
+    }
+
+    /**
+     * Gets the saved game, ready to continue.
+     */
+    public GameController getController() {
+        return controller;
+    }
+
+    /**
+     * Gets the time played before the game was saved.
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Checks if the seed the board came from is known.
+     */
+    public boolean hasSeed() {
+        return seeded;
+    }
+
+    /**
+     * Gets the seed the board came from (only meaningful if {@link #hasSeed()}).
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Checks that a loaded game matches the one that was saved, cell by cell.
+     *
+     * @throws IllegalStateException If any cell or counter differs.
+     */
+    static void checkSameGame(GameController saved, GameController loaded) {
+        CellGrid expected = saved.getBoard().getGrid();
+        CellGrid actual = loaded.getBoard().getGrid();
+        if (expected.getRows() != actual.getRows() || expected.getCols() != actual.getCols()) {
+            throw new IllegalStateException("Loaded board has a different size");
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            if (expected.isMine(i) != actual.isMine(i) || expected.isRevealed(i) != actual.isRevealed(i)
+                    || expected.isFlagged(i) != actual.isFlagged(i)
+                    || expected.getNeighborMines(i) != actual.getNeighborMines(i)) {
+                throw new IllegalStateException("Loaded board differs at cell " + i);
+            }
+        }
+        if (!saved.getStats().toString().equals(loaded.getStats().toString())
+                || saved.isFirstMoveMade() != loaded.isFirstMoveMade()
+                || saved.getSafeZone() != loaded.getSafeZone()) {
+            throw new IllegalStateException("Loaded counters differ: " + loaded.getStats());
+        }
+    }
+
+    /**
+     * Round-trip check. Games in several states (not started, in play, lost
+     * and won, on packed and object storage, with sizes that are and are not
+     * a multiple of 64 cells) are saved in both formats and read back, and
+     * bytes files are also mapped; every cell and counter must come back.
+     * Then truncated and corrupted copies of a file, including ones whose
+     * header counters do not match the cells, must all be rejected with an
+     * IOException, and a read-only bytes file must still open with
+     * {@link #map}. Exits with status 1 if any check fails.
+     *
+     * Usage: {@code java -cp out GameSnapshot}
+     */
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("minesweeper-snapshots");
+        Path file = dir.resolve("game.save");
+        Path broken = dir.resolve("broken.save");
+        int checks = 0;
+        int failures = 0;
+        try {
+            int[][] sizes = {{8, 8, 10}, {24, 24, 99}, {7, 13, 20}, {131, 257, 5000}};
+            for (int[] size : sizes) {
+                for (int state = 0; state < 4; state++) {
+                    for (boolean objects : new boolean[] {false, true}) {
+                        GameController game = sampleGame(size[0], size[1], size[2], state, objects);
+                        String name = size[0] + "x" + size[1] + " state " + state + (objects ? " objects" : "");
+                        long seed = 31L * size[0] + state;
+
+                        new GameSnapshot(game, 1234, seed).write(file);
+                        failures += roundTrip(name + " bits", game, file, false);
+                        new GameSnapshot(game, 1234, seed).writeMappable(file);
+                        failures += roundTrip(name + " bytes", game, file, false);
+                        failures += roundTrip(name + " mapped", game, file, true);
+                        checks += 3;
+                    }
+                }
+            }
+
+            GameController game = sampleGame(24, 24, 99, 1, false);
+            new GameSnapshot(game, 0).write(file);
+            byte[] bits = Files.readAllBytes(file);
+            new GameSnapshot(game, 0).writeMappable(file);
+            byte[] cells = Files.readAllBytes(file);
+
+            for (int length : new int[] {0, 10, HEADER_BYTES - 1, HEADER_BYTES, bits.length - 1}) {
+                failures += rejects("bits truncated to " + length, Arrays.copyOf(bits, length), broken, false);
+                checks++;
+            }
+            for (int length : new int[] {HEADER_BYTES, cells.length - 1}) {
+                failures += rejects("bytes truncated to " + length, Arrays.copyOf(cells, length), broken, false);
+                failures += rejects("mapped truncated to " + length, Arrays.copyOf(cells, length), broken, true);
+                checks += 2;
+            }
+            failures += rejects("bits with a byte too many", Arrays.copyOf(bits, bits.length + 1), broken, false);
+            failures += rejects("bits file mapped", bits, broken, true);
+            checks += 2;
+
+            // Header fields: magic, version, format, rows, cols, safe zone
+            int[][] headerDamage = {{0, 'X'}, {5, 2}, {6, 7}, {11, 0}, {15, 0}, {48, 9}};
+            for (int[] damage : headerDamage) {
+                byte[] copy = bits.clone();
+                copy[damage[0]] = (byte) damage[1];
+                failures += rejects("header byte " + damage[0] + " set to " + damage[1], copy, broken, false);
+                checks++;
+            }
+
+            // Cell bytes a packed grid cannot hold: counts 9 to 15 and the top bit
+            for (int bad : new int[] {PackedCellGrid.REVEALED | 9, PackedCellGrid.REVEALED | 15, 0x80}) {
+                byte[] copy = cells.clone();
+                copy[HEADER_BYTES + 100] = (byte) bad;
+                failures += rejects("cell byte " + bad, copy, broken, false);
+                failures += rejects("mapped cell byte " + bad, copy, broken, true);
+                checks += 2;
+            }
+
+            // Counters the cells contradict: total mines, revealed cells, safe cells left, flags, won
+            int[][] counterDamage = {{19, 1}, {23, 1}, {27, 1}, {31, 1}, {7, GAME_WON}};
+            for (int[] damage : counterDamage) {
+                byte[] bitsCopy = bits.clone();
+                byte[] cellsCopy = cells.clone();
+                bitsCopy[damage[0]] ^= (byte) damage[1];
+                cellsCopy[damage[0]] ^= (byte) damage[1];
+                String name = "header byte " + damage[0] + " xor " + damage[1];
+                failures += rejects(name, bitsCopy, broken, false);
+                failures += rejects("bytes " + name, cellsCopy, broken, false);
+                failures += rejects("mapped " + name, cellsCopy, broken, true);
+                checks += 3;
+            }
+
+            // A cell revealed behind the header's back
+            byte[] revealedCopy = cells.clone();
+            int hidden = HEADER_BYTES;
+            while ((revealedCopy[hidden] & (PackedCellGrid.REVEALED | PackedCellGrid.MINE)) != 0) hidden++;
+            revealedCopy[hidden] |= (byte) PackedCellGrid.REVEALED;
+            failures += rejects("cell revealed behind the header", revealedCopy, broken, false);
+            checks++;
+
+            // A read-only file is read instead of mapped
+            new GameSnapshot(game, 1234, 1).writeMappable(broken);
+            broken.toFile().setReadOnly();
+            failures += roundTrip("read-only mapped", game, broken, true);
+            broken.toFile().setWritable(true);
+            checks++;
+
+            // A bit past the last cell of a board whose size is not a multiple of 64
+            new GameSnapshot(sampleGame(7, 13, 20, 1, false), 0).write(file);
+            byte[] odd = Files.readAllBytes(file);
+            // Big-endian, so the top bit of the last flagged word (cell 127 of 91) is 8 bytes from the end
+            odd[odd.length - 8] |= (byte) 0x80;
+            failures += rejects("bit past the last cell", odd, broken, false);
+            checks++;
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(broken);
+            Files.deleteIfExists(dir);
+        }
+
+        System.out.printf("checks=%d failures=%d%n", checks, failures);
+        if (failures > 0) System.exit(1);
+    }
+
+    /**
+     * Creates a seeded game: 0 not started, 1 in play with flags, 2 lost, 3 won.
+     */
+    private static GameController sampleGame(int rows, int cols, int mines, int state, boolean objects) {
+        CellGrid grid = objects ? new ObjectCellGrid(rows, cols) : new PackedCellGrid(rows, cols);
+        SplittableRandom random = new SplittableRandom(rows * 1000L + cols + state);
+        GameController game = new GameController(new Board(grid), mines, SafeZone.NEIGHBORHOOD, random);
+        if (state == 0) return game;
+
+        game.revealCell(rows / 2, cols / 2);
+        for (int i = 0; i < grid.size() && !game.isGameOver(); i++) {
+            int row = i / cols;
+            int col = i % cols;
+            if (grid.isRevealed(i)) continue;
+            if (grid.isMine(i)) {
+                if (state == 2) {
+                    game.revealCell(row, col);
+                } else if (i % 3 == 0) {
+                    game.toggleFlag(row, col);
+                }
+            } else if (state == 3 || i % 5 == 0) {
+                game.revealCell(row, col);
+            }
+        }
+        if (state == 3 && !game.isGameWon()) throw new IllegalStateException("Sample game not won");
+        return game;
+    }
+
+    /**
+     * Reads (or maps) a saved file and compares it with the game.
+     *
+     * @return 1 if it does not match, else 0.
+     */
+    private static int roundTrip(String name, GameController game, Path file, boolean mapped) {
+        try {
+            GameSnapshot loaded = mapped ? map(file) : read(file);
+            checkSameGame(game, loaded.getController());
+            if (loaded.getElapsedMillis() != 1234 || !loaded.hasSeed()) {
+                throw new IllegalStateException("Loaded time or seed differs");
+            }
+            return 0;
+        } catch (IOException | IllegalStateException e) {
+            System.out.println("FAIL " + name + ": " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Writes broken file contents and checks that reading (or mapping) them fails.
+     *
+     * @return 1 if the file was accepted or failed with anything but an IOException, else 0.
+     */
+    private static int rejects(String name, byte[] contents, Path file, boolean mapped) throws IOException {
+        Files.write(file, contents);
+        try {
+            if (mapped) {
+                map(file);
+            } else {
+                read(file);
+            }
+            System.out.println("FAIL " + name + ": accepted");
+            return 1;
+        } catch (IOException e) {
+            return 0;
+        } catch (RuntimeException e) {
+            System.out.println("FAIL " + name + ": " + e);
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Read-only snapshot of the counters kept by a {@link GameController}.
+ */
+public final class GameStats {
+    private final int totalMines;
+    private final int revealedCells;
+    private final int safeCellsRemaining;
+    private final int flagsPlaced;
+    private final boolean gameOver;
+    private final boolean gameWon;
+
+    /**
+     * Creates a snapshot of the game counters.
+     *
+     * @param totalMines Number of mines on the board.
+     * @param revealedCells Number of safe cells revealed so far.
+     * @param safeCellsRemaining Number of safe cells still hidden.
+     * @param flagsPlaced Number of flags currently on the board.
+     * @param gameOver Whether the game has ended.
+     * @param gameWon Whether the game was won.
+     */
+    public GameStats(int totalMines, int revealedCells, int safeCellsRemaining,
+                     int flagsPlaced, boolean gameOver, boolean gameWon) {
+        this.totalMines = totalMines;
+        this.revealedCells = revealedCells;
+        this.safeCellsRemaining = safeCellsRemaining;
+        this.flagsPlaced = flagsPlaced;
+        this.gameOver = gameOver;
+        this.gameWon = gameWon;
+    }
+
+    public int getTotalMines() {
+        return totalMines;
+    }
+
+    public int getRevealedCells() {
+        return revealedCells;
+    }
+
+    public int getSafeCellsRemaining() {
+        return safeCellsRemaining;
+    }
+
+    public int getFlagsPlaced() {
+        return flagsPlaced;
+    }
+
+    /**
+     * Mines left to flag as shown by the classic counter (may go negative).
+     */
+    public int getMinesLeftToFlag() {
+        return totalMines - flagsPlaced;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean isGameWon() {
+        return gameWon;
+    }
+
+    @Override
+    public String toString() {
+        return "GameStats{revealed=" + revealedCells + ", safeRemaining=" + safeCellsRemaining
+                + ", flags=" + flagsPlaced + ", minesLeft=" + getMinesLeftToFlag()
+                + ", over=" + gameOver + ", won=" + gameWon + "}";
+    }
+}
@@ -0,0 +1,59 @@
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+/**
+ * Build step that renders the mine and flag pictures at the size
+ * {@link BoardCanvas} draws them for every zoom level, as the resources
+ * {@link IconSet} loads. Run by {@code build.sh}:
+ *
+ * <pre>
+ * java -cp build/classes IconScaler img build/classes/icons
+ * </pre>
+ */
+public class IconScaler {
+
+    /**
+     * Scales a picture down to a square icon with area averaging, the best
+     * quality for large reductions (512 pixels to a few dozen).
+     *
+     * @param original The full-size picture.
+     * @param size Width and height of the icon in pixels.
+     * @return The icon.
+     */
+    public static BufferedImage scale(BufferedImage original, int size) {
+        Image scaled = original.getScaledInstance(size, size, Image.SCALE_SMOOTH);
+        BufferedImage icon = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = icon.createGraphics();
+        g.drawImage(scaled, 0, 0, null);
+        g.dispose();
+        return icon;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) throw new IllegalArgumentException("Usage: IconScaler <image dir> <output dir>");
+        File in = new File(args[0]);
+        File out = new File(args[1]);
+        if (!out.isDirectory() && !out.mkdirs()) throw new IOException("Cannot create " + out);
+
+        String[][] pictures = {{IconSet.MINE, "mine.png"}, {IconSet.FLAG, "red-flag.png"}};
+        int files = 0;
+        long bytes = 0;
+        for (String[] picture : pictures) {
+            BufferedImage original = ImageIO.read(new File(in, picture[1]));
+            if (original == null) throw new IOException("Not an image: " + picture[1]);
+
+            for (int cellSize = BoardCanvas.MIN_CELL_SIZE; cellSize <= BoardCanvas.MAX_CELL_SIZE;
+                 cellSize += BoardCanvas.ZOOM_STEP) {
+                File file = new File(out, picture[0] + "-" + cellSize + ".png");
+                ImageIO.write(scale(original, BoardCanvas.iconSize(cellSize)), "png", file);
+                files++;
+                bytes += file.length();
+            }
+        }
+        System.out.printf("icons=%d bytes=%d dir=%s%n", files, bytes, out);
+    }
+}
@@ -0,0 +1,102 @@
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+/**
+ * The mine and flag pictures for every zoom level of {@link BoardCanvas},
+ * loaded lazily and off the event dispatch thread.
+ *
+ * {@link IconScaler} renders each picture at the exact size it is drawn at
+ * for every cell size and stores them as classpath resources
+ * ({@code /icons/mine-24.png}), so loading one is reading a few hundred bytes
+ * and drawing it needs no scaling. When the resources are missing (e.g. when
+ * running straight from {@code javac} output), the original pictures in
+ * {@code img/} are read and scaled instead, still in the background.
+ */
+public class IconSet {
+    public static final String MINE = "mine";
+    public static final String FLAG = "flag";
+
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "icon-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Loaded icons by cell size: index 0 is the mine, 1 the flag; null entries failed to load
+    private final Map<Integer, Image[]> loaded = new ConcurrentHashMap<>();
+    private final Map<Integer, Boolean> requested = new ConcurrentHashMap<>();
+    // Unscaled pictures from img/, read only if the resources are missing
+    private BufferedImage[] originals;
+
+    /**
+     * Gets an icon if it is loaded.
+     *
+     * @param name {@link #MINE} or {@link #FLAG}.
+     * @param cellSize The cell size the icon is drawn in.
+     * @return The icon, or null if it is not loaded (yet).
+     */
+    public Image get(String name, int cellSize) {
+        Image[] icons = loaded.get(cellSize);
+        if (icons == null) return null;
+        return icons[MINE.equals(name) ? 0 : 1];
+    }
+
+    /**
+     * Checks if the icons for a cell size have been loaded, or failed to load.
+     */
+    public boolean isLoaded(int cellSize) {
+        return loaded.containsKey(cellSize);
+    }
+
+    /**
+     * Starts loading the icons for a cell size in the background, once.
+     *
+     * @param cellSize The cell size.
+     * @param onLoaded Run on the event dispatch thread when they are ready, or null.
+     */
+    public void load(int cellSize, Runnable onLoaded) {
+        if (requested.putIfAbsent(cellSize, Boolean.TRUE) != null) {
+            // Already loading or loaded: run the callback after that load
+            if (onLoaded != null) LOADER.execute(() -> SwingUtilities.invokeLater(onLoaded));
+            return;
+        }
+        LOADER.execute(() -> {
+            int size = BoardCanvas.iconSize(cellSize);
+            loaded.put(cellSize, new Image[] {read(MINE, cellSize, size), read(FLAG, cellSize, size)});
+            if (onLoaded != null) SwingUtilities.invokeLater(onLoaded);
+        });
+    }
+
+    /**
+     * Reads one pre-scaled icon, falling back to scaling the original picture.
+     * Runs on the loader thread.
+     */
+    private Image read(String name, int cellSize, int size) {
+        try (InputStream in = IconSet.class.getResourceAsStream("/icons/" + name + "-" + cellSize + ".png")) {
+            if (in != null) return ImageIO.read(in);
+        } catch (IOException e) {
+            System.err.println("Failed to load icon " + name + "-" + cellSize + ": " + e.getMessage());
+        }
+
+        if (originals == null) {
+            originals = new BufferedImage[2];
+            try {
+                originals[0] = ImageIO.read(new File("img/mine.png"));
+                originals[1] = ImageIO.read(new File("img/red-flag.png"));
+            } catch (IOException e) {
+                System.err.println("Failed to load icons: " + e.getMessage());
+            }
+        }
+        BufferedImage original = originals[MINE.equals(name) ? 0 : 1];
+        return original == null ? null : IconScaler.scale(original, size);
+    }
+}
@@ -0,0 +1,402 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rebuilds the game recorded in a {@link MoveJournal} at any move.
+ *
+ * The journal is replayed once up front, keeping a checkpoint of the board
+ * every few moves: the revealed and flagged cells as bitsets plus the game
+ * counters. The mines are the same in every checkpoint once placed, so they
+ * are kept once. Seeking to a move restores the nearest checkpoint at or
+ * before it and replays the rest, so any move is at most one interval of
+ * replay away; seeking forward from the current move just keeps replaying.
+ *
+ * Replays run the real {@link GameController} on a headless board, so they
+ * are exact and need no Swing. {@link #replayAll} replays many journals on
+ * all cores for analytics.
+ *
+ * Usage of the demo: {@code java -cp out JournalReplay [--games N]
+ * [--difficulty EASY,HARD] [--seed S] [--threads T] [--seeks N]}
+ */
+public class JournalReplay {
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 256;
+
+    /**
+     * The state of the game after a number of moves.
+     */
+    private static final class Checkpoint {
+        final MoveJournal.Cursor cursor;
+        final long[] revealed;
+        final long[] flagged;
+        final GameStats stats;
+        final boolean firstMoveMade;
+
+        Checkpoint(MoveJournal.Cursor cursor, long[] revealed, long[] flagged, GameStats stats,
+                   boolean firstMoveMade) {
+            this.cursor = cursor;
+            this.revealed = revealed;
+            this.flagged = flagged;
+            this.stats = stats;
+            this.firstMoveMade = firstMoveMade;
+        }
+    }
+
+    private final MoveJournal journal;
+    private final int interval;
+    private final PackedCellGrid grid;
+    private final List<Checkpoint> checkpoints = new ArrayList<>();
+    // Mines and counts without the player's marks, taken after the first reveal
+    private byte[] layout;
+
+    private GameController controller;
+    private MoveJournal.Cursor cursor;
+
+    /**
+     * Prepares a replay with the default checkpoint interval.
+     *
+     * @param journal The recorded game.
+     */
+    public JournalReplay(MoveJournal journal) {
+        this(journal, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Prepares a replay, replaying the whole journal once to take checkpoints.
+     * A shorter interval makes seeks faster and takes more memory, about
+     * a quarter of a byte per cell per checkpoint.
+     *
+     * @param journal The recorded game.
+     * @param interval Moves between checkpoints.
+     * @throws IllegalArgumentException If the interval is not positive.
+     */
+    public JournalReplay(MoveJournal journal, int interval) {
+        if (interval < 1) throw new IllegalArgumentException("Checkpoint interval must be positive: " + interval);
+        this.journal = journal;
+        this.interval = interval;
+
+        BoardSpec spec = journal.getSpec();
+        this.grid = new PackedCellGrid(spec.getRows(), spec.getCols());
+        this.controller = new GameController(new Board(grid), spec.getMines(), spec.getSafeZone(), spec.newRandom());
+        this.cursor = journal.cursor();
+
+        checkpoints.add(checkpoint());
+        int moves = journal.getMoves();
+        while (cursor.getMove() < moves) {
+            step();
+            if (cursor.getMove() % interval == 0) checkpoints.add(checkpoint());
+        }
+    }
+
+    /**
+     * Gets the game as it was after the given number of moves.
+     * The returned controller is only valid until the next seek.
+     *
+     * @param move Number of moves to apply, from 0 (before the first) to the journal's move count.
+     * @return The game at that move.
+     * @throws IllegalArgumentException If the move is out of range.
+     */
+    public GameController seek(int move) {
+        if (move < 0 || move > journal.getMoves()) {
+            throw new IllegalArgumentException("Move out of range 0.." + journal.getMoves() + ": " + move);
+        }
+
+        int nearest = move / interval;
+        if (cursor.getMove() > move || cursor.getMove() < nearest * interval) {
+            restore(checkpoints.get(nearest));
+        }
+        while (cursor.getMove() < move) {
+            step();
+        }
+        return controller;
+    }
+
+    /**
+     * Gets the time of the last applied move since the game started.
+     */
+    public long getMillis() {
+        return cursor.getMillis();
+    }
+
+    /**
+     * Gets the number of checkpoints kept, including the one before the first move.
+     */
+    public int getCheckpoints() {
+        return checkpoints.size();
+    }
+
+    private void step() {
+        cursor.next();
+        apply(controller, cursor);
+        if (layout == null && controller.isFirstMoveMade()) {
+            layout = grid.bytes().clone();
+            for (int i = 0; i < layout.length; i++) {
+                layout[i] &= PackedCellGrid.MINE | PackedCellGrid.COUNT_MASK;
+            }
+        }
+    }
+
+    private Checkpoint checkpoint() {
+        byte[] cells = grid.bytes();
+        long[] revealed = new long[(cells.length + 63) >>> 6];
+        long[] flagged = new long[revealed.length];
+        for (int i = 0; i < cells.length; i++) {
+            if ((cells[i] & PackedCellGrid.REVEALED) != 0) revealed[i >>> 6] |= 1L << i;
+            if ((cells[i] & PackedCellGrid.FLAGGED) != 0) flagged[i >>> 6] |= 1L << i;
+        }
+        return new Checkpoint(cursor.copy(), revealed, flagged, controller.getStats(),
+                controller.isFirstMoveMade());
+    }
+
+    private void restore(Checkpoint checkpoint) {
+        byte[] cells = grid.bytes();
+        // Mines are placed by the first reveal, so before it the board is empty
+        if (checkpoint.firstMoveMade) {
+            System.arraycopy(layout, 0, cells, 0, cells.length);
+        } else {
+            grid.clear();
+        }
+        setBits(cells, checkpoint.revealed, PackedCellGrid.REVEALED);
+        setBits(cells, checkpoint.flagged, PackedCellGrid.FLAGGED);
+
+        BoardSpec spec = journal.getSpec();
+        controller = new GameController(new Board(grid, checkpoint.firstMoveMade), spec.getSafeZone(),
+                spec.newRandom(), checkpoint.stats, checkpoint.firstMoveMade);
+        cursor = checkpoint.cursor.copy();
+    }
+
+    private static void setBits(byte[] cells, long[] bits, int bit) {
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                cells[(w << 6) + Long.numberOfTrailingZeros(word)] |= (byte) bit;
+                word &= word - 1;
+            }
+        }
+    }
+
+    private static void apply(GameController controller, MoveJournal.Cursor cursor) {
+        int cols = controller.getBoard().getCols();
+        int row = cursor.getCell() / cols;
+        int col = cursor.getCell() % cols;
+        if (cursor.isFlag()) {
+            controller.toggleFlag(row, col);
+        } else {
+            controller.revealCell(row, col);
+        }
+    }
+
+    /**
+     * Replays a whole journal from the first move, without checkpoints.
+     *
+     * @param journal The recorded game.
+     * @return The game after its last recorded move.
+     */
+    public static GameController replay(MoveJournal journal) {
+        GameController controller = new GameController(journal.getSpec());
+        MoveJournal.Cursor cursor = journal.cursor();
+        while (cursor.next()) {
+            apply(controller, cursor);
+        }
+        return controller;
+    }
+
+    /**
+     * Replays many journals on a pool of worker threads.
+     *
+     * @param journals The recorded games.
+     * @param threads Number of worker threads.
+     * @return The final counters of each game, in the order of the journals.
+     */
+    public static List<GameStats> replayAll(List<MoveJournal> journals, int threads) throws InterruptedException {
+        GameStats[] results = new GameStats[journals.size()];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < results.length) {
+                    results[i] = replay(journals.get(i)).getStats();
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Replay worker failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return List.of(results);
+    }
+
+    /**
+     * Records games played by the solver, replays them all in a batch and checks
+     * every replay ends exactly like the recorded game, then times seeks into a
+     * long game with and without checkpoints.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Options options = new Options(args, "--games", "--difficulty", "--seed", "--threads", "--seeks");
+        int games = options.getInt("--games", 10_000);
+        String difficulties = options.get("--difficulty", "EASY,MEDIUM,HARD");
+        long seed = options.getLong("--seed", 1);
+        int threads = options.getInt("--threads", Runtime.getRuntime().availableProcessors());
+        int seeks = options.getInt("--seeks", 1_000);
+
+        System.out.printf("games=%d seed=%d threads=%d%n", games, seed, threads);
+        for (String name : difficulties.split(",")) {
+            BoardSpec base = BoardSpec.parse(name, SafeZone.NEIGHBORHOOD);
+            List<MoveJournal> journals = new ArrayList<>(games);
+            List<GameStats> recorded = new ArrayList<>(games);
+            SolverStrategy strategy = new SolverStrategy();
+            long bytes = 0;
+            long moves = 0;
+
+            for (int g = 0; g < games; g++) {
+                long gameSeed = seed + g * 0x9E3779B97F4A7C15L;
+                GameController controller = record(base.withSeed(gameSeed), strategy, new SplittableRandom(gameSeed));
+                journals.add(controller.getJournal());
+                recorded.add(controller.getStats());
+                bytes += controller.getJournal().getEncodedBytes();
+                moves += controller.getJournal().getMoves();
+            }
+
+            long start = System.nanoTime();
+            List<GameStats> replayed = replayAll(journals, threads);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            int mismatches = 0;
+            for (int g = 0; g < games; g++) {
+                if (!recorded.get(g).toString().equals(replayed.get(g).toString())) mismatches++;
+            }
+            System.out.printf("%-10s journals/s=%.0f moves/s=%.0f bytes/move=%.2f mismatches=%d%n",
+                    name.trim(), games / seconds, moves / seconds, (double) bytes / moves, mismatches);
+        }
+
+        checkResume(new BoardSpec(30, 30, 150, SafeZone.NEIGHBORHOOD, seed));
+        benchmarkSeeks(new BoardSpec(256, 256, 256 * 256 / 8, SafeZone.NEIGHBORHOOD, seed), seeks);
+    }
+
+    /**
+     * Records half a game, writes the journal and reads it back, then plays
+     * on with the journal read back attached, as when a saved game is
+     * continued. The journal must take the new moves and replay into the
+     * game that was played.
+     *
+     * @throws IllegalStateException If it does not.
+     */
+    private static void checkResume(BoardSpec spec) {
+        GameController controller = new GameController(spec);
+        controller.setJournal(new MoveJournal(spec));
+        int cols = spec.getCols();
+        controller.revealCell(spec.getRows() / 2, cols / 2);
+
+        CellGrid grid = controller.getBoard().getGrid();
+        int[] order = new SplittableRandom(spec.getSeed()).ints(0, grid.size())
+                .distinct().limit(grid.size()).toArray();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (int i = 0; i < order.length; i++) {
+                if (i == order.length / 2) {
+                    controller.getJournal().write(out);
+                    MoveJournal resumed = MoveJournal.read(new ByteArrayInputStream(out.toByteArray()));
+                    controller = replay(resumed);
+                    controller.setJournal(resumed);
+                    grid = controller.getBoard().getGrid();
+                }
+                int cell = order[i];
+                if (grid.isMine(cell)) {
+                    controller.toggleFlag(cell / cols, cell % cols);
+                } else if (!grid.isRevealed(cell)) {
+                    controller.revealCell(cell / cols, cell % cols);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (!controller.isGameWon()) throw new IllegalStateException("Resumed game was not won");
+        String replayed = replay(controller.getJournal()).getStats().toString();
+        if (!replayed.equals(controller.getStats().toString())) {
+            throw new IllegalStateException("Resumed journal replays to " + replayed
+                    + " instead of " + controller.getStats());
+        }
+        System.out.printf("resume %s moves=%d ok%n", spec, controller.getJournal().getMoves());
+    }
+
+    /**
+     * Plays one game with a strategy, recording it.
+     */
+    private static GameController record(BoardSpec spec, MoveStrategy strategy, SplittableRandom random) {
+        GameController controller = new GameController(spec);
+        controller.setJournal(new MoveJournal(spec));
+        strategy.newGame(controller);
+        int cols = spec.getCols();
+        while (!controller.isGameOver()) {
+            int move = strategy.nextMove(controller, random);
+            if (move < 0) break;
+            controller.revealCell(move / cols, move % cols);
+        }
+        return controller;
+    }
+
+    /**
+     * Records a long game (every safe cell opened in random order, with some
+     * flags placed and removed on the way) and times random seeks into it.
+     */
+    private static void benchmarkSeeks(BoardSpec spec, int seeks) {
+        GameController controller = new GameController(spec);
+        MoveJournal journal = new MoveJournal(spec);
+        controller.setJournal(journal);
+        SplittableRandom random = new SplittableRandom(spec.getSeed());
+        int cols = spec.getCols();
+
+        controller.revealCell(spec.getRows() / 2, cols / 2);
+        CellGrid grid = controller.getBoard().getGrid();
+        int[] order = random.ints(0, grid.size()).distinct().limit(grid.size()).toArray();
+        for (int cell : order) {
+            if (grid.isMine(cell)) {
+                controller.toggleFlag(cell / cols, cell % cols);
+            } else if (!grid.isRevealed(cell)) {
+                if (grid.isFlagged(cell)) controller.toggleFlag(cell / cols, cell % cols);
+                controller.revealCell(cell / cols, cell % cols);
+            }
+        }
+
+        String expected = controller.getStats().toString();
+        int moves = journal.getMoves();
+        int[] targets = random.ints(seeks, 0, moves + 1).toArray();
+
+        for (int interval : new int[] {Integer.MAX_VALUE, DEFAULT_CHECKPOINT_INTERVAL}) {
+            long prepare = System.nanoTime();
+            JournalReplay replay = new JournalReplay(journal, interval);
+            double prepareMillis = (System.nanoTime() - prepare) / 1e6;
+            if (!replay.seek(moves).getStats().toString().equals(expected)) {
+                throw new IllegalStateException("Replay does not end like the recorded game");
+            }
+
+            LatencyHistogram latency = new LatencyHistogram();
+            for (int target : targets) {
+                long start = System.nanoTime();
+                replay.seek(target);
+                latency.record(System.nanoTime() - start);
+            }
+            System.out.printf("seek %s moves=%d checkpoints=%d prepare=%.1fms %s%n",
+                    spec, moves, replay.getCheckpoints(), prepareMillis, latency);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import java.nio.ByteBuffer;
+
+/**
+ * CellGrid over a byte buffer, typically a memory-mapped {@link GameSnapshot}
+ * file. Cells use the same one-byte layout as {@link PackedCellGrid}, so a
+ * saved board can be played straight from the mapping: the operating system
+ * pages cells in as they are touched and nothing is copied onto the heap.
+ */
+public class MappedCellGrid implements CellGrid {
+    private final int rows;
+    private final int cols;
+    private final ByteBuffer cells;
+
+    /**
+     * Creates a grid over existing cell bytes.
+     *
+     * @param rows Number of rows in the grid.
+     * @param cols Number of columns in the grid.
+     * @param cells Buffer holding rows * cols cell bytes from index 0.
+     * @throws IllegalArgumentException If the buffer is smaller than the grid.
+     */
+    public MappedCellGrid(int rows, int cols, ByteBuffer cells) {
+        int size = Math.multiplyExact(rows, cols);
+        if (cells.capacity() < size) {
+            throw new IllegalArgumentException("Buffer holds " + cells.capacity() + " cells, grid needs " + size);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = cells;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    @Override
+    public int size() {
+        return rows * cols;
+    }
+
+    @Override
+    public boolean isMine(int index) {
+        return (cells.get(index) & PackedCellGrid.MINE) != 0;
+    }
+
+    @Override
+    public boolean isRevealed(int index) {
+        return (cells.get(index) & PackedCellGrid.REVEALED) != 0;
+    }
+
+    @Override
+    public boolean isFlagged(int index) {
+        return (cells.get(index) & PackedCellGrid.FLAGGED) != 0;
+    }
+
+    @Override
+    public int getNeighborMines(int index) {
+        return cells.get(index) & PackedCellGrid.COUNT_MASK;
+    }
+
+    @Override
+    public void setMine(int index) {
+        cells.put(index, (byte) (cells.get(index) | PackedCellGrid.MINE));
+    }
+
+    @Override
+    public void clearMine(int index) {
+        cells.put(index, (byte) (cells.get(index) & ~PackedCellGrid.MINE));
+    }
+
+    @Override
+    public void reveal(int index) {
+        cells.put(index, (byte) (cells.get(index) | PackedCellGrid.REVEALED));
+    }
+
+    @Override
+    public void hide(int index) {
+        cells.put(index, (byte) (cells.get(index) & ~PackedCellGrid.REVEALED));
+    }
+
+    @Override
+    public void toggleFlag(int index) {
+        cells.put(index, (byte) (cells.get(index) ^ PackedCellGrid.FLAGGED));
+    }
+
+    @Override
+    public void setNeighborMines(int index, int count) {
+        cells.put(index, (byte) ((cells.get(index) & ~PackedCellGrid.COUNT_MASK) | count));
+    }
+
+    @Override
+    public void clear() {
+        int size = size();
+        for (int i = 0; i < size; i++) {
+            cells.put(i, (byte) 0);
+        }
+    }
+
+    /**
+     * Returns a detached copy of the cell's state.
+     */
+    @Override
+    public Cell getCell(int index) {
+        int bits = cells.get(index);
+        Cell cell = new Cell();
+        if ((bits & PackedCellGrid.MINE) != 0) cell.setMine();
+        if ((bits & PackedCellGrid.REVEALED) != 0) cell.reveal();
+        if ((bits & PackedCellGrid.FLAGGED) != 0) cell.toggleFlag();
+        cell.setNeighborMines(bits & PackedCellGrid.COUNT_MASK);
+        return cell;
+    }
+}
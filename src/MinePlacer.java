@@ -0,0 +1,102 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Places mines uniformly at random over a range of flat cell indices.
+ *
+ * Uses Floyd's sampling algorithm (a partial Fisher-Yates shuffle that needs
+ * no index array): it draws exactly one random number per mine, so it runs in
+ * O(mines) whatever the density, and uses the grid's own mine bits as the
+ * "already chosen" set. Excluded cells (the safe zone) are skipped by
+ * remapping the sample space, so they never cause retries either.
+ */
+public final class MinePlacer {
+
+    private MinePlacer() {
+    }
+
+    /**
+     * Places mines in the cells {@code [from, to)} of the grid.
+     * The range must not contain any mines yet.
+     *
+     * @param grid The cell storage to place mines in.
+     * @param from First flat index of the range (inclusive).
+     * @param to Last flat index of the range (exclusive).
+     * @param excluded Sorted flat indices inside the range that must stay free.
+     * @param count Number of mines to place.
+     * @param random Source of randomness.
+     * @throws IllegalArgumentException If the mines do not fit in the range.
+     */
+    public static void place(CellGrid grid, int from, int to, int[] excluded,
+                             int count, RandomGenerator random) {
+        int available = to - from - excluded.length;
+        if (count < 0 || count > available) {
+            throw new IllegalArgumentException("Cannot place " + count + " mines in "
+                    + available + " free cells");
+        }
+
+        // Floyd: for each j in [available - count, available), pick t in [0, j];
+        // if t is already taken, take j instead (which cannot be taken yet).
+        for (int j = available - count; j < available; j++) {
+            int index = toCellIndex(random.nextInt(j + 1), from, excluded);
+            if (grid.isMine(index)) {
+                index = toCellIndex(j, from, excluded);
+            }
+            grid.setMine(index);
+        }
+    }
+
+    /**
+     * Picks distinct cells uniformly at random from {@code [from, to)} without
+     * placing anything, e.g. to move a few mines whose neighbor counts the
+     * caller updates. The range may hold mines; list them in excluded to keep
+     * them from being picked. Picks are checked against each other one by one,
+     * so this is meant for small counts.
+     *
+     * @param from First flat index of the range (inclusive).
+     * @param to Last flat index of the range (exclusive).
+     * @param excluded Sorted flat indices inside the range that must not be picked.
+     * @param count Number of cells to pick.
+     * @param random Source of randomness.
+     * @return The picked flat indices.
+     * @throws IllegalArgumentException If there are fewer than count cells to pick from.
+     */
+    public static int[] choose(int from, int to, int[] excluded, int count, RandomGenerator random) {
+        int available = to - from - excluded.length;
+        if (count < 0 || count > available) {
+            throw new IllegalArgumentException("Cannot place " + count + " mines in "
+                    + available + " free cells");
+        }
+
+        int[] chosen = new int[count];
+        for (int j = available - count, n = 0; j < available; j++, n++) {
+            int index = toCellIndex(random.nextInt(j + 1), from, excluded);
+            for (int k = 0; k < n; k++) {
+                if (chosen[k] == index) {
+                    index = toCellIndex(j, from, excluded);
+                    break;
+                }
+            }
+            chosen[n] = index;
+        }
+        return chosen;
+    }
+
+    /**
+     * Maps a position in the sample space (free cells only) to a flat cell index.
+     * Excluded cell k has {@code excluded[k] - from - k} free cells before it,
+     * so the cells to skip are found by binary search.
+     */
+    private static int toCellIndex(int position, int from, int[] excluded) {
+        int low = 0;
+        int high = excluded.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (excluded[mid] - from - mid <= position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return from + position + low;
+    }
+}
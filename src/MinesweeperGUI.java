@@ -1,70 +1,98 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.*;
-import javax.imageio.ImageIO;
-import java.io.File;
-import java.io.IOException;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseEvent;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Minesweeper GUI with custom dark theme and small icons.
+ * Moves are played by a {@link GameEngine} on its own thread; the window only
+ * submits clicks and paints the {@link BoardView} the engine's deltas update.
  */
 public class MinesweeperGUI {
-    private final Difficulty difficulty;
-    private GameController controller;
+    private final BoardSpec spec;
+    private GameEngine engine;
+    private BoardView view;
+    private final BoardPool pool;
+    private NoGuessGenerator generator;
+    private boolean generating;
 
-    private final int rows, cols;
-    private final JButton[][] buttons;
+    private BoardCanvas canvas;
+    private JLabel loadingLabel;
 
     private JFrame frame;
     private JLabel timerLabel;
+    private JLabel minesLabel;
     private Timer timer;
     private int elapsedSeconds;
 
-    // Custom colors matching the theme
-    private final Color BG_DARK = Color.decode("#096B68");
-    private final Color BG_TEAL = Color.decode("#129990");
-    private final Color BG_MINT = Color.decode("#90D1CA");
-    private final Color FG_LIGHT = Color.decode("#FFFBDE");
-
-    private ImageIcon mineIcon;
-    private ImageIcon flagIcon;
+    // Custom colors matching the theme (also used by BoardCanvas)
+    static final Color BG_DARK = Color.decode("#096B68");
+    static final Color BG_TEAL = Color.decode("#129990");
+    static final Color BG_MINT = Color.decode("#90D1CA");
+    static final Color FG_LIGHT = Color.decode("#FFFBDE");
+
+    private static final int CELL_SIZE = 24;
+    // Longest the first click waits for a no-guess board before taking a random one
+    private static final long NO_GUESS_TIMEOUT_MILLIS = 2_000;
+    private static final int POOL_CAPACITY = 4;
+    private static final long POOL_MAX_CELLS = 16_000_000;
+    private static final String CUSTOM = "CUSTOM";
+    // Interval of the event dispatch thread stall probe when metrics are on
+    private static final long STALL_PROBE_MILLIS = 100;
+    // -Dminesweeper.startup=print reports startup times, =exit also quits once the board is painted
+    private static final String STARTUP_PROBE = System.getProperty("minesweeper.startup");
+    private static final Set<String> startupStages = ConcurrentHashMap.newKeySet();
+
+    private final IconSet icons = new IconSet();
+    private JCheckBox noGuessBox;
 
     /**
-     * Constructor initializes variables, loads icons, sets up game and builds UI.
+     * Creates the game window for a difficulty level.
      */
     public MinesweeperGUI(Difficulty difficulty) {
-        this.difficulty = difficulty;
-        this.rows = difficulty.getRows();
-        this.cols = difficulty.getCols();
-        this.buttons = new JButton[rows][cols];
-
-        loadIcons();
-        setupGame();
-        buildUI();
+        this(difficulty.toSpec());
     }
 
     /**
-     * Loads and scales icons from files.
+     * Constructor shows the window first, then sets up the game in the
+     * background while the icons load. Works for boards of any size.
      */
-    private void loadIcons() {
-        try {
-            Image mine = ImageIO.read(new File("img/mine.png")).getScaledInstance(20, 20, Image.SCALE_SMOOTH);
-            Image flag = ImageIO.read(new File("img/red-flag.png")).getScaledInstance(20, 20, Image.SCALE_SMOOTH);
-            mineIcon = new ImageIcon(mine);
-            flagIcon = new ImageIcon(flag);
-        } catch (IOException e) {
-            System.err.println("Failed to load icons: " + e.getMessage());
-        }
+    public MinesweeperGUI(BoardSpec spec) {
+        this.spec = spec;
+        icons.load(CELL_SIZE, null);
+        // Keep fewer boards ready when each one is large
+        int capacity = (int) Math.max(1, Math.min(POOL_CAPACITY, POOL_MAX_CELLS / spec.getCells()));
+        this.pool = new BoardPool(spec, capacity);
+
+        buildUI();
+        startFirstGame();
     }
 
     /**
-     * Sets up the game controller and resets timer count.
+     * Sets up the game (on a pre-generated board when one is ready)
+     * and resets timer count.
      */
     private void setupGame() {
-        controller = new GameController(difficulty);
+        startEngine(pool.take());
         elapsedSeconds = 0;
     }
 
+    /**
+     * Hands a game to a new engine, stopping the previous one, and shows it.
+     */
+    private void startEngine(GameController controller) {
+        if (engine != null) engine.shutdown();
+        controller.setUndoEnabled(true);
+        view = new BoardView(controller);
+        engine = new GameEngine(controller, this::updateBoard);
+        if (canvas != null) canvas.setView(view);
+    }
+
     /**
      * Builds the GUI components and lays them out.
      */
@@ -74,15 +102,65 @@ public class MinesweeperGUI {
         frame.setLayout(new BorderLayout());
 
         frame.add(createTopPanel(), BorderLayout.NORTH);
-        frame.add(createGridPanel(), BorderLayout.CENTER);
+        frame.add(createLoadingLabel(), BorderLayout.CENTER);
 
         setupTimer();
+        if (EngineMetrics.ENABLED) startStallWatchdog();
 
         frame.pack();
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
     }
 
+    /**
+     * Creates the message shown where the board goes while the first game is
+     * set up, taking the same space so the window does not jump.
+     */
+    private JLabel createLoadingLabel() {
+        loadingLabel = new JLabel("Loading...", SwingConstants.CENTER) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                markStartup("frame");
+            }
+        };
+        loadingLabel.setOpaque(true);
+        loadingLabel.setBackground(BG_DARK);
+        loadingLabel.setForeground(FG_LIGHT);
+        loadingLabel.setPreferredSize(BoardCanvas.viewportSize(spec.getRows(), spec.getCols(), CELL_SIZE));
+        return loadingLabel;
+    }
+
+    /**
+     * Takes the first board off the event dispatch thread (allocating it if
+     * the pool is still empty), then replaces the loading message with it and
+     * starts the timer. Clicks and buttons wait until then.
+     */
+    private void startFirstGame() {
+        generating = true;
+        new SwingWorker<GameController, Void>() {
+            @Override
+            protected GameController doInBackground() {
+                return pool.take();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    startEngine(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Board setup failed: " + e.getMessage());
+                    startEngine(new GameController(spec));
+                }
+                frame.remove(loadingLabel);
+                frame.add(createBoardView(), BorderLayout.CENTER);
+                frame.revalidate();
+                generating = false;
+                timer.start();
+            }
+        }.execute();
+    }
+
     /**
      * Creates the top panel containing the timer and restart button.
      */
@@ -95,162 +173,319 @@ public class MinesweeperGUI {
         timerLabel.setFont(new Font("Monospaced", Font.BOLD, 16));
         topPanel.add(timerLabel, BorderLayout.WEST);
 
-        JButton restartBtn = new JButton("Restart");
-        restartBtn.setFocusPainted(false);
-        restartBtn.setBackground(BG_MINT);
-        restartBtn.setForeground(Color.BLACK);
-        restartBtn.addActionListener(e -> restartGame());
-        topPanel.add(restartBtn, BorderLayout.EAST);
+        minesLabel = new JLabel("Mines: " + spec.getMines(), SwingConstants.CENTER);
+        minesLabel.setForeground(FG_LIGHT);
+        minesLabel.setFont(new Font("Monospaced", Font.BOLD, 16));
+        topPanel.add(minesLabel, BorderLayout.CENTER);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 4, 0));
+        buttonPanel.setOpaque(false);
+        noGuessBox = new JCheckBox("No guess");
+        noGuessBox.setToolTipText("Generate boards that can be solved without guessing");
+        noGuessBox.setFocusPainted(false);
+        noGuessBox.setOpaque(false);
+        noGuessBox.setForeground(FG_LIGHT);
+        buttonPanel.add(noGuessBox);
+        buttonPanel.add(createTopButton("Undo", e -> undo()));
+        buttonPanel.add(createTopButton("Redo", e -> redo()));
+        buttonPanel.add(createTopButton("Hint", e -> showHint()));
+        buttonPanel.add(createTopButton("Auto", e -> autoPlay()));
+        buttonPanel.add(createTopButton("Restart", e -> restartGame()));
+        if (EngineMetrics.ENABLED) buttonPanel.add(createTopButton("Metrics", e -> showMetrics()));
+        topPanel.add(buttonPanel, BorderLayout.EAST);
 
         return topPanel;
     }
 
     /**
-     * Creates the grid panel containing buttons representing cells.
+     * Creates a button styled for the top panel.
+     */
+    private JButton createTopButton(String text, ActionListener action) {
+        JButton button = new JButton(text);
+        button.setFocusPainted(false);
+        button.setBackground(BG_MINT);
+        button.setForeground(Color.BLACK);
+        button.addActionListener(action);
+        return button;
+    }
+
+    /**
+     * Creates the scrollable board view that draws and handles all cells.
      */
-    private JPanel createGridPanel() {
-        JPanel grid = new JPanel(new GridLayout(rows, cols));
-        grid.setBackground(BG_DARK);
-
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                JButton btn = new JButton();
-                btn.setBackground(BG_TEAL);
-                btn.setForeground(FG_LIGHT);
-                btn.setFocusPainted(false);
-                btn.setFont(new Font("Monospaced", Font.BOLD, 14));
-                btn.setMargin(new Insets(1, 1, 1, 1));
-
-                final int row = r;
-                final int col = c;
-
-                btn.addMouseListener(new MouseAdapter() {
-                    @Override
-                    public void mouseClicked(MouseEvent e) {
-                        if (controller.isGameOver()) return;
-
-                        if (SwingUtilities.isLeftMouseButton(e)) {
-                            controller.revealCell(row, col);
-                            updateBoard();
-                            if (controller.isGameOver()) showResult();
-                        } else if (SwingUtilities.isRightMouseButton(e)) {
-                            controller.toggleFlag(row, col);
-                            updateBoard();
-                        }
-                    }
-                });
-
-                buttons[r][c] = btn;
-                grid.add(btn);
+    private JScrollPane createBoardView() {
+        canvas = new BoardCanvas(view, CELL_SIZE, icons, (row, col, button) -> {
+            if (view.getStats().isGameOver() || generating) return;
+
+            if (button == MouseEvent.BUTTON3) {
+                engine.flag(row, col);
+            } else if (button == MouseEvent.BUTTON2 || view.isNumber(view.indexOf(row, col))) {
+                engine.chord(row, col);
+            } else if (noGuessBox.isSelected() && view.getStats().getRevealedCells() == 0
+                    && view.getSequence() == engine.getSubmitted()) {
+                // Only when no move is still on its way to the view
+                startNoGuessGame(row, col);
+            } else {
+                engine.reveal(row, col);
             }
-        }
-        return grid;
+        }) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                markStartup("board");
+            }
+        };
+
+        JScrollPane scrollPane = new JScrollPane(canvas);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        scrollPane.getViewport().setBackground(BG_DARK);
+        return scrollPane;
+    }
+
+    /**
+     * Generates a no-guess board for the first click in the background, then
+     * starts it with that click. Clicks are ignored until the board is ready.
+     */
+    private void startNoGuessGame(int row, int col) {
+        if (generator == null) generator = new NoGuessGenerator(spec.withSafeZone(SafeZone.NEIGHBORHOOD));
+        GameEngine pending = engine;
+        generating = true;
+        minesLabel.setText("Generating...");
+        canvas.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+
+        new SwingWorker<NoGuessGenerator.Result, Void>() {
+            @Override
+            protected NoGuessGenerator.Result doInBackground() throws InterruptedException {
+                return generator.generate(row, col, new SplittableRandom().nextLong(), NO_GUESS_TIMEOUT_MILLIS);
+            }
+
+            @Override
+            protected void done() {
+                generating = false;
+                canvas.setCursor(Cursor.getDefaultCursor());
+                // Ignore the board if the game was restarted meanwhile
+                if (engine != pending) return;
+
+                GameController controller;
+                try {
+                    controller = generator.newGame(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("No-guess generation failed: " + e.getMessage());
+                    controller = new GameController(spec);
+                }
+                startEngine(controller);
+                minesLabel.setText("Mines: " + view.getStats().getMinesLeftToFlag());
+                engine.reveal(row, col);
+            }
+        }.execute();
     }
 
     /**
      * Sets up the timer that updates the elapsed time every second.
+     * It starts when the first board is shown.
      */
     private void setupTimer() {
         timer = new Timer(1000, e -> {
             elapsedSeconds++;
             timerLabel.setText("Time: " + elapsedSeconds);
         });
-        timer.start();
     }
 
     /**
-     * Restarts the game: resets game logic, timer, and UI buttons.
+     * Restarts the game: resets game logic, timer, and the board view.
      */
     private void restartGame() {
+        if (canvas == null) return;
         timer.stop();
         setupGame();
 
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                JButton btn = buttons[r][c];
-                btn.setText("");
-                btn.setIcon(null);
-                btn.setBackground(BG_TEAL);
-                btn.setEnabled(true);
-            }
-        }
-
         elapsedSeconds = 0;
         timerLabel.setText("Time: 0");
+        minesLabel.setText("Mines: " + view.getStats().getMinesLeftToFlag());
         timer.start();
     }
 
     /**
-     * Updates buttons to reflect the current board state.
+     * Takes back the last move; the timer resumes if it ended the game.
      */
-    private void updateBoard() {
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                Cell cell = controller.getBoard().getCell(r, c);
-                JButton btn = buttons[r][c];
-
-                if (cell.isRevealed()) {
-                    btn.setEnabled(false);
-                    btn.setBackground(BG_DARK);
-                    if (cell.isMine()) {
-                        btn.setIcon(mineIcon);
-                        btn.setText("");
-                    } else {
-                        int count = cell.getNeighborMines();
-                        btn.setText(count > 0 ? String.valueOf(count) : "");
-                        btn.setIcon(null);
-                    }
-                } else if (cell.isFlagged()) {
-                    btn.setIcon(flagIcon);
-                    btn.setText("");
-                } else {
-                    btn.setIcon(null);
-                    btn.setText("");
-                    btn.setEnabled(true);
-                    btn.setBackground(BG_TEAL);
-                }
+    private void undo() {
+        if (!generating) engine.undo();
+    }
+
+    /**
+     * Plays the last undone move again.
+     */
+    private void redo() {
+        if (!generating) engine.redo();
+    }
+
+    /**
+     * Highlights a cell the solver proved safe (or a mine to flag).
+     */
+    private void showHint() {
+        if (generating) return;
+        GameStats stats = view.getStats();
+        if (stats.isGameOver() || stats.getRevealedCells() == 0) return;
+
+        engine.hint(hint -> {
+            if (hint == null) {
+                JOptionPane.showMessageDialog(frame, "No certain move left - you have to guess.");
+                return;
             }
+            canvas.setHighlight(hint.getRow(), hint.getCol());
+        });
+    }
+
+    /**
+     * Lets the solver reveal every cell it can prove safe.
+     */
+    private void autoPlay() {
+        if (generating) return;
+        GameStats stats = view.getStats();
+        if (stats.isGameOver() || stats.getRevealedCells() == 0) return;
+
+        canvas.setHighlight(-1, -1);
+        engine.autoPlay();
+    }
+
+    /**
+     * Applies the engine's changes to the view and repaints the changed cells.
+     * Shows the result when the game ends, and restarts the timer when an undo
+     * takes the end back.
+     */
+    private void updateBoard(GameEngine.Delta delta) {
+        long start = EngineMetrics.start();
+        boolean wasOver = view.getStats().isGameOver();
+        view.apply(delta);
+        canvas.setHighlight(-1, -1);
+        canvas.repaintCells(delta);
+        minesLabel.setText("Mines: " + view.getStats().getMinesLeftToFlag());
+        EngineMetrics.stop(EngineMetrics.Metric.UPDATE_BOARD, start);
+
+        boolean over = view.getStats().isGameOver();
+        if (over && !wasOver) {
+            showResult();
+        } else if (!over && wasOver) {
+            timer.start();
         }
     }
 
+    /**
+     * Measures how long the event dispatch thread takes to run a task posted
+     * every STALL_PROBE_MILLIS, i.e. how long input waits behind other work.
+     */
+    private static void startStallWatchdog() {
+        java.util.Timer probe = new java.util.Timer("edt-stall-probe", true);
+        probe.scheduleAtFixedRate(new java.util.TimerTask() {
+            @Override
+            public void run() {
+                long posted = System.nanoTime();
+                SwingUtilities.invokeLater(() ->
+                        EngineMetrics.record(EngineMetrics.Metric.EDT_STALL, System.nanoTime() - posted));
+            }
+        }, STALL_PROBE_MILLIS, STALL_PROBE_MILLIS);
+    }
+
+    /**
+     * Shows the metrics recorded so far as CSV.
+     */
+    private void showMetrics() {
+        JTextArea text = new JTextArea(EngineMetrics.toCsv());
+        text.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        text.setEditable(false);
+        JOptionPane.showMessageDialog(frame, new JScrollPane(text), "Metrics", JOptionPane.PLAIN_MESSAGE);
+    }
+
     /**
      * Shows a message dialog indicating whether the player won or lost.
      */
     private void showResult() {
         timer.stop();
-        String message = controller.isGameWon() ? "You won!" : "You hit a mine!";
+        String message = view.getStats().isGameWon() ? "You won!" : "You hit a mine!";
         JOptionPane.showMessageDialog(frame, message);
     }
 
+    /**
+     * Prints how long after the JVM started a stage was first painted, once
+     * per stage, when the startup probe is on.
+     */
+    private static void markStartup(String stage) {
+        if (STARTUP_PROBE == null || !startupStages.add(stage)) return;
+
+        long now = System.currentTimeMillis();
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.out.println("startup " + stage + "=" + (now - jvmStart) + "ms");
+        if (stage.equals("board") && STARTUP_PROBE.equals("exit")) System.exit(0);
+    }
+
     /**
      * Shows the difficulty selector dialog and starts the game.
+     * {@code --difficulty HARD} (or {@code 100x100:1500}) skips the dialog.
      */
     public static void main(String[] args) {
+        String difficulty = new Options(args, "--difficulty").get("--difficulty", null);
+        BoardSpec preset = difficulty == null ? null : BoardSpec.parse(difficulty, SafeZone.CELL);
         SwingUtilities.invokeLater(() -> {
-            Difficulty difficulty = showDifficultyDialog();
-            if (difficulty != null) {
-                new MinesweeperGUI(difficulty);
+            BoardSpec spec = preset != null ? preset : showDifficultyDialog();
+            if (spec != null) {
+                new MinesweeperGUI(spec);
             }
         });
     }
 
     /**
-     * Displays a dialog for the player to select difficulty.
+     * Displays a dialog for the player to select difficulty or a custom size.
      * 
-     * @return The selected difficulty or null if canceled.
+     * @return The selected board spec or null if canceled.
      */
-    private static Difficulty showDifficultyDialog() {
+    private static BoardSpec showDifficultyDialog() {
         Difficulty[] options = Difficulty.values();
-        String[] names = new String[options.length];
+        String[] names = new String[options.length + 1];
 
         for (int i = 0; i < options.length; i++) {
             names[i] = options[i].name();
         }
+        names[options.length] = CUSTOM;
 
         String choice = (String) JOptionPane.showInputDialog(null,
                 "Select Difficulty:", "Minesweeper",
                 JOptionPane.PLAIN_MESSAGE, null, names, names[0]);
 
-        return choice != null ? Difficulty.valueOf(choice) : null;
+        if (choice == null) return null;
+        return choice.equals(CUSTOM) ? showCustomDialog() : Difficulty.valueOf(choice).toSpec();
+    }
+
+    /**
+     * Asks for a custom board size and mine count until they are valid.
+     *
+     * @return The custom board spec or null if canceled.
+     */
+    private static BoardSpec showCustomDialog() {
+        JTextField rowsField = new JTextField("100", 6);
+        JTextField colsField = new JTextField("100", 6);
+        JTextField minesField = new JTextField("1500", 6);
+
+        JPanel panel = new JPanel(new GridLayout(3, 2, 4, 4));
+        panel.add(new JLabel("Rows:"));
+        panel.add(rowsField);
+        panel.add(new JLabel("Columns:"));
+        panel.add(colsField);
+        panel.add(new JLabel("Mines:"));
+        panel.add(minesField);
+
+        while (true) {
+            int result = JOptionPane.showConfirmDialog(null, panel, "Custom board",
+                    JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+            if (result != JOptionPane.OK_OPTION) return null;
+
+            try {
+                return new BoardSpec(Integer.parseInt(rowsField.getText().trim()),
+                        Integer.parseInt(colsField.getText().trim()),
+                        Integer.parseInt(minesField.getText().trim()));
+            } catch (NumberFormatException e) {
+                JOptionPane.showMessageDialog(null, "Please enter whole numbers.");
+            } catch (IllegalArgumentException e) {
+                JOptionPane.showMessageDialog(null, e.getMessage());
+            }
+        }
     }
 }
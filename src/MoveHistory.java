@@ -0,0 +1,304 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Undo and redo stacks for a {@link GameController}, storing only what each
+ * move changed.
+ *
+ * A move is kept as the flat indices of the cells it changed (the cells a
+ * reveal opened, or the one cell a flag was toggled on), the cells whose
+ * flags a cascade removed, and the game counters before and after it. All
+ * moves share one int array of cell indices, so the history grows with the
+ * number of changed cells, whatever the size of the board. Undoing or
+ * redoing a move only touches its own cells.
+ *
+ * Mines are never part of a move: undoing the first click leaves the mines
+ * where they are, and the next first click moves them out of its safe zone
+ * (see {@link Board#clearSafeZone}).
+ */
+public class MoveHistory {
+
+    /**
+     * One recorded move: its cells in the shared array and the counters around it.
+     */
+    static final class Move {
+        final boolean flag;
+        // Changed cells are in [from, flagsFrom), cells with cleared flags in [flagsFrom, to)
+        final int from;
+        final int flagsFrom;
+        final int to;
+        final GameStats before;
+        final GameStats after;
+        final boolean firstMoveBefore;
+        final boolean firstMoveAfter;
+
+        Move(boolean flag, int from, int flagsFrom, int to, GameStats before, GameStats after,
+             boolean firstMoveBefore, boolean firstMoveAfter) {
+            this.flag = flag;
+            this.from = from;
+            this.flagsFrom = flagsFrom;
+            this.to = to;
+            this.before = before;
+            this.after = after;
+            this.firstMoveBefore = firstMoveBefore;
+            this.firstMoveAfter = firstMoveAfter;
+        }
+    }
+
+    private final List<Move> moves = new ArrayList<>();
+    private int[] cells = new int[256];
+    // Moves before this position are applied, the ones from it on can be redone
+    private int position;
+
+    /**
+     * Records a move that was just played, dropping the moves that could be redone.
+     * Moves that changed nothing are ignored.
+     *
+     * @param flag True for a flag toggle, false for a reveal.
+     * @param changed The cells the move changed.
+     * @param clearedFlags The cells whose flags a cascade removed, or null for a flag toggle.
+     * @param before Counters before the move.
+     * @param after Counters after the move.
+     * @param firstMoveBefore Whether the first move had been made before this one.
+     * @param firstMoveAfter Whether it had been made after this one; a flag
+     *        toggled before the first reveal leaves it unmade.
+     */
+    void record(boolean flag, ChangeSet changed, ChangeSet clearedFlags, GameStats before, GameStats after,
+                boolean firstMoveBefore, boolean firstMoveAfter) {
+        if (changed.isEmpty()) return;
+
+        moves.subList(position, moves.size()).clear();
+        int from = position == 0 ? 0 : moves.get(position - 1).to;
+        int cleared = clearedFlags == null ? 0 : clearedFlags.size();
+        int to = from + changed.size() + cleared;
+        if (to > cells.length) cells = Arrays.copyOf(cells, Math.max(to, cells.length * 2));
+
+        int next = from;
+        for (int i = 0; i < changed.size(); i++) {
+            cells[next++] = changed.get(i);
+        }
+        int flagsFrom = next;
+        for (int i = 0; i < cleared; i++) {
+            cells[next++] = clearedFlags.get(i);
+        }
+
+        moves.add(new Move(flag, from, flagsFrom, to, before, after, firstMoveBefore,
+                firstMoveAfter));
+        position++;
+    }
+
+    /**
+     * Reverts the last applied move on the grid.
+     *
+     * @param grid The board storage.
+     * @param changes Receives the cells that changed.
+     * @return The undone move, whose counters before it the controller restores.
+     * @throws IllegalStateException If there is nothing to undo.
+     */
+    Move undo(CellGrid grid, ChangeSet changes) {
+        if (position == 0) throw new IllegalStateException("Nothing to undo");
+        Move move = moves.get(--position);
+
+        for (int i = move.from; i < move.flagsFrom; i++) {
+            int index = cells[i];
+            if (move.flag) {
+                grid.toggleFlag(index);
+            } else {
+                grid.hide(index);
+            }
+            changes.add(index);
+        }
+        // Cells a cascade unflagged were opened, so they are already in the change set
+        for (int i = move.flagsFrom; i < move.to; i++) {
+            grid.toggleFlag(cells[i]);
+        }
+        return move;
+    }
+
+    /**
+     * Applies again the last undone move on the grid.
+     *
+     * @param grid The board storage.
+     * @param changes Receives the cells that changed.
+     * @return The redone move, whose counters after it the controller restores.
+     * @throws IllegalStateException If there is nothing to redo.
+     */
+    Move redo(CellGrid grid, ChangeSet changes) {
+        if (position == moves.size()) throw new IllegalStateException("Nothing to redo");
+        Move move = moves.get(position++);
+
+        for (int i = move.flagsFrom; i < move.to; i++) {
+            grid.toggleFlag(cells[i]);
+        }
+        for (int i = move.from; i < move.flagsFrom; i++) {
+            int index = cells[i];
+            if (move.flag) {
+                grid.toggleFlag(index);
+            } else {
+                grid.reveal(index);
+            }
+            changes.add(index);
+        }
+        return move;
+    }
+
+    /**
+     * Forgets every move, e.g. when a new game starts.
+     */
+    public void clear() {
+        moves.clear();
+        position = 0;
+    }
+
+    /**
+     * Checks if there is a move to undo.
+     */
+    public boolean canUndo() {
+        return position > 0;
+    }
+
+    /**
+     * Checks if there is an undone move to redo.
+     */
+    public boolean canRedo() {
+        return position < moves.size();
+    }
+
+    /**
+     * Gets the number of moves kept, applied and undone.
+     */
+    public int getMoves() {
+        return moves.size();
+    }
+
+    /**
+     * Gets the number of cell entries kept for all moves.
+     */
+    public int getCells() {
+        return moves.isEmpty() ? 0 : moves.get(moves.size() - 1).to;
+    }
+
+    /**
+     * Regression check for undo and redo around the first move: a flag is
+     * placed before the first reveal, undone and redone, then the first cell
+     * is revealed. Redoing the flag must not count as the first move, so the
+     * reveal still places the mines (fresh board) or clears its safe zone
+     * (board with mines placed ahead of time, as the GUI's pool hands out).
+     * Then the whole game is undone and redone and must come back the same.
+     * Last, a game recorded in a {@link MoveJournal} must refuse undo and
+     * redo, and its journal must replay into the game that was played.
+     * Exits with status 1 if any game goes wrong.
+     *
+     * Usage: {@code java -cp out MoveHistory [--games N] [--seed S]}
+     */
+    public static void main(String[] args) {
+        Options options = new Options(args, "--games", "--seed");
+        int games = options.getInt("--games", 200);
+        long seed = options.getLong("--seed", 1);
+
+        int failures = 0;
+        for (int game = 0; game < games; game++) {
+            for (boolean pooled : new boolean[] {false, true}) {
+                String problem = checkFlagBeforeFirstReveal(seed + game, pooled);
+                if (problem != null) {
+                    failures++;
+                    if (failures <= 10) System.out.println("game " + game + (pooled ? " pooled: " : ": ") + problem);
+                }
+            }
+            String problem = checkJournalRefusesUndo(seed + game);
+            if (problem != null) {
+                failures++;
+                if (failures <= 10) System.out.println("game " + game + " journaled: " + problem);
+            }
+        }
+        System.out.printf("games=%d failures=%d%n", games * 3, failures);
+        if (failures > 0) System.exit(1);
+    }
+
+    /**
+     * Plays flag, undo, redo and the first reveal on a 9x9 board with 30 mines.
+     *
+     * @return What went wrong, or null.
+     */
+    private static String checkFlagBeforeFirstReveal(long seed, boolean pooled) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Board board = new Board(9, 9);
+        if (pooled) board.placeMines(30, random);
+        GameController controller = new GameController(board, 30, SafeZone.CELL, random);
+        controller.setUndoEnabled(true);
+
+        controller.toggleFlag(0, 0);
+        controller.undo();
+        controller.redo();
+        if (controller.isFirstMoveMade()) return "redone flag counts as the first move";
+        if (!controller.getBoard().isFlagged(0, 0)) return "flag not redone";
+
+        controller.revealCell(4, 4);
+        if (!board.areMinesPlaced()) return "first reveal placed no mines";
+        if (board.isMine(4, 4) || controller.isGameOver() && !controller.isGameWon()) {
+            return "first reveal hit a mine";
+        }
+        int mines = 0;
+        for (int r = 0; r < 9; r++) {
+            for (int c = 0; c < 9; c++) {
+                if (board.isMine(r, c)) mines++;
+            }
+        }
+        if (mines != 30) return mines + " mines on the board";
+        if (controller.getSafeCellsRemaining() < 0) return "safe cells remaining " + controller.getSafeCellsRemaining();
+
+        // Back to the start and forward again
+        GameStats played = controller.getStats();
+        while (controller.undo()) {
+            // Undo everything
+        }
+        if (controller.isFirstMoveMade() || controller.getRevealedCells() != 0) return "undo did not reach the start";
+        while (controller.redo()) {
+            // Redo everything
+        }
+        if (!controller.getStats().toString().equals(played.toString())) {
+            return "redo ended at " + controller.getStats() + " instead of " + played;
+        }
+        return null;
+    }
+
+    /**
+     * Plays a 9x9 game with undo on and a journal attached: undo and redo
+     * must change nothing, the journal must replay into the game played, and
+     * undo must work again once the journal is detached.
+     *
+     * @return What went wrong, or null.
+     */
+    private static String checkJournalRefusesUndo(long seed) {
+        BoardSpec spec = new BoardSpec(9, 9, 10, SafeZone.NEIGHBORHOOD, seed);
+        GameController controller = new GameController(spec);
+        controller.setUndoEnabled(true);
+        controller.setJournal(new MoveJournal(spec));
+
+        controller.revealCell(4, 4);
+        CellGrid grid = controller.getBoard().getGrid();
+        int hidden = 0;
+        while (grid.isRevealed(hidden)) hidden++;
+        int row = hidden / 9;
+        int col = hidden % 9;
+        controller.toggleFlag(row, col);
+        GameStats played = controller.getStats();
+        if (controller.canUndo() || controller.undo()) return "undo allowed with a journal attached";
+        if (controller.canRedo() || controller.redo()) return "redo allowed with a journal attached";
+        if (!controller.getStats().toString().equals(played.toString()) || !grid.isFlagged(hidden)) {
+            return "refused undo changed the game";
+        }
+
+        controller.toggleFlag(row, col);
+        String replayed = JournalReplay.replay(controller.getJournal()).getStats().toString();
+        if (!replayed.equals(controller.getStats().toString())) {
+            return "journal replays to " + replayed + " instead of " + controller.getStats();
+        }
+
+        controller.setJournal(null);
+        if (!controller.undo() || !grid.isFlagged(hidden)) return "undo not back after detaching the journal";
+        return null;
+    }
+}
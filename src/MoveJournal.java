@@ -0,0 +1,340 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Append-only record of the moves of one game, enough to replay it exactly.
+ *
+ * The board is identified by a seeded {@link BoardSpec}: the same spec and the
+ * same first click always give the same mines. Each move is then stored as
+ * two variable-length numbers:
+ * <pre>
+ *   zigzag(cell - previous cell) &lt;&lt; 1 | 1 if it is a flag toggle
+ *   milliseconds since the previous move
+ * </pre>
+ * Neighboring clicks and quick moves take one byte each, so a typical move
+ * costs two to three bytes.
+ *
+ * A journal is filled by a {@link GameController} it is attached to (see
+ * {@link GameController#setJournal}) and read back with a {@link Cursor};
+ * {@link JournalReplay} rebuilds the game at any move. On disk it is a short
+ * header with the board and the move count, followed by the encoded moves.
+ */
+public final class MoveJournal {
+    static final int MAGIC = 0x4D53574A;
+    static final int VERSION = 1;
+
+    private final BoardSpec spec;
+    // Clock origin of the recorded times; a journal read back resumes from its last move
+    private long startNanos;
+    private byte[] data;
+    private int length;
+    private int moves;
+
+    // Last recorded move, the base of the next delta
+    private int lastCell;
+    private long lastMillis;
+
+    /**
+     * Creates an empty journal for a game on the given board.
+     *
+     * @param spec The board, which must be seeded so the mines can be regenerated.
+     * @throws IllegalArgumentException If the spec has no seed.
+     */
+    public MoveJournal(BoardSpec spec) {
+        this(spec, new byte[64], 0);
+    }
+
+    private MoveJournal(BoardSpec spec, byte[] data, int length) {
+        if (!spec.hasSeed()) throw new IllegalArgumentException("A journal needs a seeded board spec: " + spec);
+        this.spec = spec;
+        this.startNanos = System.nanoTime();
+        this.data = data;
+        this.length = length;
+    }
+
+    /**
+     * Records a reveal, timed from the creation of the journal.
+     *
+     * @param cell Flat index of the revealed cell.
+     */
+    public void recordReveal(int cell) {
+        record(cell, false, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Records a flag toggle, timed from the creation of the journal.
+     *
+     * @param cell Flat index of the flagged or unflagged cell.
+     */
+    public void recordFlag(int cell) {
+        record(cell, true, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Appends a move with an explicit time, e.g. when converting another record.
+     *
+     * @param cell Flat index of the cell.
+     * @param flag True for a flag toggle, false for a reveal.
+     * @param millis Time of the move since the game started, not before the previous move.
+     * @throws IllegalArgumentException If the cell is off the board or the time goes backwards.
+     */
+    public void record(int cell, boolean flag, long millis) {
+        if (cell < 0 || cell >= spec.getCells()) throw new IllegalArgumentException("Cell off the board: " + cell);
+        if (millis < lastMillis) throw new IllegalArgumentException("Move time goes backwards: " + millis);
+
+        // Two varints of at most 10 bytes each
+        if (length + 20 > data.length) data = Arrays.copyOf(data, data.length * 2);
+
+        long delta = (long) cell - lastCell;
+        long zigzag = (delta << 1) ^ (delta >> 63);
+        writeVarint((zigzag << 1) | (flag ? 1 : 0));
+        writeVarint(millis - lastMillis);
+
+        lastCell = cell;
+        lastMillis = millis;
+        moves++;
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    /**
+     * Gets the board the moves were played on.
+     */
+    public BoardSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * Gets the number of recorded moves.
+     */
+    public int getMoves() {
+        return moves;
+    }
+
+    /**
+     * Gets the size of the encoded moves in bytes.
+     */
+    public int getEncodedBytes() {
+        return length;
+    }
+
+    /**
+     * Gets the time of the last move since the game started.
+     */
+    public long getDurationMillis() {
+        return lastMillis;
+    }
+
+    /**
+     * Creates a cursor positioned before the first move.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Reads the moves one at a time. Moves recorded after the cursor was
+     * created are seen too, once the cursor reaches them.
+     */
+    public final class Cursor {
+        private int position;
+        private int move;
+        private int cell;
+        private boolean flag;
+        private long millis;
+
+        private Cursor() {
+        }
+
+        /**
+         * Creates a cursor at the same move, which advances independently of this one.
+         */
+        Cursor copy() {
+            Cursor copy = new Cursor();
+            copy.position = position;
+            copy.move = move;
+            copy.cell = cell;
+            copy.flag = flag;
+            copy.millis = millis;
+            return copy;
+        }
+
+        /**
+         * Advances to the next move.
+         *
+         * @return False if there are no more moves.
+         */
+        public boolean next() {
+            if (move == moves) return false;
+
+            long head = readVarint();
+            long zigzag = head >>> 1;
+            cell += (int) ((zigzag >>> 1) ^ -(zigzag & 1));
+            flag = (head & 1) != 0;
+            millis += readVarint();
+            move++;
+            return true;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        /**
+         * Gets the number of moves read so far; the current move is number getMove() - 1.
+         */
+        public int getMove() {
+            return move;
+        }
+
+        /**
+         * Gets the flat index of the current move's cell.
+         */
+        public int getCell() {
+            return cell;
+        }
+
+        /**
+         * Checks if the current move is a flag toggle rather than a reveal.
+         */
+        public boolean isFlag() {
+            return flag;
+        }
+
+        /**
+         * Gets the time of the current move since the game started.
+         */
+        public long getMillis() {
+            return millis;
+        }
+    }
+
+    /**
+     * Writes the journal to a file.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out);
+        }
+    }
+
+    /**
+     * Writes the journal: a header with the board and the move count, then the encoded moves.
+     *
+     * @param out The stream to write to, left open.
+     * @throws IOException If the stream cannot be written.
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeInt(spec.getRows());
+        data.writeInt(spec.getCols());
+        data.writeInt(spec.getMines());
+        data.writeByte(spec.getSafeZone().ordinal());
+        data.writeLong(spec.getSeed());
+        data.writeInt(moves);
+        data.writeInt(length);
+        data.write(this.data, 0, length);
+        data.flush();
+    }
+
+    /**
+     * Reads a journal written by {@link #write(Path)}.
+     *
+     * @param file The file to read.
+     * @return The journal, to which more moves can be recorded.
+     * @throws IOException If the file cannot be read or is not a valid journal.
+     */
+    public static MoveJournal read(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads a journal written by {@link #write(OutputStream)}.
+     *
+     * @param in The stream to read from, left open.
+     * @return The journal, to which more moves can be recorded; their times
+     *         continue from the last recorded move.
+     * @throws IOException If the stream cannot be read or is not a valid journal.
+     */
+    public static MoveJournal read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) throw new IOException("Not a move journal");
+        int version = data.readShort();
+        if (version != VERSION) throw new IOException("Unsupported journal version " + version);
+
+        int rows = data.readInt();
+        int cols = data.readInt();
+        int mines = data.readInt();
+        int zone = data.readByte();
+        long seed = data.readLong();
+        int moves = data.readInt();
+        int length = data.readInt();
+        // Every move takes two varints of 1 to 10 bytes
+        if (zone < 0 || zone >= SafeZone.values().length || moves < 0
+                || length < 2L * moves || length > 20L * moves) {
+            throw new IOException("Corrupt journal header");
+        }
+
+        BoardSpec spec;
+        try {
+            spec = new BoardSpec(rows, cols, mines, SafeZone.values()[zone], seed);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt journal header: " + e.getMessage());
+        }
+
+        // Read in chunks, so a bad length fails at the end of the stream rather than in one huge allocation
+        byte[] encoded = data.readNBytes(length);
+        if (encoded.length < length) throw new EOFException("Journal is truncated");
+        if (length < 64) encoded = Arrays.copyOf(encoded, 64);
+        MoveJournal journal = new MoveJournal(spec, encoded, length);
+
+        // Decode once to check the moves and to pick up where the recording stopped
+        Cursor cursor = journal.cursor();
+        journal.moves = moves;
+        try {
+            while (cursor.next()) {
+                if (cursor.getCell() < 0 || cursor.getCell() >= spec.getCells() || cursor.getMillis() < 0) {
+                    throw new IOException("Corrupt journal: bad move " + (cursor.getMove() - 1));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new EOFException("Journal is truncated");
+        }
+        if (cursor.position != length) throw new IOException("Corrupt journal: trailing bytes");
+        journal.lastCell = cursor.getCell();
+        journal.lastMillis = cursor.getMillis();
+        // Time goes on from the last move, so new moves are not timed before it
+        journal.startNanos = System.nanoTime() - journal.lastMillis * 1_000_000;
+        return journal;
+    }
+}
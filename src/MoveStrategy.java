@@ -0,0 +1,26 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Decides which cell a simulated player reveals next.
+ * Strategies may only look at what a player can see: revealed cells,
+ * their numbers, and flags. Each simulation worker owns its own instance.
+ */
+public interface MoveStrategy {
+
+    /**
+     * Called before the first move of every game.
+     *
+     * @param controller The game about to be played.
+     */
+    default void newGame(GameController controller) {
+    }
+
+    /**
+     * Picks the next cell to reveal.
+     *
+     * @param controller The game in progress.
+     * @param random Seeded source of randomness for guesses.
+     * @return Flat index of the cell to reveal, or -1 to stop playing.
+     */
+    int nextMove(GameController controller, RandomGenerator random);
+}
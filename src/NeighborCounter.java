@@ -0,0 +1,134 @@
+import java.util.Arrays;
+
+/**
+ * Computes neighbor mine counts for a whole grid (or a band of rows)
+ * using sliding three-row sums.
+ *
+ * Mine bits of the previous, current and next row are kept in buffers padded
+ * with one zero column on each side, and summed vertically into a fourth
+ * buffer. Each cell's count is then three additions from that buffer, with no
+ * per-neighbor bounds checks and each mine bit read once per row it touches.
+ */
+public final class NeighborCounter {
+
+    private NeighborCounter() {
+    }
+
+    /**
+     * Sets the neighbor count of every non-mine cell in the grid.
+     *
+     * @param grid The cell storage, with mines already placed.
+     */
+    public static void countAll(CellGrid grid) {
+        countRows(grid, 0, grid.getRows());
+    }
+
+    /**
+     * Sets the neighbor count of every non-mine cell in rows {@code [rowFrom, rowTo)}.
+     * The rows just outside the band are read but never written, so bands
+     * that do not overlap can be counted independently.
+     *
+     * @param grid The cell storage, with mines already placed.
+     * @param rowFrom First row to count (inclusive).
+     * @param rowTo Last row to count (exclusive).
+     */
+    public static void countRows(CellGrid grid, int rowFrom, int rowTo) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+
+        byte[] above = new byte[cols + 2];
+        byte[] current = new byte[cols + 2];
+        byte[] below = new byte[cols + 2];
+        int[] columnSums = new int[cols + 2];
+
+        loadMineRow(grid, rowFrom - 1, above);
+        loadMineRow(grid, rowFrom, current);
+
+        for (int r = rowFrom; r < rowTo; r++) {
+            loadMineRow(grid, r + 1, below);
+
+            for (int c = 1; c <= cols; c++) {
+                columnSums[c] = above[c] + current[c] + below[c];
+            }
+
+            int base = r * cols - 1;
+            for (int c = 1; c <= cols; c++) {
+                if (current[c] != 0) continue;
+                grid.setNeighborMines(base + c, columnSums[c - 1] + columnSums[c] + columnSums[c + 1]);
+            }
+
+            // Slide the window down one row
+            byte[] recycled = above;
+            above = current;
+            current = below;
+            below = recycled;
+        }
+    }
+
+    /**
+     * Adds a mine at the given cell and updates the counts around it,
+     * instead of recounting the whole grid.
+     *
+     * @param grid The cell storage.
+     * @param index Flat index of a cell without a mine.
+     */
+    public static void addMine(CellGrid grid, int index) {
+        grid.setMine(index);
+        grid.setNeighborMines(index, 0);
+        adjustNeighbors(grid, index, 1);
+    }
+
+    /**
+     * Removes the mine at the given cell, updates the counts around it
+     * and gives the now safe cell its own count.
+     *
+     * @param grid The cell storage.
+     * @param index Flat index of a cell with a mine.
+     */
+    public static void removeMine(CellGrid grid, int index) {
+        grid.clearMine(index);
+        int count = adjustNeighbors(grid, index, -1);
+        grid.setNeighborMines(index, count);
+    }
+
+    /**
+     * Adds delta to the count of every non-mine neighbor of a cell.
+     *
+     * @return Number of mines among the neighbors.
+     */
+    private static int adjustNeighbors(CellGrid grid, int index, int delta) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        int row = index / cols;
+        int col = index - row * cols;
+        int mines = 0;
+
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                int neighbor = r * cols + c;
+                if (neighbor == index) continue;
+
+                if (grid.isMine(neighbor)) {
+                    mines++;
+                } else {
+                    grid.setNeighborMines(neighbor, grid.getNeighborMines(neighbor) + delta);
+                }
+            }
+        }
+        return mines;
+    }
+
+    /**
+     * Copies the mine bits of one row into a padded buffer (all zero outside the board).
+     */
+    private static void loadMineRow(CellGrid grid, int row, byte[] buffer) {
+        if (row < 0 || row >= grid.getRows()) {
+            Arrays.fill(buffer, (byte) 0);
+            return;
+        }
+        int base = row * grid.getCols() - 1;
+        for (int c = 1; c < buffer.length - 1; c++) {
+            buffer[c] = grid.isMine(base + c) ? (byte) 1 : (byte) 0;
+        }
+    }
+}
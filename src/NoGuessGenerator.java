@@ -0,0 +1,242 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates boards that can be cleared from the first click without guessing.
+ *
+ * Candidate boards are plain random layouts for the chosen first click. Each
+ * one is played out by the deductive {@link Solver}; the first candidate it
+ * wins is kept. Candidates are tried in parallel (one worker per core by
+ * default), and all workers stop as soon as one of them succeeds.
+ *
+ * A board is identified by the seed of its mine placement, so the result is
+ * just a seed: {@link #newGame(Result)} rebuilds the same board in a fresh
+ * controller. If no candidate succeeds before the timeout, a normal random
+ * board is returned instead and {@link Result#isNoGuess()} is false.
+ *
+ * Usage: {@code java -cp out NoGuessGenerator [--boards N] [--difficulty EASY,HARD,100x100:1500]
+ * [--timeout MILLIS] [--seed S] [--threads T]}
+ */
+public class NoGuessGenerator {
+    private static final long NOT_FOUND = -1;
+
+    /**
+     * Outcome of one generation.
+     */
+    public static final class Result {
+        private final long seed;
+        private final boolean noGuess;
+        private final long attempts;
+        private final long nanos;
+
+        private Result(long seed, boolean noGuess, long attempts, long nanos) {
+            this.seed = seed;
+            this.noGuess = noGuess;
+            this.attempts = attempts;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Gets the seed of the board's mine placement.
+         */
+        public long getSeed() {
+            return seed;
+        }
+
+        /**
+         * False if the timeout ran out and the board is an ordinary random one.
+         */
+        public boolean isNoGuess() {
+            return noGuess;
+        }
+
+        /**
+         * Gets the number of candidate boards tried over all workers.
+         */
+        public long getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * Gets the wall time spent generating, in nanoseconds.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("seed=%d noGuess=%b attempts=%d time=%.2fms",
+                    seed, noGuess, attempts, nanos / 1e6);
+        }
+    }
+
+    private final int rows;
+    private final int cols;
+    private final int totalMines;
+    private final SafeZone safeZone;
+    private final int threads;
+    private final ExecutorService pool;
+
+    /**
+     * Creates a generator for one difficulty, with one worker per core.
+     *
+     * @param difficulty Board size and mine count.
+     * @param safeZone Area kept free of mines around the first click.
+     */
+    public NoGuessGenerator(Difficulty difficulty, SafeZone safeZone) {
+        this(difficulty.toSpec().withSafeZone(safeZone));
+    }
+
+    /**
+     * Creates a generator for a board spec, with one worker per core.
+     * The spec's seed is not used; seeds are passed to {@link #generate}.
+     *
+     * @param spec Board size, mine count and safe zone.
+     */
+    public NoGuessGenerator(BoardSpec spec) {
+        this(spec.getRows(), spec.getCols(), spec.getMines(), spec.getSafeZone(),
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a generator for a custom board.
+     *
+     * @param rows Number of rows.
+     * @param cols Number of columns.
+     * @param totalMines Number of mines.
+     * @param safeZone Area kept free of mines around the first click.
+     * @param threads Number of worker threads.
+     */
+    public NoGuessGenerator(int rows, int cols, int totalMines, SafeZone safeZone, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        this.rows = rows;
+        this.cols = cols;
+        this.totalMines = totalMines;
+        this.safeZone = safeZone;
+        this.threads = threads;
+        // Daemon threads, so an idle generator never keeps the application alive
+        this.pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "no-guess-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Looks for a board that the solver clears from the given first click.
+     * Blocks for at most about the timeout.
+     *
+     * @param row Row of the first click.
+     * @param col Column of the first click.
+     * @param seed Base seed; candidate i uses a seed derived from it and i.
+     * @param timeoutMillis Time after which a random board is returned instead.
+     * @return The chosen board.
+     */
+    public Result generate(int row, int col, long seed, long timeoutMillis) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + timeoutMillis * 1_000_000;
+        AtomicLong nextCandidate = new AtomicLong();
+        AtomicLong found = new AtomicLong(NOT_FOUND);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> runWorker(row, col, seed, deadline, nextCandidate, found)));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Generator worker failed", e.getCause());
+        } catch (InterruptedException e) {
+            // Stop the workers at their next candidate
+            found.compareAndSet(NOT_FOUND, Long.MAX_VALUE);
+            throw e;
+        }
+
+        long winner = found.get();
+        boolean noGuess = winner != NOT_FOUND;
+        return new Result(candidateSeed(seed, noGuess ? winner : 0), noGuess, nextCandidate.get(),
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Creates a controller for the chosen board. The first click must be the
+     * same cell that was passed to {@link #generate}.
+     */
+    public GameController newGame(Result result) {
+        return new GameController(rows, cols, totalMines, safeZone, new SplittableRandom(result.getSeed()));
+    }
+
+    /**
+     * Stops the worker threads. The generator cannot be used afterwards.
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Tries candidates until one succeeds anywhere, or the deadline passes.
+     */
+    private void runWorker(int row, int col, long seed, long deadline, AtomicLong nextCandidate, AtomicLong found) {
+        GameController controller = new GameController(rows, cols, totalMines, safeZone, new SplittableRandom(seed));
+        Solver solver = new Solver(controller);
+
+        while (found.get() == NOT_FOUND && System.nanoTime() < deadline) {
+            long candidate = nextCandidate.getAndIncrement();
+            controller.reset(new SplittableRandom(candidateSeed(seed, candidate)));
+            solver.reset();
+
+            controller.revealCell(row, col);
+            solver.observe(controller.getLastChanges());
+            solver.autoPlay();
+
+            if (controller.isGameWon()) {
+                found.compareAndSet(NOT_FOUND, candidate);
+            }
+        }
+    }
+
+    private static long candidateSeed(long seed, long candidate) {
+        return seed + candidate * 0x9E3779B97F4A7C15L;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Options options = new Options(args, "--boards", "--difficulty", "--timeout", "--seed", "--threads");
+        int boards = options.getInt("--boards", 200);
+        String difficulties = options.get("--difficulty", "EASY,MEDIUM,HARD");
+        long timeoutMillis = options.getLong("--timeout", 2_000);
+        long seed = options.getLong("--seed", 1);
+        int threads = options.getInt("--threads", Runtime.getRuntime().availableProcessors());
+
+        System.out.printf("safeZone=NEIGHBORHOOD timeout=%dms seed=%d threads=%d%n", timeoutMillis, seed, threads);
+        for (String name : difficulties.split(",")) {
+            BoardSpec spec = BoardSpec.parse(name, SafeZone.NEIGHBORHOOD);
+            NoGuessGenerator generator = new NoGuessGenerator(spec.getRows(), spec.getCols(),
+                    spec.getMines(), spec.getSafeZone(), threads);
+            LatencyHistogram latency = new LatencyHistogram();
+            long attempts = 0;
+            int fallbacks = 0;
+
+            for (int b = 0; b < boards; b++) {
+                Result result = generator.generate(spec.getRows() / 2, spec.getCols() / 2,
+                        seed + b * 0x632BE59BD9B4E019L, timeoutMillis);
+                latency.record(result.getNanos());
+                attempts += result.getAttempts();
+                if (!result.isNoGuess()) fallbacks++;
+            }
+            generator.shutdown();
+
+            System.out.printf("%-6s boards=%d fallbacks=%d attempts/board=%.1f%n",
+                    name.trim(), boards, fallbacks, (double) attempts / boards);
+            System.out.println("       generate " + latency);
+        }
+    }
+}
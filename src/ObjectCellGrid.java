@@ -0,0 +1,106 @@
+/**
+ * Reference CellGrid backed by one Cell object per square.
+ * Simple to read and debug, but every cell costs an object header,
+ * its fields and a pointer, so it is only suited to small boards.
+ */
+public class ObjectCellGrid implements CellGrid {
+    private final int rows;
+    private final int cols;
+    private final Cell[] cells;
+
+    /**
+     * Creates a grid of empty cells.
+     *
+     * @param rows Number of rows in the grid.
+     * @param cols Number of columns in the grid.
+     */
+    public ObjectCellGrid(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = new Cell[Math.multiplyExact(rows, cols)];
+
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new Cell();
+        }
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    @Override
+    public int size() {
+        return cells.length;
+    }
+
+    @Override
+    public boolean isMine(int index) {
+        return cells[index].isMine();
+    }
+
+    @Override
+    public boolean isRevealed(int index) {
+        return cells[index].isRevealed();
+    }
+
+    @Override
+    public boolean isFlagged(int index) {
+        return cells[index].isFlagged();
+    }
+
+    @Override
+    public int getNeighborMines(int index) {
+        return cells[index].getNeighborMines();
+    }
+
+    @Override
+    public void setMine(int index) {
+        cells[index].setMine();
+    }
+
+    @Override
+    public void clearMine(int index) {
+        cells[index].clearMine();
+    }
+
+    @Override
+    public void reveal(int index) {
+        cells[index].reveal();
+    }
+
+    @Override
+    public void hide(int index) {
+        cells[index].hide();
+    }
+
+    @Override
+    public void toggleFlag(int index) {
+        cells[index].toggleFlag();
+    }
+
+    @Override
+    public void setNeighborMines(int index, int count) {
+        cells[index].setNeighborMines(count);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new Cell();
+        }
+    }
+
+    /**
+     * Returns the live Cell object, so changes to it affect the board.
+     */
+    @Override
+    public Cell getCell(int index) {
+        return cells[index];
+    }
+}
@@ -0,0 +1,94 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code --name value} options of a command line tool's main method.
+ *
+ * Every option takes a value, including the true/false switches. The whole
+ * command line is checked when parsed: a name the tool does not know, or a
+ * last option with no value after it, is an error rather than silently
+ * ignored. An option given twice keeps the later value.
+ */
+public final class Options {
+    private final Map<String, String> values = new HashMap<>();
+
+    /**
+     * Parses a command line.
+     *
+     * @param args The arguments given to main.
+     * @param names Every option the tool accepts, e.g. "--seed".
+     * @throws IllegalArgumentException If an option is unknown or has no value.
+     */
+    public Options(String[] args, String... names) {
+        List<String> known = List.of(names);
+        for (int i = 0; i < args.length; i += 2) {
+            if (!known.contains(args[i])) throw new IllegalArgumentException("Unknown option: " + args[i]);
+            if (i + 1 == args.length) throw new IllegalArgumentException("Option " + args[i] + " needs a value");
+            values.put(args[i], args[i + 1]);
+        }
+    }
+
+    /**
+     * Gets an option's value as given.
+     */
+    public String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Gets an option's value as an int.
+     *
+     * @throws IllegalArgumentException If the value is not a number.
+     */
+    public int getInt(String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : (int) number(name, value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets an option's value as a long.
+     *
+     * @throws IllegalArgumentException If the value is not a number.
+     */
+    public long getLong(String name, long defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : number(name, value, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Gets an option's value as a double.
+     *
+     * @throws IllegalArgumentException If the value is not a number.
+     */
+    public double getDouble(String name, double defaultValue) {
+        String value = values.get(name);
+        if (value == null) return defaultValue;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Option " + name + " needs a number, not " + value);
+        }
+    }
+
+    /**
+     * Gets an option's value as a boolean: "true" in any case is true, anything else false.
+     */
+    public boolean getBoolean(String name, boolean defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    private static long number(String name, String value, long min, long max) {
+        long number;
+        try {
+            number = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Option " + name + " needs a whole number, not " + value);
+        }
+        if (number < min || number > max) {
+            throw new IllegalArgumentException("Option " + name + " is out of range: " + value);
+        }
+        return number;
+    }
+}
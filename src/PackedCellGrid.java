@@ -0,0 +1,136 @@
+import java.util.Arrays;
+
+/**
+ * Compact CellGrid that stores each cell in a single byte of a flat array.
+ *
+ * Bit layout of a cell byte:
+ * <pre>
+ *   bits 0-3  neighbor mine count (0 to 8)
+ *   bit  4    mine
+ *   bit  5    revealed
+ *   bit  6    flagged
+ * </pre>
+ *
+ * Approximate heap use (64-bit JVM, compressed pointers) compared to
+ * {@link ObjectCellGrid}, where each cell is a 24 byte object plus a 4 byte reference:
+ * <pre>
+ *   EASY    8x8      64 cells      64 B  vs  ~2 KB
+ *   MEDIUM  16x16    256 cells     256 B vs  ~7 KB
+ *   HARD    24x24    576 cells     576 B vs  ~16 KB
+ *   10000x10000      100M cells    ~95 MB vs ~2.6 GB
+ * </pre>
+ */
+public class PackedCellGrid implements CellGrid {
+    static final int COUNT_MASK = 0x0F;
+    static final int MINE = 0x10;
+    static final int REVEALED = 0x20;
+    static final int FLAGGED = 0x40;
+
+    private final int rows;
+    private final int cols;
+    private final byte[] cells;
+
+    /**
+     * Creates a grid of empty cells.
+     *
+     * @param rows Number of rows in the grid.
+     * @param cols Number of columns in the grid.
+     */
+    public PackedCellGrid(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = new byte[Math.multiplyExact(rows, cols)];
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    @Override
+    public int size() {
+        return cells.length;
+    }
+
+    @Override
+    public boolean isMine(int index) {
+        return (cells[index] & MINE) != 0;
+    }
+
+    @Override
+    public boolean isRevealed(int index) {
+        return (cells[index] & REVEALED) != 0;
+    }
+
+    @Override
+    public boolean isFlagged(int index) {
+        return (cells[index] & FLAGGED) != 0;
+    }
+
+    @Override
+    public int getNeighborMines(int index) {
+        return cells[index] & COUNT_MASK;
+    }
+
+    @Override
+    public void setMine(int index) {
+        cells[index] |= MINE;
+    }
+
+    @Override
+    public void clearMine(int index) {
+        cells[index] &= ~MINE;
+    }
+
+    @Override
+    public void reveal(int index) {
+        cells[index] |= REVEALED;
+    }
+
+    @Override
+    public void hide(int index) {
+        cells[index] &= ~REVEALED;
+    }
+
+    @Override
+    public void toggleFlag(int index) {
+        cells[index] ^= FLAGGED;
+    }
+
+    @Override
+    public void setNeighborMines(int index, int count) {
+        cells[index] = (byte) ((cells[index] & ~COUNT_MASK) | count);
+    }
+
+    /**
+     * Gives code in this package direct access to the cell bytes, for storage
+     * built out of several grids (see {@link EndlessBoard}).
+     */
+    byte[] bytes() {
+        return cells;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(cells, (byte) 0);
+    }
+
+    /**
+     * Returns a detached copy of the cell's state.
+     */
+    @Override
+    public Cell getCell(int index) {
+        int bits = cells[index];
+        Cell cell = new Cell();
+        if ((bits & MINE) != 0) cell.setMine();
+        if ((bits & REVEALED) != 0) cell.reveal();
+        if ((bits & FLAGGED) != 0) cell.toggleFlag();
+        cell.setNeighborMines(bits & COUNT_MASK);
+        return cell;
+    }
+}
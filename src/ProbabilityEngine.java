@@ -0,0 +1,636 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Computes the chance that each hidden cell is a mine, given only what the
+ * player can see (revealed cells and their numbers) and the total mine count.
+ *
+ * The frontier is split into independent {@link FrontierComponent}s, each
+ * counted on its own and in parallel. Small components have their layouts
+ * enumerated one by one. Larger ones are counted by memoizing the sub-states
+ * their layouts share ({@link FrontierComponent#enumerateByState}), or if
+ * they have too many states, enumerated with the search split further. The
+ * components are then combined with the hidden cells away from any number
+ * (the interior): a combination using K frontier mines is weighted by the
+ * number of ways to put the remaining mines in the interior, C(interior, mines - K).
+ * Weights are kept in log space so large boards do not overflow, and on very
+ * wide frontiers mine counts with negligible weight are dropped as they are combined.
+ *
+ * Components that cannot be enumerated within the time budget are sampled
+ * instead, in which case the result is marked as approximate.
+ */
+public class ProbabilityEngine {
+    // Components at least this large are split into 2^SPLIT_CELLS parallel parts
+    private static final int SPLIT_THRESHOLD = 24;
+    private static final int SPLIT_CELLS = 4;
+    // Components larger than this that cannot be counted by state are sampled rather than enumerated
+    private static final int MAX_ENUMERATED_CELLS = 64;
+    private static final long NODE_BUDGET = 20_000_000;
+    private static final int SAMPLES = 2_000;
+    // Frontiers wider than this drop terms weighing less than e^-TRIM_NATS of the largest
+    private static final int TRIM_FRONTIER = 2_000;
+    private static final double TRIM_NATS = 50;
+    private static final double TILT_TOLERANCE = 0.01;
+
+    /**
+     * Mine probabilities for one position.
+     */
+    public static final class Result {
+        private final int cols;
+        private final int[] frontierCells;
+        private final double[] frontierProbabilities;
+        private final double interiorProbability;
+        private final CellGrid grid;
+        private final boolean exact;
+        private final int components;
+
+        Result(CellGrid grid, int[] frontierCells, double[] frontierProbabilities,
+               double interiorProbability, boolean exact, int components) {
+            this.grid = grid;
+            this.cols = grid.getCols();
+            this.frontierCells = frontierCells;
+            this.frontierProbabilities = frontierProbabilities;
+            this.interiorProbability = interiorProbability;
+            this.exact = exact;
+            this.components = components;
+        }
+
+        /**
+         * Gets the chance that the cell is a mine (0 for revealed cells).
+         *
+         * @param row Row of the cell.
+         * @param col Column of the cell.
+         * @return Probability between 0 and 1.
+         */
+        public double getMineProbability(int row, int col) {
+            int index = row * cols + col;
+            if (grid.isRevealed(index)) return 0;
+
+            int pos = Arrays.binarySearch(frontierCells, index);
+            return pos >= 0 ? frontierProbabilities[pos] : interiorProbability;
+        }
+
+        /**
+         * Chance that a hidden cell not next to any number is a mine.
+         */
+        public double getInteriorProbability() {
+            return interiorProbability;
+        }
+
+        /**
+         * Finds the hidden cell least likely to be a mine.
+         *
+         * @return Flat index of the safest cell, or -1 if no cell is hidden.
+         */
+        public int getSafestCell() {
+            int best = -1;
+            double bestProbability = 2;
+            for (int i = 0; i < frontierCells.length; i++) {
+                if (frontierProbabilities[i] < bestProbability) {
+                    bestProbability = frontierProbabilities[i];
+                    best = frontierCells[i];
+                }
+            }
+            if (interiorProbability < bestProbability) {
+                for (int i = 0; i < grid.size(); i++) {
+                    if (!grid.isRevealed(i) && Arrays.binarySearch(frontierCells, i) < 0) return i;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * False if any component had to be sampled instead of fully enumerated.
+         */
+        public boolean isExact() {
+            return exact;
+        }
+
+        public int getComponentCount() {
+            return components;
+        }
+    }
+
+    private final GameController controller;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an engine for a game, running on the common fork/join pool.
+     *
+     * @param controller The game to analyze.
+     */
+    public ProbabilityEngine(GameController controller) {
+        this(controller, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an engine for a game, running on the given pool.
+     *
+     * @param controller The game to analyze.
+     * @param pool Pool for enumerating components in parallel.
+     */
+    public ProbabilityEngine(GameController controller, ForkJoinPool pool) {
+        this.controller = controller;
+        this.pool = pool;
+    }
+
+    /**
+     * Computes the mine probability of every hidden cell.
+     *
+     * @param timeBudgetMillis Time after which unfinished components are sampled instead.
+     * @return The probabilities.
+     */
+    public Result compute(long timeBudgetMillis) {
+        CellGrid grid = controller.getBoard().getGrid();
+        long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000;
+
+        // Every revealed number next to a hidden cell constrains the frontier
+        int[] numbers = new int[64];
+        int numberCount = 0;
+        int hidden = 0;
+        for (int i = 0; i < grid.size(); i++) {
+            if (!grid.isRevealed(i)) {
+                hidden++;
+            } else if (grid.getNeighborMines(i) > 0) {
+                if (numberCount == numbers.length) numbers = Arrays.copyOf(numbers, numberCount * 2);
+                numbers[numberCount++] = i;
+            }
+        }
+
+        List<FrontierComponent> components = FrontierComponent.build(grid, numbers, numberCount, null);
+        boolean exact = solveComponents(components, deadline);
+
+        int frontierSize = 0;
+        for (FrontierComponent component : components) frontierSize += component.size();
+        int interior = hidden - frontierSize;
+
+        return combine(grid, components, interior, controller.getTotalMines(), exact);
+    }
+
+    /**
+     * Enumerates every component in parallel, sampling those that are too large or too slow.
+     *
+     * @return True if all components were enumerated exactly.
+     */
+    private boolean solveComponents(List<FrontierComponent> components, long deadline) {
+        List<ForkJoinTask<Boolean>> tasks = new ArrayList<>();
+        for (FrontierComponent component : components) {
+            tasks.add(pool.submit(() -> {
+                // Small components have few layouts, so visiting them beats setting up states
+                boolean done;
+                if (component.size() < SPLIT_THRESHOLD) {
+                    done = component.enumerate(NODE_BUDGET) || component.enumerateByState(NODE_BUDGET, deadline);
+                } else {
+                    done = component.enumerateByState(NODE_BUDGET, deadline)
+                            || component.size() <= MAX_ENUMERATED_CELLS
+                            && component.enumerateParallel(NODE_BUDGET, deadline, SPLIT_CELLS, pool);
+                }
+                if (!done) {
+                    // Always leave a little time for sampling, even past the deadline
+                    long sampleDeadline = Math.max(deadline, System.nanoTime() + 10_000_000);
+                    component.sample(SAMPLES, NODE_BUDGET / 10, sampleDeadline,
+                            new SplittableRandom(component.getCells()[0]));
+                }
+                return done;
+            }));
+        }
+
+        boolean exact = true;
+        for (ForkJoinTask<Boolean> task : tasks) {
+            exact &= task.join();
+        }
+        return exact;
+    }
+
+    /**
+     * Combines the component tallies with the interior using log-space weights.
+     */
+    private static Result combine(CellGrid grid, List<FrontierComponent> components,
+                                  int interior, int totalMines, boolean exact) {
+        int count = components.size();
+        int frontierSize = 0;
+        for (FrontierComponent component : components) frontierSize += component.size();
+
+        // Number of layouts of each component by mine count, as log-space polynomials
+        double[][] layoutLogs = new double[count][];
+        for (int j = 0; j < count; j++) {
+            FrontierComponent component = components.get(j);
+            layoutLogs[j] = new double[component.size() + 1];
+            for (int k = 0; k <= component.size(); k++) {
+                long solutions = component.getSolutions(k);
+                layoutLogs[j][k] = solutions == 0 ? Double.NEGATIVE_INFINITY : Math.log(solutions);
+            }
+        }
+        double[] logChoose = logBinomials(interior, totalMines);
+
+        // Near the likely frontier mine count k, each extra frontier mine scales the interior
+        // weight C(interior, mines - k) by a roughly constant factor e^tilt. On wide frontiers,
+        // terms far below the peak of (layouts x e^(k * tilt)) are dropped as the tree is built,
+        // and the tree is rebuilt once if the peak turns out to have a different slope.
+        double tilt = Double.NaN;
+        if (frontierSize > TRIM_FRONTIER && interior > 0 && totalMines > 0 && totalMines < interior + frontierSize) {
+            double density = (double) totalMines / (interior + frontierSize);
+            tilt = Math.log(density) - Math.log1p(-density);
+        }
+
+        Node root = Node.build(layoutLogs, 0, count, tilt);
+        if (!Double.isNaN(tilt)) {
+            double slope = slopeAtPeak(root.poly, logChoose, interior, totalMines);
+            if (Double.isNaN(slope)) {
+                root = Node.build(layoutLogs, 0, count, Double.NaN);
+            } else if (Math.abs(slope - tilt) > TILT_TOLERANCE) {
+                root = Node.build(layoutLogs, 0, count, slope);
+            }
+        }
+        LogPoly all = root.poly;
+
+        // Interior chance: expected interior mines divided by interior size
+        double interiorProbability = 0;
+        if (interior > 0) {
+            double max = Double.NEGATIVE_INFINITY;
+            for (int k = all.offset; k < all.end(); k++) {
+                max = Math.max(max, all.get(k) + chooseInterior(logChoose, totalMines - k));
+            }
+            double weight = 0;
+            double expected = 0;
+            for (int k = all.offset; k < all.end(); k++) {
+                double w = Math.exp(all.get(k) + chooseInterior(logChoose, totalMines - k) - max);
+                weight += w;
+                expected += w * (totalMines - k);
+            }
+            interiorProbability = weight > 0 ? expected / weight / interior : 0;
+        }
+
+        // rest[t]: log weight of the rest of the board when the root's frontier holds t mines
+        double[] rest = new double[all.logs.length];
+        for (int t = all.offset; t < all.end(); t++) rest[t - all.offset] = chooseInterior(logChoose, totalMines - t);
+
+        int[] cells = new int[frontierSize];
+        double[] cellProbabilities = new double[frontierSize];
+        root.distribute(rest, components, cells, cellProbabilities, new int[1]);
+
+        // Sort by cell index for binary search lookups, through (cell, position) keys
+        long[] order = new long[frontierSize];
+        for (int i = 0; i < frontierSize; i++) order[i] = (long) cells[i] << 32 | i;
+        Arrays.sort(order);
+        int[] frontierCells = new int[frontierSize];
+        double[] probabilities = new double[frontierSize];
+        for (int i = 0; i < frontierSize; i++) {
+            int from = (int) order[i];
+            frontierCells[i] = cells[from];
+            probabilities[i] = cellProbabilities[from];
+        }
+        return new Result(grid, frontierCells, probabilities, interiorProbability, exact, count);
+    }
+
+    /**
+     * Node of the product tree: the layouts of components [from, to) by mine count.
+     */
+    private static final class Node {
+        final LogPoly poly;
+        final Node left;
+        final Node right;
+        final int component;
+
+        private Node(LogPoly poly, Node left, Node right, int component) {
+            this.poly = poly;
+            this.left = left;
+            this.right = right;
+            this.component = component;
+        }
+
+        static Node build(double[][] layouts, int from, int to, double tilt) {
+            if (to - from == 0) return new Node(LogPoly.ONE, null, null, -1);
+            if (to - from == 1) return new Node(new LogPoly(0, layouts[from]).trim(tilt), null, null, from);
+            int mid = (from + to) >>> 1;
+            Node left = build(layouts, from, mid, tilt);
+            Node right = build(layouts, mid, to, tilt);
+            return new Node(left.poly.times(right.poly, tilt), left, right, -1);
+        }
+
+        /**
+         * Given the log weight of everything outside this node for each mine count
+         * of the node (indexed from poly.offset), works out the probability of every
+         * cell below it.
+         */
+        void distribute(double[] rest, List<FrontierComponent> components, int[] cells,
+                        double[] probabilities, int[] n) {
+            if (left != null) {
+                left.distribute(outsideOf(left, right, rest), components, cells, probabilities, n);
+                right.distribute(outsideOf(right, left, rest), components, cells, probabilities, n);
+            } else if (component >= 0) {
+                store(components.get(component), rest, cells, probabilities, n);
+            }
+        }
+
+        /**
+         * Log weight outside a child: the parent's outside weight combined with the sibling's layouts.
+         */
+        private double[] outsideOf(Node child, Node sibling, double[] rest) {
+            LogPoly c = child.poly;
+            LogPoly s = sibling.poly;
+            double[] out = new double[c.logs.length];
+            for (int t = 0; t < out.length; t++) {
+                double sum = Double.NEGATIVE_INFINITY;
+                for (int u = 0; u < s.logs.length; u++) {
+                    int i = c.offset + t + s.offset + u - poly.offset;
+                    if (i < 0 || i >= rest.length) continue;
+                    sum = logAdd(sum, rest[i] + s.logs[u]);
+                }
+                out[t] = sum;
+            }
+            return out;
+        }
+
+        private void store(FrontierComponent component, double[] rest, int[] cells,
+                           double[] probabilities, int[] n) {
+            int size = component.size();
+            double max = Double.NEGATIVE_INFINITY;
+            for (int k = poly.offset; k < poly.end(); k++) {
+                max = Math.max(max, rest[k - poly.offset] + poly.get(k));
+            }
+
+            double total = 0;
+            double[] cellWeight = new double[size];
+            for (int k = poly.offset; k < poly.end(); k++) {
+                double logWeight = rest[k - poly.offset];
+                if (component.getSolutions(k) == 0 || logWeight == Double.NEGATIVE_INFINITY) continue;
+                double scale = Math.exp(logWeight - max);
+                total += scale * component.getSolutions(k);
+                for (int i = 0; i < size; i++) cellWeight[i] += scale * component.getMineHits(k, i);
+            }
+
+            int[] componentCells = component.getCells();
+            for (int i = 0; i < size; i++) {
+                cells[n[0]] = componentCells[i];
+                probabilities[n[0]++] = total > 0 ? cellWeight[i] / total : 0;
+            }
+        }
+    }
+
+    /**
+     * Polynomial in the number of frontier mines with log-space coefficients,
+     * stored from its first kept term.
+     */
+    private static final class LogPoly {
+        static final LogPoly ONE = new LogPoly(0, new double[] { 0 });
+
+        final int offset;
+        final double[] logs;
+
+        LogPoly(int offset, double[] logs) {
+            this.offset = offset;
+            this.logs = logs;
+        }
+
+        int end() {
+            return offset + logs.length;
+        }
+
+        double get(int k) {
+            int i = k - offset;
+            return i < 0 || i >= logs.length ? Double.NEGATIVE_INFINITY : logs[i];
+        }
+
+        LogPoly times(LogPoly other, double tilt) {
+            double[] out = new double[logs.length + other.logs.length - 1];
+            Arrays.fill(out, Double.NEGATIVE_INFINITY);
+            for (int i = 0; i < logs.length; i++) {
+                if (logs[i] == Double.NEGATIVE_INFINITY) continue;
+                for (int j = 0; j < other.logs.length; j++) {
+                    out[i + j] = logAdd(out[i + j], logs[i] + other.logs[j]);
+                }
+            }
+            return new LogPoly(offset + other.offset, out).trim(tilt);
+        }
+
+        /**
+         * Drops end terms more than TRIM_NATS below the largest once weighted by
+         * e^(k * tilt). A NaN tilt keeps every term.
+         */
+        LogPoly trim(double tilt) {
+            if (Double.isNaN(tilt)) return this;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < logs.length; i++) max = Math.max(max, logs[i] + (offset + i) * tilt);
+            if (max == Double.NEGATIVE_INFINITY) return this;
+
+            double floor = max - TRIM_NATS;
+            int first = 0;
+            int last = logs.length - 1;
+            while (logs[first] + (offset + first) * tilt < floor) first++;
+            while (logs[last] + (offset + last) * tilt < floor) last--;
+            if (first == 0 && last == logs.length - 1) return this;
+            return new LogPoly(offset + first, Arrays.copyOfRange(logs, first, last + 1));
+        }
+    }
+
+    /**
+     * Slope of log C(interior, mines - k) at the most likely frontier mine count k,
+     * or NaN if no mine count is possible.
+     */
+    private static double slopeAtPeak(LogPoly all, double[] logChoose, int interior, int totalMines) {
+        int peak = -1;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int k = all.offset; k < all.end(); k++) {
+            double weight = all.get(k) + chooseInterior(logChoose, totalMines - k);
+            if (weight > max) {
+                max = weight;
+                peak = k;
+            }
+        }
+        if (peak < 0) return Double.NaN;
+        int m = totalMines - peak;
+        return Math.log(m + 0.5) - Math.log(interior - m + 0.5);
+    }
+
+    /**
+     * log(e^a + e^b) without overflow.
+     */
+    private static double logAdd(double a, double b) {
+        if (a == Double.NEGATIVE_INFINITY) return b;
+        if (b == Double.NEGATIVE_INFINITY) return a;
+        double max = Math.max(a, b);
+        return max + Math.log1p(Math.exp(-Math.abs(a - b)));
+    }
+
+    /**
+     * log C(interior, m) for m from 0 to min(interior, totalMines).
+     */
+    private static double[] logBinomials(int interior, int totalMines) {
+        int top = Math.max(0, Math.min(interior, totalMines));
+        double[] logChoose = new double[top + 1];
+        for (int m = 1; m <= top; m++) {
+            logChoose[m] = logChoose[m - 1] + Math.log(interior - m + 1) - Math.log(m);
+        }
+        return logChoose;
+    }
+
+    private static double chooseInterior(double[] logChoose, int mines) {
+        return mines < 0 || mines >= logChoose.length ? Double.NEGATIVE_INFINITY : logChoose[mines];
+    }
+
+    /**
+     * Self-check. On positions where the solver is stuck:
+     * <ul>
+     *   <li>small boards: every probability must match a brute force over all
+     *       placements of the mines among the hidden cells, to 1e-12;</li>
+     *   <li>HARD and 64x64 boards: every component counted by state must give
+     *       exactly the tallies of enumerating its layouts one by one.</li>
+     * </ul>
+     * Exits with status 1 on any mismatch.
+     *
+     * Usage: {@code java -cp out ProbabilityEngine [--positions N] [--seed S]}
+     */
+    public static void main(String[] args) {
+        Options options = new Options(args, "--positions", "--seed");
+        int positions = options.getInt("--positions", 300);
+        long seed = options.getLong("--seed", 1);
+
+        int bruteForced = 0;
+        int failures = 0;
+        double worst = 0;
+        for (int p = 0; p < positions; p++) {
+            GameController controller = stuckGame(new BoardSpec(6, 6, 9, SafeZone.NEIGHBORHOOD, seed + p));
+            if (controller == null) continue;
+            double[] expected = bruteForce(controller.getBoard().getGrid(), controller.getTotalMines());
+            if (expected == null) continue;
+
+            Result result = new ProbabilityEngine(controller).compute(1_000);
+            CellGrid grid = controller.getBoard().getGrid();
+            for (int i = 0; i < grid.size(); i++) {
+                if (grid.isRevealed(i)) continue;
+                double error = Math.abs(result.getMineProbability(i / 6, i % 6) - expected[i]);
+                worst = Math.max(worst, error);
+                if (error > 1e-12 || !result.isExact()) {
+                    failures++;
+                    System.out.printf("FAIL seed %d cell %d: %.17f, brute force %.17f%n",
+                            seed + p, i, result.getMineProbability(i / 6, i % 6), expected[i]);
+                    break;
+                }
+            }
+            bruteForced++;
+        }
+        System.out.printf("brute force positions=%d worst error=%.2e%n", bruteForced, worst);
+
+        int compared = 0;
+        long stateNanos = 0;
+        long searchNanos = 0;
+        BoardSpec[] specs = {Difficulty.HARD.toSpec(), new BoardSpec(64, 64, 64 * 64 / 5)};
+        for (BoardSpec base : specs) {
+            for (int p = 0; p < positions / 10; p++) {
+                GameController controller = stuckGame(base.withSeed(seed + p));
+                if (controller == null) continue;
+                CellGrid grid = controller.getBoard().getGrid();
+                int[] numbers = new int[grid.size()];
+                int count = 0;
+                for (int i = 0; i < grid.size(); i++) {
+                    if (grid.isRevealed(i) && grid.getNeighborMines(i) > 0) numbers[count++] = i;
+                }
+                for (FrontierComponent component : FrontierComponent.build(grid, numbers, count, null)) {
+                    long start = System.nanoTime();
+                    if (!component.enumerate(NODE_BUDGET)) continue;
+                    long[][] tallies = tallies(component);
+                    long middle = System.nanoTime();
+                    if (!component.enumerateByState(NODE_BUDGET, Long.MAX_VALUE)) continue;
+                    long end = System.nanoTime();
+                    searchNanos += middle - start;
+                    stateNanos += end - middle;
+                    compared++;
+                    if (!Arrays.deepEquals(tallies, tallies(component))) {
+                        failures++;
+                        System.out.printf("FAIL %s seed %d: component of %d cells counts differently%n",
+                                base, seed + p, component.size());
+                    }
+                }
+            }
+        }
+        System.out.printf("components=%d by state=%.1fms one by one=%.1fms%n",
+                compared, stateNanos / 1e6, searchNanos / 1e6);
+        System.out.printf("failures=%d%n", failures);
+        if (failures > 0) System.exit(1);
+    }
+
+    /**
+     * Plays a seeded game with the solver until it has to guess.
+     *
+     * @return The game, or null if the solver finished it.
+     */
+    private static GameController stuckGame(BoardSpec spec) {
+        GameController controller = new GameController(spec);
+        controller.revealCell(spec.getRows() / 2, spec.getCols() / 2);
+        new Solver(controller).autoPlay();
+        return controller.isGameOver() ? null : controller;
+    }
+
+    /**
+     * Mine probability of every hidden cell, by trying every placement of the
+     * mines among the hidden cells against every revealed number.
+     *
+     * @return The probabilities by cell, or null if there are too many hidden cells.
+     */
+    private static double[] bruteForce(CellGrid grid, int mines) {
+        int[] hidden = new int[grid.size()];
+        int count = 0;
+        for (int i = 0; i < grid.size(); i++) {
+            if (!grid.isRevealed(i)) hidden[count++] = i;
+        }
+        if (count > 24 || mines > count) return null;
+
+        // Each revealed number as the set of its hidden neighbors, as bits over hidden
+        int cols = grid.getCols();
+        List<int[]> numbers = new ArrayList<>();
+        for (int i = 0; i < grid.size(); i++) {
+            if (!grid.isRevealed(i)) continue;
+            int neighbors = 0;
+            for (int h = 0; h < count; h++) {
+                int dr = Math.abs(hidden[h] / cols - i / cols);
+                int dc = Math.abs(hidden[h] % cols - i % cols);
+                if (dr <= 1 && dc <= 1) neighbors |= 1 << h;
+            }
+            numbers.add(new int[] {neighbors, grid.getNeighborMines(i)});
+        }
+
+        long[] hits = new long[count];
+        long layouts = 0;
+        if (mines == 0) return new double[grid.size()];
+        // Every set of exactly mines bits, in increasing order (Gosper's hack)
+        for (int set = (1 << mines) - 1; set < 1 << count; ) {
+            boolean valid = true;
+            for (int[] number : numbers) {
+                if (Integer.bitCount(set & number[0]) != number[1]) {
+                    valid = false;
+                    break;
+                }
+            }
+            if (valid) {
+                layouts++;
+                for (int h = 0; h < count; h++) {
+                    if ((set & 1 << h) != 0) hits[h]++;
+                }
+            }
+            int low = set & -set;
+            int ripple = set + low;
+            set = (((ripple ^ set) >>> 2) / low) | ripple;
+        }
+
+        double[] probabilities = new double[grid.size()];
+        for (int h = 0; h < count; h++) probabilities[hidden[h]] = (double) hits[h] / layouts;
+        return probabilities;
+    }
+
+    /**
+     * The layout count and per-cell mine hits of a component, by mine count.
+     */
+    private static long[][] tallies(FrontierComponent component) {
+        long[][] tallies = new long[component.size() + 1][component.size() + 1];
+        for (int k = 0; k <= component.size(); k++) {
+            tallies[k][0] = component.getSolutions(k);
+            for (int i = 0; i < component.size(); i++) tallies[k][i + 1] = component.getMineHits(k, i);
+        }
+        return tallies;
+    }
+}
@@ -0,0 +1,39 @@
+import java.util.function.IntPredicate;
+import java.util.random.RandomGenerator;
+
+/**
+ * Reveals a random hidden, unflagged cell every move.
+ */
+public class RandomStrategy implements MoveStrategy {
+    private static final int MAX_TRIES = 64;
+
+    @Override
+    public int nextMove(GameController controller, RandomGenerator random) {
+        return pickHiddenCell(controller.getBoard().getGrid(), random, null);
+    }
+
+    /**
+     * Picks a random hidden, unflagged cell, optionally skipping cells the avoid test accepts.
+     * Tries random cells first and falls back to a scan when few cells are left.
+     *
+     * @return Flat index of the cell, or -1 if there is none.
+     */
+    static int pickHiddenCell(CellGrid grid, RandomGenerator random, IntPredicate avoid) {
+        int size = grid.size();
+        for (int i = 0; i < MAX_TRIES; i++) {
+            int index = random.nextInt(size);
+            if (isCandidate(grid, index, avoid)) return index;
+        }
+
+        int start = random.nextInt(size);
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            if (isCandidate(grid, index, avoid)) return index;
+        }
+        return -1;
+    }
+
+    private static boolean isCandidate(CellGrid grid, int index, IntPredicate avoid) {
+        return !grid.isRevealed(index) && !grid.isFlagged(index) && (avoid == null || !avoid.test(index));
+    }
+}
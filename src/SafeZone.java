@@ -0,0 +1,46 @@
+/**
+ * Enum of the areas that are kept free of mines around the first click.
+ */
+public enum SafeZone {
+    // Only the clicked cell is guaranteed to be safe
+    CELL(0),
+    // The clicked cell and its eight neighbors are safe, so the first click always opens an area
+    NEIGHBORHOOD(1);
+
+    // Distance from the clicked cell that stays mine-free
+    private final int radius;
+
+    /**
+     * Constructor to create a safe zone of the given radius.
+     * @param radius Number of cells around the click that stay safe.
+     */
+    SafeZone(int radius) {
+        this.radius = radius;
+    }
+
+    /**
+     * Returns the flat indices of the cells in this zone, clipped to the board
+     * and sorted in ascending order.
+     *
+     * @param rows Number of rows of the board.
+     * @param cols Number of columns of the board.
+     * @param row Row of the clicked cell.
+     * @param col Column of the clicked cell.
+     * @return Sorted flat indices of the safe cells.
+     */
+    public int[] cells(int rows, int cols, int row, int col) {
+        int rowStart = Math.max(row - radius, 0);
+        int rowEnd = Math.min(row + radius, rows - 1);
+        int colStart = Math.max(col - radius, 0);
+        int colEnd = Math.min(col + radius, cols - 1);
+
+        int[] indices = new int[(rowEnd - rowStart + 1) * (colEnd - colStart + 1)];
+        int n = 0;
+        for (int r = rowStart; r <= rowEnd; r++) {
+            for (int c = colStart; c <= colEnd; c++) {
+                indices[n++] = r * cols + c;
+            }
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,182 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Plays large numbers of games without the GUI to measure win rates and engine speed.
+ *
+ * Games are split into batches that worker threads (one per core by default)
+ * pull from a shared counter. Each worker reuses one GameController and one
+ * strategy for all of its games. Game i is always seeded from the base seed
+ * and i, so results do not depend on the number of threads.
+ *
+ * Usage: {@code java -cp out Simulator [--games N] [--difficulty EASY,HARD,1000x1000:150000]
+ * [--strategy random|first-click|solver] [--safe-zone CELL|NEIGHBORHOOD]
+ * [--seed S] [--threads T]}
+ */
+public class Simulator {
+    private static final int BATCH_SIZE = 1024;
+
+    /**
+     * Totals collected by one worker, or merged from all of them.
+     */
+    static final class Result {
+        long games;
+        long wins;
+        long moves;
+        final LatencyHistogram revealLatency = new LatencyHistogram();
+
+        void add(Result other) {
+            games += other.games;
+            wins += other.wins;
+            moves += other.moves;
+            revealLatency.add(other.revealLatency);
+        }
+    }
+
+    private final BoardSpec spec;
+    private final Supplier<MoveStrategy> strategies;
+    private final long seed;
+    private final int threads;
+
+    /**
+     * Creates a simulator for one difficulty.
+     *
+     * @param difficulty Board size and mine count of every game.
+     * @param safeZone Area kept free of mines around the first click.
+     * @param strategies Creates one strategy per worker thread.
+     * @param seed Base seed; game i uses a generator derived from it and i.
+     * @param threads Number of worker threads.
+     */
+    public Simulator(Difficulty difficulty, SafeZone safeZone, Supplier<MoveStrategy> strategies,
+                     long seed, int threads) {
+        this(difficulty.toSpec().withSafeZone(safeZone).withSeed(seed), strategies, threads);
+    }
+
+    /**
+     * Creates a simulator for any board spec. An unseeded spec gets a random base seed.
+     *
+     * @param spec Board size, mine count, safe zone and base seed of every game.
+     * @param strategies Creates one strategy per worker thread.
+     * @param threads Number of worker threads.
+     */
+    public Simulator(BoardSpec spec, Supplier<MoveStrategy> strategies, int threads) {
+        this.spec = spec;
+        this.strategies = strategies;
+        this.seed = spec.hasSeed() ? spec.getSeed() : new SplittableRandom().nextLong();
+        this.threads = threads;
+    }
+
+    /**
+     * Plays the given number of games across all worker threads.
+     *
+     * @param games Number of games to play.
+     * @return The merged totals.
+     */
+    public Result run(long games) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicLong nextGame = new AtomicLong();
+        List<Future<Result>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> runWorker(nextGame, games)));
+        }
+
+        Result total = new Result();
+        try {
+            for (Future<Result> future : futures) {
+                total.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation worker failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return total;
+    }
+
+    /**
+     * Plays batches of games until all games have been claimed.
+     */
+    private Result runWorker(AtomicLong nextGame, long games) {
+        Result result = new Result();
+        MoveStrategy strategy = strategies.get();
+        GameController controller = new GameController(spec.getRows(), spec.getCols(), spec.getMines(),
+                spec.getSafeZone(), new SplittableRandom(seed));
+        int cols = controller.getBoard().getCols();
+
+        while (true) {
+            long first = nextGame.getAndAdd(BATCH_SIZE);
+            if (first >= games) break;
+            long last = Math.min(games, first + BATCH_SIZE);
+
+            for (long game = first; game < last; game++) {
+                SplittableRandom random = new SplittableRandom(seed + game * 0x9E3779B97F4A7C15L);
+                controller.reset(random);
+                strategy.newGame(controller);
+
+                while (!controller.isGameOver()) {
+                    int move = strategy.nextMove(controller, random);
+                    if (move < 0) break;
+
+                    long start = System.nanoTime();
+                    controller.revealCell(move / cols, move % cols);
+                    result.revealLatency.record(System.nanoTime() - start);
+                    result.moves++;
+                }
+
+                result.games++;
+                if (controller.isGameWon()) result.wins++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a strategy factory from its command-line name.
+     */
+    static Supplier<MoveStrategy> strategyNamed(String name) {
+        switch (name) {
+            case "random":
+                return RandomStrategy::new;
+            case "first-click":
+                return FirstClickStrategy::new;
+            case "solver":
+                return SolverStrategy::new;
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + name);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Options options = new Options(args, "--games", "--difficulty", "--strategy", "--safe-zone", "--seed",
+                "--threads");
+        long games = options.getLong("--games", 100_000);
+        String difficulties = options.get("--difficulty", "EASY,MEDIUM,HARD");
+        String strategy = options.get("--strategy", "solver");
+        SafeZone safeZone = SafeZone.valueOf(options.get("--safe-zone", "CELL"));
+        long seed = options.getLong("--seed", 1);
+        int threads = options.getInt("--threads", Runtime.getRuntime().availableProcessors());
+
+        System.out.printf("strategy=%s safeZone=%s seed=%d threads=%d%n", strategy, safeZone, seed, threads);
+        for (String name : difficulties.split(",")) {
+            BoardSpec spec = BoardSpec.parse(name, safeZone).withSeed(seed);
+            Simulator simulator = new Simulator(spec, strategyNamed(strategy), threads);
+
+            long start = System.nanoTime();
+            Result result = simulator.run(games);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%-6s games=%d wins=%d winRate=%.2f%% games/s=%.0f moves/game=%.1f%n",
+                    name.trim(), result.games, result.wins, 100.0 * result.wins / result.games,
+                    result.games / seconds, (double) result.moves / result.games);
+            System.out.println("       revealCell " + result.revealLatency);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Deductive Minesweeper solver that finds cells that are certainly safe or
+ * certainly mines, using only what the player can see: which cells are
+ * revealed and the numbers on them. It never asks the board whether a hidden
+ * cell is a mine.
+ *
+ * Rules are tried from cheapest to most expensive:
+ * <ol>
+ *   <li>single number: all mines around a number found, or all hidden cells must be mines</li>
+ *   <li>pairs: one number's hidden cells are a subset of a nearby number's</li>
+ *   <li>enumeration of every layout of each independent frontier component</li>
+ * </ol>
+ * The solver keeps its deductions between moves and is told which cells each
+ * move changed ({@link #observe}), so it only re-examines numbers near them.
+ */
+public class Solver {
+    static final byte UNKNOWN = 0;
+    static final byte SAFE = 1;
+    static final byte MINE = 2;
+
+    // Components larger than this are left to guessing
+    private static final int MAX_ENUMERATED_CELLS = 40;
+    private static final long NODE_BUDGET = 100_000;
+
+    /**
+     * A suggested move: a cell that is certainly safe, or certainly a mine.
+     */
+    public static final class Hint {
+        private final int row;
+        private final int col;
+        private final boolean mine;
+
+        Hint(int row, int col, boolean mine) {
+            this.row = row;
+            this.col = col;
+            this.mine = mine;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public int getCol() {
+            return col;
+        }
+
+        /**
+         * True if the cell is a mine to flag, false if it is safe to reveal.
+         */
+        public boolean isMine() {
+            return mine;
+        }
+
+        @Override
+        public String toString() {
+            return (mine ? "mine at (" : "safe at (") + row + ", " + col + ")";
+        }
+    }
+
+    private final GameController controller;
+    private final CellGrid grid;
+    private final int rows;
+    private final int cols;
+
+    // What the solver has proven about each hidden cell
+    private final byte[] known;
+
+    // Numbers to re-examine with the single-number rule
+    private int[] work = new int[64];
+    private int workSize;
+    private final boolean[] queued;
+
+    // Numbers that still touch unknown cells
+    private int[] frontier = new int[64];
+    private int frontierSize;
+    private final boolean[] inFrontier;
+
+    // Proven cells not yet handed out
+    private int[] safeCells = new int[64];
+    private int safeCount;
+    private int[] mineCells = new int[64];
+    private int mineCount;
+
+    /**
+     * Creates a solver for a game and reads the cells already revealed.
+     *
+     * @param controller The game to analyze.
+     */
+    public Solver(GameController controller) {
+        this.controller = controller;
+        this.grid = controller.getBoard().getGrid();
+        this.rows = grid.getRows();
+        this.cols = grid.getCols();
+        this.known = new byte[grid.size()];
+        this.queued = new boolean[grid.size()];
+        this.inFrontier = new boolean[grid.size()];
+        rescan();
+    }
+
+    /**
+     * Forgets all deductions (e.g. after the controller was reset) and reads the board again.
+     */
+    public void reset() {
+        Arrays.fill(known, UNKNOWN);
+        Arrays.fill(queued, false);
+        Arrays.fill(inFrontier, false);
+        workSize = 0;
+        frontierSize = 0;
+        safeCount = 0;
+        mineCount = 0;
+        rescan();
+    }
+
+    /**
+     * Queues every revealed number on the board for examination.
+     */
+    private void rescan() {
+        for (int i = 0; i < grid.size(); i++) {
+            if (grid.isRevealed(i) && grid.getNeighborMines(i) > 0) enqueue(i);
+        }
+    }
+
+    /**
+     * Tells the solver which cells the last move changed.
+     * Must be called after every move for the solver to stay up to date.
+     *
+     * @param changes The controller's change set for the move.
+     */
+    public void observe(ChangeSet changes) {
+        for (int i = 0; i < changes.size(); i++) {
+            int index = changes.get(i);
+            if (!grid.isRevealed(index)) continue;
+
+            if (grid.getNeighborMines(index) > 0) enqueue(index);
+            enqueueNumbersAround(index);
+        }
+    }
+
+    /**
+     * Suggests a move that is certain: a safe cell to reveal if there is one,
+     * otherwise a proven mine that is not flagged yet.
+     *
+     * @return The hint, or null if every remaining move would be a guess.
+     */
+    public Hint hint() {
+        int safe = nextSafeCell();
+        if (safe >= 0) return new Hint(safe / cols, safe % cols, false);
+
+        for (int i = mineCount - 1; i >= 0; i--) {
+            int mine = mineCells[i];
+            if (!grid.isFlagged(mine)) return new Hint(mine / cols, mine % cols, true);
+        }
+        return null;
+    }
+
+    /**
+     * Reveals every cell the solver can prove safe, until only guesses remain.
+     *
+     * @return Number of cells revealed, counting cascades.
+     */
+    public int autoPlay() {
+        int opened = 0;
+        int safe;
+        while (!controller.isGameOver() && (safe = nextSafeCell()) >= 0) {
+            opened += controller.revealCell(safe / cols, safe % cols);
+            observe(controller.getLastChanges());
+        }
+        return opened;
+    }
+
+    /**
+     * Gets the game this solver analyzes.
+     */
+    public GameController getController() {
+        return controller;
+    }
+
+    /**
+     * Checks if the solver has proven the cell at the given index to be a mine.
+     */
+    public boolean isKnownMine(int index) {
+        return known[index] == MINE;
+    }
+
+    /**
+     * Returns a proven safe hidden cell, running deductions as needed.
+     *
+     * @return Flat index of the cell, or -1 if none can be proven.
+     */
+    public int nextSafeCell() {
+        while (true) {
+            while (safeCount > 0) {
+                int cell = safeCells[--safeCount];
+                if (!grid.isRevealed(cell)) {
+                    safeCells[safeCount++] = cell;
+                    return cell;
+                }
+            }
+            if (!deduce()) return -1;
+        }
+    }
+
+    /**
+     * Runs the rules, cheapest first, until one of them proves something new.
+     *
+     * @return True if at least one cell was proven.
+     */
+    private boolean deduce() {
+        int before = safeCount + mineCount;
+
+        while (workSize > 0) {
+            int cell = work[--workSize];
+            queued[cell] = false;
+            applySingleRule(cell);
+        }
+        if (safeCount + mineCount > before) return true;
+
+        compactFrontier();
+        applySubsetRule();
+        if (safeCount + mineCount > before) {
+            return true;
+        }
+
+        applyEnumeration();
+        return safeCount + mineCount > before;
+    }
+
+    /**
+     * Single-number rule on one revealed number.
+     */
+    private void applySingleRule(int index) {
+        int row = index / cols;
+        int col = index % cols;
+        int mines = 0;
+        int unknown = 0;
+
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                int neighbor = r * cols + c;
+                if (grid.isRevealed(neighbor)) continue;
+                if (known[neighbor] == MINE) mines++;
+                else if (known[neighbor] == UNKNOWN) unknown++;
+            }
+        }
+        if (unknown == 0) return;
+
+        int remaining = grid.getNeighborMines(index) - mines;
+        if (remaining == 0 || remaining == unknown) {
+            byte value = remaining == 0 ? SAFE : MINE;
+            for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+                for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                    int neighbor = r * cols + c;
+                    if (!grid.isRevealed(neighbor) && known[neighbor] == UNKNOWN) {
+                        prove(neighbor, value);
+                    }
+                }
+            }
+        } else if (!inFrontier[index]) {
+            inFrontier[index] = true;
+            frontier = push(frontier, frontierSize++, index);
+        }
+    }
+
+    /**
+     * Subset rule: if the unknown cells of number A all touch number B, then
+     * B's other unknown cells hold exactly (B - A) mines.
+     */
+    private void applySubsetRule() {
+        int[] cellsA = new int[8];
+        int[] cellsB = new int[8];
+
+        for (int f = 0; f < frontierSize; f++) {
+            int a = frontier[f];
+            int countA = unknownNeighbors(a, cellsA);
+            if (countA == 0) continue;
+            int needA = remainingMines(a);
+            int rowA = a / cols;
+            int colA = a % cols;
+
+            for (int r = Math.max(rowA - 2, 0); r <= Math.min(rowA + 2, rows - 1); r++) {
+                for (int c = Math.max(colA - 2, 0); c <= Math.min(colA + 2, cols - 1); c++) {
+                    int b = r * cols + c;
+                    if (b == a || !inFrontier[b]) continue;
+
+                    int countB = unknownNeighbors(b, cellsB);
+                    if (countB <= countA || !containsAll(cellsB, countB, cellsA, countA)) continue;
+
+                    int extraMines = remainingMines(b) - needA;
+                    int extraCells = countB - countA;
+                    if (extraMines != 0 && extraMines != extraCells) continue;
+
+                    byte value = extraMines == 0 ? SAFE : MINE;
+                    for (int i = 0; i < countB; i++) {
+                        int cell = cellsB[i];
+                        if (known[cell] == UNKNOWN && !contains(cellsA, countA, cell)) {
+                            prove(cell, value);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Enumerates each frontier component and proves cells that are a mine in
+     * every layout, or in none.
+     */
+    private void applyEnumeration() {
+        List<FrontierComponent> components = FrontierComponent.build(grid, frontier, frontierSize, known);
+        for (FrontierComponent component : components) {
+            if (component.size() > MAX_ENUMERATED_CELLS || !component.enumerate(NODE_BUDGET)) continue;
+
+            int size = component.size();
+            long total = 0;
+            for (int k = 0; k <= size; k++) total += component.getSolutions(k);
+            if (total == 0) continue;
+
+            int[] cells = component.getCells();
+            for (int i = 0; i < size; i++) {
+                long hits = 0;
+                for (int k = 0; k <= size; k++) hits += component.getMineHits(k, i);
+
+                if (hits == 0) prove(cells[i], SAFE);
+                else if (hits == total) prove(cells[i], MINE);
+            }
+        }
+    }
+
+    /**
+     * Records a proven cell and queues the numbers around it for another look.
+     */
+    private void prove(int index, byte value) {
+        if (known[index] != UNKNOWN) return;
+
+        known[index] = value;
+        if (value == SAFE) {
+            safeCells = push(safeCells, safeCount++, index);
+        } else {
+            mineCells = push(mineCells, mineCount++, index);
+        }
+        enqueueNumbersAround(index);
+    }
+
+    private void enqueueNumbersAround(int index) {
+        int row = index / cols;
+        int col = index % cols;
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                int neighbor = r * cols + c;
+                if (grid.isRevealed(neighbor) && grid.getNeighborMines(neighbor) > 0) {
+                    enqueue(neighbor);
+                }
+            }
+        }
+    }
+
+    private void enqueue(int index) {
+        if (queued[index]) return;
+        queued[index] = true;
+        work = push(work, workSize++, index);
+    }
+
+    /**
+     * Drops numbers that no longer touch any unknown cell.
+     */
+    private void compactFrontier() {
+        int[] scratch = new int[8];
+        int kept = 0;
+        for (int f = 0; f < frontierSize; f++) {
+            int index = frontier[f];
+            if (unknownNeighbors(index, scratch) > 0) {
+                frontier[kept++] = index;
+            } else {
+                inFrontier[index] = false;
+            }
+        }
+        frontierSize = kept;
+    }
+
+    /**
+     * Collects the hidden, unproven neighbors of a number, in index order.
+     *
+     * @return How many were found.
+     */
+    private int unknownNeighbors(int index, int[] out) {
+        int row = index / cols;
+        int col = index % cols;
+        int count = 0;
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                int neighbor = r * cols + c;
+                if (!grid.isRevealed(neighbor) && known[neighbor] == UNKNOWN) out[count++] = neighbor;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A number minus the proven mines around it.
+     */
+    private int remainingMines(int index) {
+        int row = index / cols;
+        int col = index % cols;
+        int mines = 0;
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                if (known[r * cols + c] == MINE) mines++;
+            }
+        }
+        return grid.getNeighborMines(index) - mines;
+    }
+
+    private static boolean containsAll(int[] outer, int outerCount, int[] inner, int innerCount) {
+        for (int i = 0; i < innerCount; i++) {
+            if (!contains(outer, outerCount, inner[i])) return false;
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    private static int[] push(int[] array, int size, int value) {
+        if (size == array.length) {
+            array = Arrays.copyOf(array, size * 2);
+        }
+        array[size] = value;
+        return array;
+    }
+}
@@ -0,0 +1,36 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays with the deductive {@link Solver}: opens the center first, then
+ * reveals cells proven safe, and guesses randomly (avoiding proven mines)
+ * only when nothing can be proven.
+ */
+public class SolverStrategy implements MoveStrategy {
+    private Solver solver;
+    private boolean started;
+
+    @Override
+    public void newGame(GameController controller) {
+        if (solver == null || solver.getController() != controller) {
+            solver = new Solver(controller);
+        } else {
+            solver.reset();
+        }
+        started = false;
+    }
+
+    @Override
+    public int nextMove(GameController controller, RandomGenerator random) {
+        Board board = controller.getBoard();
+        if (!started) {
+            started = true;
+            return board.indexOf(board.getRows() / 2, board.getCols() / 2);
+        }
+
+        solver.observe(controller.getLastChanges());
+        int safe = solver.nextSafeCell();
+        if (safe >= 0) return safe;
+
+        return RandomStrategy.pickHiddenCell(board.getGrid(), random, solver::isKnownMine);
+    }
+}
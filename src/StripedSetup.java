@@ -0,0 +1,296 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.random.RandomGenerator;
+
+/**
+ * Sets up very large boards on all cores by splitting them into stripes of
+ * whole rows, one fork/join task per stripe.
+ *
+ * Mines are placed in two steps. First, one generator splits the mine
+ * count between the stripes, drawing each stripe's share from the
+ * hypergeometric distribution of the cells left, and draws a seed for each
+ * stripe. Then every stripe places its share with {@link MinePlacer}, using
+ * its own seeded generator, in parallel. Every layout stays equally likely,
+ * and the stripes depend only on the board size, so a seeded board is the
+ * same whatever the pool's parallelism (though not the same board that
+ * {@link Board#placeMines(int, int, int, SafeZone, RandomGenerator)} places
+ * for that seed).
+ *
+ * Neighbor counting runs after all stripes have their mines. Each stripe is
+ * counted with {@link NeighborCounter#countRows}, which reads the halo rows
+ * just above and below the stripe but only writes inside it. The halo's mine
+ * bits no longer change, so a neighbor writing its counts into the same bytes
+ * at the same time cannot disturb them.
+ */
+public final class StripedSetup {
+    // Stripes of about this many cells: large enough to amortize a task, small enough to balance
+    private static final int STRIPE_CELLS = 1 << 18;
+    // Hypergeometric weights below this, relative to the mode, are left out
+    private static final double NEGLIGIBLE = 1e-20;
+
+    private StripedSetup() {
+    }
+
+    /**
+     * Gets the number of rows per stripe for a board width.
+     */
+    static int stripeRows(int cols) {
+        return Math.max(1, STRIPE_CELLS / cols);
+    }
+
+    /**
+     * Clears every cell back to empty and hidden, one stripe per task.
+     * Only {@link PackedCellGrid} is cleared in stripes; other storage is
+     * cleared by the calling thread.
+     *
+     * @param grid The cell storage.
+     * @param pool Pool to run the stripes on.
+     */
+    public static void clear(CellGrid grid, ForkJoinPool pool) {
+        if (!(grid instanceof PackedCellGrid)) {
+            grid.clear();
+            return;
+        }
+        byte[] cells = ((PackedCellGrid) grid).bytes();
+        int cols = grid.getCols();
+        forEachStripe(grid, pool, (rowFrom, rowTo) ->
+                Arrays.fill(cells, rowFrom * cols, rowTo * cols, (byte) 0));
+    }
+
+    /**
+     * Places mines uniformly at random, one stripe per task. The grid must not
+     * contain any mines yet. Neighbor counts are not set, see {@link #countNeighbors}.
+     *
+     * @param grid The cell storage.
+     * @param excluded Sorted flat indices that must stay free (the safe zone).
+     * @param totalMines Total number of mines to place.
+     * @param random Splits the mines between stripes and seeds each stripe.
+     * @param pool Pool to run the stripes on.
+     * @throws IllegalArgumentException If the mines do not fit outside the excluded cells.
+     */
+    public static void placeMines(CellGrid grid, int[] excluded, int totalMines,
+                                  RandomGenerator random, ForkJoinPool pool) {
+        int free = grid.size() - excluded.length;
+        if (totalMines < 0 || totalMines > free) {
+            throw new IllegalArgumentException("Cannot place " + totalMines + " mines in "
+                    + free + " free cells");
+        }
+
+        int cols = grid.getCols();
+        int rowsPerStripe = stripeRows(cols);
+        int stripes = (grid.getRows() + rowsPerStripe - 1) / rowsPerStripe;
+        int[] counts = new int[stripes];
+        long[] seeds = new long[stripes];
+        int[][] stripeExcluded = new int[stripes][];
+
+        // Drawn in stripe order on this thread, so the result does not depend on scheduling
+        int minesLeft = totalMines;
+        int freeLeft = free;
+        int next = 0;
+        for (int s = 0; s < stripes; s++) {
+            int from = s * rowsPerStripe * cols;
+            int to = Math.min(grid.getRows(), (s + 1) * rowsPerStripe) * cols;
+            int first = next;
+            while (next < excluded.length && excluded[next] < to) next++;
+            stripeExcluded[s] = Arrays.copyOfRange(excluded, first, next);
+
+            int stripeFree = to - from - stripeExcluded[s].length;
+            counts[s] = hypergeometric(freeLeft, stripeFree, minesLeft, random);
+            seeds[s] = random.nextLong();
+            minesLeft -= counts[s];
+            freeLeft -= stripeFree;
+        }
+
+        forEachStripe(grid, pool, (rowFrom, rowTo) -> {
+            int s = rowFrom / rowsPerStripe;
+            MinePlacer.place(grid, rowFrom * cols, rowTo * cols, stripeExcluded[s], counts[s],
+                    new SplittableRandom(seeds[s]));
+        });
+    }
+
+    /**
+     * Sets the neighbor count of every non-mine cell, one stripe per task.
+     *
+     * @param grid The cell storage, with all mines placed.
+     * @param pool Pool to run the stripes on.
+     */
+    public static void countNeighbors(CellGrid grid, ForkJoinPool pool) {
+        forEachStripe(grid, pool, (rowFrom, rowTo) -> NeighborCounter.countRows(grid, rowFrom, rowTo));
+    }
+
+    /**
+     * Work on one stripe of rows.
+     */
+    private interface StripeTask {
+        void run(int rowFrom, int rowTo);
+    }
+
+    /**
+     * Runs a task for every stripe on the pool and waits for all of them.
+     */
+    private static void forEachStripe(CellGrid grid, ForkJoinPool pool, StripeTask task) {
+        int rows = grid.getRows();
+        int rowsPerStripe = stripeRows(grid.getCols());
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int rowFrom = 0; rowFrom < rows; rowFrom += rowsPerStripe) {
+            int from = rowFrom;
+            int to = Math.min(rows, rowFrom + rowsPerStripe);
+            tasks.add(pool.submit(() -> task.run(from, to)));
+        }
+        for (ForkJoinTask<?> stripe : tasks) {
+            stripe.join();
+        }
+    }
+
+    /**
+     * Draws how many of {@code draws} cells, taken without replacement from
+     * {@code population} cells, fall among a given {@code successes} of them.
+     *
+     * Weights relative to the mode are built from the ratio of neighboring
+     * probabilities, outwards until they are negligible, then one uniform draw
+     * picks the outcome. Takes time in the order of the standard deviation,
+     * which is small next to placing the mines.
+     */
+    static int hypergeometric(int population, int successes, int draws, RandomGenerator random) {
+        int low = Math.max(0, draws - (population - successes));
+        int high = Math.min(successes, draws);
+        if (low == high) return low;
+
+        int mode = (int) ((draws + 1.0) * (successes + 1.0) / (population + 2.0));
+        mode = Math.max(low, Math.min(high, mode));
+
+        double total = 1;
+        double weight = 1;
+        int top = mode;
+        while (top < high) {
+            double next = weight * ratio(top, population, successes, draws);
+            if (next < NEGLIGIBLE) break;
+            weight = next;
+            total += weight;
+            top++;
+        }
+        weight = 1;
+        int bottom = mode;
+        while (bottom > low) {
+            double next = weight / ratio(bottom - 1, population, successes, draws);
+            if (next < NEGLIGIBLE) break;
+            weight = next;
+            total += weight;
+            bottom--;
+        }
+
+        // weight now belongs to bottom; walk up until the draw is used up
+        double target = random.nextDouble() * total;
+        for (int k = bottom; k < top; k++) {
+            target -= weight;
+            if (target < 0) return k;
+            weight *= ratio(k, population, successes, draws);
+        }
+        return top;
+    }
+
+    /**
+     * Gets P(k + 1) / P(k) of the hypergeometric distribution.
+     */
+    private static double ratio(int k, int population, int successes, int draws) {
+        return (double) (successes - k) * (draws - k)
+                / ((double) (k + 1) * (population - successes - draws + k + 1));
+    }
+
+    /**
+     * Scaling benchmark: sets up one board on pools of growing parallelism
+     * and reports the time of each phase. Every run uses the same seed, and
+     * the boards must come out identical, with every mine placed, the safe
+     * zone free and (with {@code --verify true}) every count correct.
+     *
+     * Usage: {@code java -Xmx2g -cp out StripedSetup [--difficulty 20000x20000:80000000]
+     * [--threads 1,2,4,8] [--rounds 3] [--seed S] [--verify true]}
+     */
+    public static void main(String[] args) {
+        Options options = new Options(args, "--difficulty", "--threads", "--rounds", "--seed", "--verify");
+        String difficulty = options.get("--difficulty", "20000x20000:80000000");
+        int cores = Runtime.getRuntime().availableProcessors();
+        String threadCounts = options.get("--threads", cores == 1 ? "1" : "1," + cores);
+        int rounds = options.getInt("--rounds", 3);
+        long seed = options.getLong("--seed", 1);
+        boolean verify = options.getBoolean("--verify", false);
+
+        BoardSpec spec = BoardSpec.parse(difficulty, SafeZone.NEIGHBORHOOD);
+        System.out.printf("difficulty=%s cores=%d stripeRows=%d seed=%d%n", difficulty, cores,
+                stripeRows(spec.getCols()), seed);
+
+        Board board = new Board(spec.getRows(), spec.getCols());
+        byte[] cells = ((PackedCellGrid) board.getGrid()).bytes();
+        int safeRow = spec.getRows() / 2;
+        int safeCol = spec.getCols() / 2;
+        long sequential = 0;
+        Integer expectedHash = null;
+
+        // Baseline: the single-threaded placement and count of Board.placeMines
+        for (int round = 0; round < rounds; round++) {
+            board.reset();
+            long start = System.nanoTime();
+            board.placeMines(safeRow, safeCol, spec.getMines(), spec.getSafeZone(), new SplittableRandom(seed));
+            sequential = System.nanoTime() - start;
+        }
+        System.out.printf("sequential  place+count=%.0f ms%n", sequential / 1e6);
+
+        for (String count : threadCounts.split(",")) {
+            int threads = Integer.parseInt(count.trim());
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            long clear = 0;
+            long place = 0;
+            long neighbors = 0;
+
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                board.reset(pool);
+                clear = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                board.placeMines(safeRow, safeCol, spec.getMines(), spec.getSafeZone(),
+                        new SplittableRandom(seed), pool);
+                long total = System.nanoTime() - start;
+                // Time the counting phase on its own; it rewrites the same counts
+                start = System.nanoTime();
+                countNeighbors(board.getGrid(), pool);
+                neighbors = System.nanoTime() - start;
+                place = total - neighbors;
+            }
+            pool.shutdown();
+
+            String problem = check(board, spec, safeRow, safeCol, verify);
+            int hash = Arrays.hashCode(cells);
+            if (problem == null && expectedHash != null && hash != expectedHash) problem = "board differs";
+            if (expectedHash == null) expectedHash = hash;
+
+            System.out.printf("threads=%-3d clear=%.0f ms place=%.0f ms count=%.0f ms place+count=%.0f ms"
+                            + " speedup=%.2f %s%n", threads, clear / 1e6, place / 1e6, neighbors / 1e6,
+                    (place + neighbors) / 1e6, (double) sequential / (place + neighbors),
+                    problem == null ? "ok" : problem);
+        }
+    }
+
+    /**
+     * Checks a board set up in stripes.
+     *
+     * @return What is wrong, or null.
+     */
+    private static String check(Board board, BoardSpec spec, int safeRow, int safeCol, boolean counts) {
+        CellGrid grid = board.getGrid();
+        int mines = 0;
+        for (int i = 0; i < grid.size(); i++) {
+            if (grid.isMine(i)) mines++;
+        }
+        if (mines != spec.getMines()) return mines + " mines placed";
+        for (int cell : spec.getSafeZone().cells(spec.getRows(), spec.getCols(), safeRow, safeCol)) {
+            if (grid.isMine(cell)) return "mine in safe zone";
+        }
+        if (counts && !board.verifyNeighborCounts()) return "wrong neighbor counts";
+        return null;
+    }
+}